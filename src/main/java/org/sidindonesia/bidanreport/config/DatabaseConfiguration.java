@@ -1,5 +1,6 @@
 package org.sidindonesia.bidanreport.config;
 
+import org.sidindonesia.bidanreport.repository.BaseRepositoryImpl;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
@@ -9,8 +10,8 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 import com.google.zxing.qrcode.QRCodeWriter;
 
 @Configuration
-@EnableJpaRepositories({ "org.sidindonesia.bidanreport.repository",
-		"org.sidindonesia.bidanreport.integration.qontak.repository" })
+@EnableJpaRepositories(basePackages = { "org.sidindonesia.bidanreport.repository",
+		"org.sidindonesia.bidanreport.integration.qontak.repository" }, repositoryBaseClass = BaseRepositoryImpl.class)
 @EnableJpaAuditing
 @EnableTransactionManagement
 public class DatabaseConfiguration {
@@ -0,0 +1,26 @@
+package org.sidindonesia.bidanreport.config.property;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "excel-export")
+public class ExcelExportProperties {
+	private int rowAccessWindowSize = 100;
+	private int pageSize = 1000;
+	/**
+	 * Number of tables exported at the same time in parallel mode, each one
+	 * holding its own connection, so keep it below the connection pool size.
+	 */
+	private int parallelism = 4;
+	private int maxConcurrentJobs = 2;
+	private String spoolDirectoryPath;
+	private long spoolMaxSizeInBytes = 1024L * 1024 * 1024;
+	/**
+	 * How long a failed export job can still be polled before it is forgotten.
+	 */
+	private long failedJobTtlInMs = 60L * 60 * 1000;
+}
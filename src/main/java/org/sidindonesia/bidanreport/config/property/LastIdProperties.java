@@ -11,11 +11,11 @@ import lombok.Data;
 public class LastIdProperties {
 	private LastId motherIdentity = new LastId();
 	private LastId motherEdit = new LastId();
-	private Long ancVisitPregnancyGapLastId = 0L;
 
 	@Data
 	public static class LastId {
 		private Long pregnantMotherLastId = 0L;
 		private Long nonPregnantMotherLastId = 0L;
+		private Long ancVisitPregnancyGapLastId = 0L;
 	}
 }
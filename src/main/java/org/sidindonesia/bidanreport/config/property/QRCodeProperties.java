@@ -11,5 +11,15 @@ import lombok.Data;
 public class QRCodeProperties {
 	private int width;
 	private int height;
-	private String directoryPath;
+	private Cache cache = new Cache();
+
+	@Data
+	public static class Cache {
+		private long maximumSize = 10000;
+		/**
+		 * How long an uploaded QR code is reused, keep it below the time Qontak
+		 * keeps uploaded files.
+		 */
+		private long expireAfterWriteInMs = 86400000;
+	}
 }
@@ -14,9 +14,12 @@ public class SchedulingProperties {
 	private CronSchedule visitReminder;
 	private FixedRateSchedule pregnancyGap;
 	private CronSchedule healthEducation;
+	private FixedRateSchedule outboxDispatch;
+	private FixedRateSchedule bulkBroadcastResume;
 	private RetrySchedule contactList;
 	private RetrySchedule broadcastBulk;
 	private RetrySchedule broadcastDirect;
+	private RetrySchedule uploadFile;
 
 	@Data
 	public static class FixedRateSchedule {
@@ -36,5 +39,6 @@ public class SchedulingProperties {
 		private Long initialDelayInMs;
 		private Integer maxNumberOfRetries;
 		private Long retrieveDelayInMs;
+		private Integer maxConcurrency;
 	}
 }
@@ -2,8 +2,13 @@ package org.sidindonesia.bidanreport.controller;
 
 import javax.validation.Valid;
 
+import org.sidindonesia.bidanreport.controller.request.DeltaExportRequest;
 import org.sidindonesia.bidanreport.controller.request.ValidationRequestParams;
+import org.sidindonesia.bidanreport.service.ArrowExportService;
+import org.sidindonesia.bidanreport.service.CsvExportService;
 import org.sidindonesia.bidanreport.service.ExcelSheetService;
+import org.sidindonesia.bidanreport.util.ExcelSheetUtil;
+import org.sidindonesia.bidanreport.util.JpaEntityUtil;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
@@ -12,8 +17,11 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,8 +33,10 @@ import lombok.extern.slf4j.Slf4j;
 public class ExcelSheetController {
 
 	private final ExcelSheetService excelSheetService;
+	private final CsvExportService csvExportService;
+	private final ArrowExportService arrowExportService;
 
-	@Value("${spring.jpa.properties.hibernate.default_schema:sid}")
+	@Value(JpaEntityUtil.SCHEMA_NAME)
 	private String schemaName;
 
 	@GetMapping("/$download")
@@ -39,12 +49,64 @@ public class ExcelSheetController {
 			.contentType(MediaType.parseMediaType("application/vnd.ms-excel")).body(file);
 	}
 
+	@GetMapping("/$stream")
+	public ResponseEntity<StreamingResponseBody> streamAllTablesAsExcelSheets(
+		@RequestParam(defaultValue = "false") boolean parallel) {
+		String filename = schemaName + ".xlsx";
+		log.debug("REST request to stream all tables in schema `" + schemaName + "` as Excel Sheets, parallel: "
+			+ parallel);
+		StreamingResponseBody body = parallel ? excelSheetService::writeAllTablesAsExcelSheetsInParallel
+			: excelSheetService::writeAllTablesAsExcelSheets;
+
+		return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+			.contentType(MediaType.parseMediaType(ExcelSheetUtil.EXCEL_MEDIA_TYPE)).body(body);
+	}
+
+	@GetMapping("/$csv")
+	public ResponseEntity<StreamingResponseBody> streamAllTablesAsZippedCsvFiles(
+		@RequestParam(defaultValue = "false") boolean gzip) {
+		String filename = schemaName + "-csv.zip";
+		log.debug("REST request to stream all tables in schema `" + schemaName + "` as CSV files, gzip: " + gzip);
+		StreamingResponseBody body = outputStream -> csvExportService.writeAllTablesAsZippedCsvFiles(outputStream,
+			gzip);
+
+		return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+			.contentType(MediaType.parseMediaType("application/zip")).body(body);
+	}
+
+	/**
+	 * Delta variant of {@link #streamAllTablesAsZippedCsvFiles(boolean)}, see
+	 * {@link CsvExportService#writeTablesAsZippedCsvFilesSince}.
+	 */
+	@PostMapping("/$csv")
+	public ResponseEntity<StreamingResponseBody> streamNewRowsAsZippedCsvFiles(
+		@Valid @RequestBody DeltaExportRequest request) {
+		String filename = schemaName + "-csv-delta.zip";
+		log.debug("REST request to stream new rows in schema `" + schemaName + "` as CSV files since event IDs: "
+			+ request.getSinceEventIds());
+		csvExportService.checkTablesExist(request.getSinceEventIds().keySet());
+		StreamingResponseBody body = outputStream -> csvExportService.writeTablesAsZippedCsvFilesSince(outputStream,
+			request.getSinceEventIds(), request.isGzip());
+
+		return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+			.contentType(MediaType.parseMediaType("application/zip")).body(body);
+	}
+
+	@GetMapping("/$arrow")
+	public ResponseEntity<StreamingResponseBody> streamAllTablesAsZippedArrowStreams() {
+		String filename = schemaName + "-arrow.zip";
+		log.debug("REST request to stream all tables in schema `" + schemaName + "` as Arrow IPC streams");
+		StreamingResponseBody body = arrowExportService::writeAllTablesAsZippedArrowStreams;
+
+		return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+			.contentType(MediaType.parseMediaType("application/zip")).body(body);
+	}
+
 	@PostMapping("/$validate")
 	public ResponseEntity<Resource> validateTableColumnsThenDownloadAsExcelSheets(
 		@Valid ValidationRequestParams params) {
 
-		String filename = schemaName + "-validations_" + params.getFromDate().toString().replace(':', '_') + "_to_"
-			+ params.getUntilDate().toString().replace(':', '_') + ".xlsx";
+		String filename = toValidationFilename(schemaName, params);
 		log.debug("REST request to validate all tables in schema `" + schemaName
 			+ "` then download as Excel Sheets with filename: \"" + filename + "\"");
 
@@ -53,4 +115,9 @@ public class ExcelSheetController {
 		return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
 			.contentType(MediaType.parseMediaType("application/vnd.ms-excel")).body(file);
 	}
+
+	static String toValidationFilename(String schemaName, ValidationRequestParams params) {
+		return schemaName + "-validations_" + params.getFromDate().toString().replace(':', '_') + "_to_"
+			+ params.getUntilDate().toString().replace(':', '_') + ".xlsx";
+	}
 }
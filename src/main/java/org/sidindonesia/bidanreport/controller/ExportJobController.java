@@ -0,0 +1,90 @@
+package org.sidindonesia.bidanreport.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+
+import javax.validation.Valid;
+
+import org.sidindonesia.bidanreport.controller.request.ValidationRequestParams;
+import org.sidindonesia.bidanreport.controller.response.ExportJobResponse;
+import org.sidindonesia.bidanreport.service.ExportJob;
+import org.sidindonesia.bidanreport.service.ExportJobService;
+import org.sidindonesia.bidanreport.util.ExcelSheetUtil;
+import org.sidindonesia.bidanreport.util.JpaEntityUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Asynchronous variant of {@link ExcelSheetController}: start an export, poll
+ * its status, then download the spooled file once it is done.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@RestController
+@RequestMapping("/api/ExportJob")
+public class ExportJobController {
+
+	private final ExportJobService exportJobService;
+
+	@Value(JpaEntityUtil.SCHEMA_NAME)
+	private String schemaName;
+
+	@PostMapping("/$download")
+	public ResponseEntity<ExportJobResponse> startDownloadAllTablesJob(
+		@RequestParam(defaultValue = "false") boolean parallel) {
+		log.debug("REST request to start exporting all tables in schema `" + schemaName + "` as Excel Sheets");
+		return accepted(exportJobService.startAllTablesExport(schemaName + ".xlsx", parallel));
+	}
+
+	@PostMapping("/$validate")
+	public ResponseEntity<ExportJobResponse> startValidateTableColumnsJob(@Valid ValidationRequestParams params) {
+		log.debug("REST request to start validating all tables in schema `" + schemaName + "`");
+		return accepted(exportJobService.startValidationExport(params,
+			ExcelSheetController.toValidationFilename(schemaName, params)));
+	}
+
+	@GetMapping("/{id}")
+	public ResponseEntity<ExportJobResponse> getJob(@PathVariable String id) {
+		return ResponseEntity.ok(ExportJobResponse.of(findJob(id)));
+	}
+
+	@GetMapping("/{id}/file")
+	public ResponseEntity<Resource> downloadJobFile(@PathVariable String id) throws IOException {
+		ExportJob job = findJob(id);
+		if (job.getStatus() != ExportJob.Status.DONE) {
+			throw new ResponseStatusException(HttpStatus.CONFLICT, "Export job " + id + " is " + job.getStatus());
+		}
+		InputStream file = exportJobService.openFile(job).orElseThrow(
+			() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Export job " + id + " is not found"));
+		return ResponseEntity.ok()
+			.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + job.getFilename())
+			.contentType(MediaType.parseMediaType(ExcelSheetUtil.EXCEL_MEDIA_TYPE))
+			.body(new InputStreamResource(file));
+	}
+
+	private ExportJob findJob(String id) {
+		return exportJobService.findJob(id).orElseThrow(
+			() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Export job " + id + " is not found"));
+	}
+
+	private static ResponseEntity<ExportJobResponse> accepted(ExportJob job) {
+		return ResponseEntity.accepted().location(URI.create("/api/ExportJob/" + job.getId()))
+			.body(ExportJobResponse.of(job));
+	}
+}
@@ -0,0 +1,21 @@
+package org.sidindonesia.bidanreport.controller.request;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.validation.constraints.NotNull;
+
+import lombok.Data;
+
+@Data
+public class DeltaExportRequest {
+
+	/**
+	 * Greatest {@code event_id} already exported per table name, as returned in
+	 * {@code watermarks.json} by the previous export, which may be zero or
+	 * negative as event IDs are not necessarily positive.
+	 */
+	private Map<String, @NotNull Long> sinceEventIds = new HashMap<>();
+
+	private boolean gzip;
+}
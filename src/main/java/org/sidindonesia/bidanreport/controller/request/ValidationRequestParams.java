@@ -2,8 +2,11 @@ package org.sidindonesia.bidanreport.controller.request;
 
 import java.time.LocalDateTime;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
@@ -30,6 +33,34 @@ public class ValidationRequestParams {
 	@NotNull(message = "untilDate is required")
 	private LocalDateTime untilDate;
 
+	/**
+	 * Comma separated {@code table} or {@code table.column} entries, e.g.
+	 * {@code "anc_visit.anc_date, pnc_register"}, as form fields cannot be bound
+	 * to the elements of {@link #tables}.
+	 */
+	private String tableColumnsString;
+
+	public void setTableColumnsString(String tableColumnsString) {
+		this.tableColumnsString = tableColumnsString;
+		Map<String, Table> tablesByName = new LinkedHashMap<>();
+		for (String entry : tableColumnsString.split(",")) {
+			String[] tableAndColumn = entry.trim().split("\\.", 2);
+			if (tableAndColumn[0].isEmpty()) {
+				continue;
+			}
+			Table table = tablesByName.computeIfAbsent(tableAndColumn[0], name -> {
+				Table newTable = new Table();
+				newTable.setName(name);
+				return newTable;
+			});
+			if (tableAndColumn.length > 1) {
+				table.getColumns().add(tableAndColumn[1]);
+			}
+		}
+		this.tables = new HashSet<>(tablesByName.values());
+	}
+
+	@Valid
 	private Set<Table> tables = new HashSet<>();
 
 	@Data
@@ -0,0 +1,32 @@
+package org.sidindonesia.bidanreport.controller.response;
+
+import java.time.LocalDateTime;
+
+import org.sidindonesia.bidanreport.service.ExportJob;
+
+import lombok.Data;
+
+@Data
+public class ExportJobResponse {
+	private String id;
+	private ExportJob.Type type;
+	private ExportJob.Status status;
+	private int processedTables;
+	private int totalTables;
+	private LocalDateTime createdAt;
+	private LocalDateTime finishedAt;
+	private String errorMessage;
+
+	public static ExportJobResponse of(ExportJob job) {
+		ExportJobResponse response = new ExportJobResponse();
+		response.setId(job.getId());
+		response.setType(job.getType());
+		response.setStatus(job.getStatus());
+		response.setProcessedTables(job.getProgress().getProcessedTables());
+		response.setTotalTables(job.getProgress().getTotalTables());
+		response.setCreatedAt(job.getCreatedAt());
+		response.setFinishedAt(job.getFinishedAt());
+		response.setErrorMessage(job.getErrorMessage());
+		return response;
+	}
+}
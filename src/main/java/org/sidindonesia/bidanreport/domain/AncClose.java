@@ -16,7 +16,9 @@ import lombok.Data;
 
 @Data
 @Entity
-@Table(name = "anc_close", indexes = { @Index(name = "anc_close_event_id_IX", columnList = "event_id", unique = true) })
+@Table(name = "anc_close", indexes = {
+		@Index(name = "anc_close_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "anc_close_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class AncClose implements Serializable {
 
@@ -15,7 +15,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "anc_register", indexes = {
-		@Index(name = "anc_register_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "anc_register_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "anc_register_date_created_IX", columnList = "date_created") })
 public class AncRegister implements Serializable {
 
 	@Id
@@ -17,7 +17,9 @@ import lombok.Data;
 
 @Data
 @Entity
-@Table(name = "anc_visit", indexes = { @Index(name = "anc_visit_event_id_IX", columnList = "event_id", unique = true) })
+@Table(name = "anc_visit", indexes = {
+		@Index(name = "anc_visit_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "anc_visit_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class AncVisit implements Serializable {
 
@@ -18,7 +18,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "birth_plan", indexes = {
-		@Index(name = "birth_plan_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "birth_plan_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "birth_plan_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class BirthPlan implements Serializable {
 
@@ -17,7 +17,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "child_edit", indexes = {
-		@Index(name = "child_edit_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "child_edit_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "child_edit_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class ChildEdit implements Serializable {
 
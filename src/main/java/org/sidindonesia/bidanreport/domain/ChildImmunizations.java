@@ -18,7 +18,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "child_immunizations", indexes = {
-		@Index(name = "child_immunizations_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "child_immunizations_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "child_immunizations_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class ChildImmunizations implements Serializable {
 
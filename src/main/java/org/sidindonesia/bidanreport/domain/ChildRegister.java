@@ -18,7 +18,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "child_register", indexes = {
-		@Index(name = "child_register_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "child_register_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "child_register_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class ChildRegister implements Serializable {
 
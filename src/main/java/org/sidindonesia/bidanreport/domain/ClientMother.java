@@ -7,6 +7,8 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
@@ -16,6 +18,8 @@ import lombok.Data;
 
 @Data
 @Entity(name = "client_mother")
+@Table(name = "client_mother", indexes = {
+		@Index(name = "client_mother_date_created_IX", columnList = "date_created") })
 @IdClass(ClientId.class)
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class ClientMother implements Serializable {
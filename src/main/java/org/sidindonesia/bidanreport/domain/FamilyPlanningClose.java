@@ -17,7 +17,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "family_planning_close", indexes = {
-		@Index(name = "family_planning_close_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "family_planning_close_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "family_planning_close_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class FamilyPlanningClose implements Serializable {
 
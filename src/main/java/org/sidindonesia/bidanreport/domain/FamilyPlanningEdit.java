@@ -18,7 +18,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "family_planning_edit", indexes = {
-		@Index(name = "family_planning_edit_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "family_planning_edit_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "family_planning_edit_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class FamilyPlanningEdit implements Serializable {
 
@@ -18,7 +18,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "family_planning_visit", indexes = {
-		@Index(name = "family_planning_visit_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "family_planning_visit_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "family_planning_visit_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class FamilyPlanningVisit implements Serializable {
 
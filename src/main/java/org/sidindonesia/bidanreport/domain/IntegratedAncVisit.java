@@ -18,7 +18,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "integrated_anc_visit", indexes = {
-		@Index(name = "integrated_anc_visit_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "integrated_anc_visit_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "integrated_anc_visit_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class IntegratedAncVisit implements Serializable {
 
@@ -18,7 +18,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "lab_test_anc_visit", indexes = {
-		@Index(name = "lab_test_anc_visit_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "lab_test_anc_visit_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "lab_test_anc_visit_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class LabTestAncVisit implements Serializable {
 
@@ -18,7 +18,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "mother_close", indexes = {
-		@Index(name = "mother_close_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "mother_close_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "mother_close_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class MotherClose implements Serializable {
 
@@ -18,7 +18,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "mother_edit", indexes = {
-		@Index(name = "mother_edit_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "mother_edit_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "mother_edit_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class MotherEdit implements Serializable {
 
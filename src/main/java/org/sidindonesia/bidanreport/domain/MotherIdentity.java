@@ -18,7 +18,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "mother_identity", indexes = {
-		@Index(name = "mother_identity_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "mother_identity_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "mother_identity_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class MotherIdentity implements Serializable {
 
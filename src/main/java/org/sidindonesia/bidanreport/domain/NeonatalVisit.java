@@ -18,7 +18,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "neonatal_visit", indexes = {
-		@Index(name = "neonatal_visit_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "neonatal_visit_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "neonatal_visit_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class NeonatalVisit implements Serializable {
 
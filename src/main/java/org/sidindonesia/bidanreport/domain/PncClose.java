@@ -16,7 +16,9 @@ import lombok.Data;
 
 @Data
 @Entity
-@Table(name = "pnc_close", indexes = { @Index(name = "pnc_close_event_id_IX", columnList = "event_id", unique = true) })
+@Table(name = "pnc_close", indexes = {
+		@Index(name = "pnc_close_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "pnc_close_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class PncClose implements Serializable {
 
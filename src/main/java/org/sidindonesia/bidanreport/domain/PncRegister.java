@@ -19,7 +19,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "pnc_register", indexes = {
-		@Index(name = "pnc_register_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "pnc_register_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "pnc_register_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class PncRegister implements Serializable {
 
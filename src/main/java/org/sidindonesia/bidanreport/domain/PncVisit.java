@@ -17,7 +17,9 @@ import lombok.Data;
 
 @Data
 @Entity
-@Table(name = "pnc_visit", indexes = { @Index(name = "pnc_visit_event_id_IX", columnList = "event_id", unique = true) })
+@Table(name = "pnc_visit", indexes = {
+		@Index(name = "pnc_visit_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "pnc_visit_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class PncVisit implements Serializable {
 
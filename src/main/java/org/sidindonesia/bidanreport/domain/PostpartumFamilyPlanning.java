@@ -17,7 +17,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "postpartum_family_planning", indexes = {
-		@Index(name = "postpartum_family_planning_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "postpartum_family_planning_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "postpartum_family_planning_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class PostpartumFamilyPlanning implements Serializable {
 
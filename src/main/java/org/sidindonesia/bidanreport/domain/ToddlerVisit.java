@@ -18,7 +18,8 @@ import lombok.Data;
 @Data
 @Entity
 @Table(name = "toddler_visit", indexes = {
-		@Index(name = "toddler_visit_event_id_IX", columnList = "event_id", unique = true) })
+		@Index(name = "toddler_visit_event_id_IX", columnList = "event_id", unique = true),
+		@Index(name = "toddler_visit_date_created_IX", columnList = "date_created") })
 @Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE)
 public class ToddlerVisit implements Serializable {
 
@@ -2,6 +2,7 @@ package org.sidindonesia.bidanreport.integration.qontak.config;
 
 import java.time.Duration;
 
+import org.sidindonesia.bidanreport.integration.qontak.web.ratelimit.QontakRateLimiter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -21,13 +22,14 @@ public class WebClientConfig {
 	@Bean
 	public WebClient qontakWhatsAppWebClient(@Value("${qontak.base-url}") String baseUrl,
 		@Value("${qontak.response-timeout-in-ms}") Long responseTimeout,
-		@Value("${qontak.connection-timeout-in-ms}") Long connectionTimeout) {
+		@Value("${qontak.connection-timeout-in-ms}") Long connectionTimeout, QontakRateLimiter qontakRateLimiter) {
 		HttpClient httpClient = HttpClient.create().responseTimeout(Duration.ofMillis(responseTimeout)).baseUrl(baseUrl)
 			.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectionTimeout.intValue())
 			.option(ChannelOption.SO_KEEPALIVE, true).option(EpollChannelOption.TCP_KEEPIDLE, 300)
 			.option(EpollChannelOption.TCP_KEEPINTVL, 60).option(EpollChannelOption.TCP_KEEPCNT, 8);
 
-		return WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+		return WebClient.builder().clientConnector(new ReactorClientHttpConnector(httpClient))
+			.filter(qontakRateLimiter).build();
 	}
 
 	@Bean
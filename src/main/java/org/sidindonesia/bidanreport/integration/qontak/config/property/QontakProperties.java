@@ -26,6 +26,10 @@ public class QontakProperties {
 	private WhatsApp whatsApp;
 	private Long responseTimeoutInMs;
 	private Long connectionTimeoutInMs;
+	private RateLimits rateLimit = new RateLimits();
+	private RetryBudget retryBudget = new RetryBudget();
+	private Outbox outbox = new Outbox();
+	private BulkBroadcast bulkBroadcast = new BulkBroadcast();
 
 	@Data
 	public static class WhatsApp {
@@ -39,9 +43,57 @@ public class QontakProperties {
 		private String healthEducationMessageTemplateId;
 		private String channelIntegrationId;
 		private String districtHealthOfficeName;
-		private String healthEducationContactListCsvAbsoluteFileName;
-		private String introMessageContactListCsvAbsoluteFileName;
-		private String pregnancyGapContactListCsvAbsoluteFileName;
-		private String ancVisitReminderContactListCsvAbsoluteFileName;
+		private boolean introMessageBulkBroadcastEnabled;
+		private boolean pregnancyGapBulkBroadcastEnabled;
+	}
+
+	@Data
+	public static class RateLimits {
+		private RateLimit broadcastDirect = new RateLimit();
+		private RateLimit broadcastBulk = new RateLimit();
+		private RateLimit contactList = new RateLimit();
+		private RateLimit uploadFile = new RateLimit();
+	}
+
+	@Data
+	public static class RateLimit {
+		private double permitsPerSecond = 1;
+		private int burst = 1;
+	}
+
+	@Data
+	public static class RetryBudget {
+		private double ratio = 0.2;
+		private int maxTokens = 100;
+	}
+
+	@Data
+	public static class Outbox {
+		private int batchSize = 100;
+		private int maxAttempts = 5;
+		/**
+		 * Delay before the second attempt of a message, doubled on each following
+		 * attempt.
+		 */
+		private long retryDelayInMs = 300000;
+		/**
+		 * How long a batch claimed by a dispatcher is not claimed by another one,
+		 * longer than sending a batch takes, retries included.
+		 */
+		private long claimDurationInMs = 900000;
+	}
+
+	@Data
+	public static class BulkBroadcast {
+		/**
+		 * Maximum number of recipients of one contact list, bigger campaigns are
+		 * split into several contact lists and broadcasts.
+		 */
+		private int chunkSize = 5000;
+		/**
+		 * Number of chunks uploaded, awaited and broadcast at the same time.
+		 */
+		private int maxConcurrency = 2;
+		private int maxAttempts = 3;
 	}
 }
@@ -0,0 +1,59 @@
+package org.sidindonesia.bidanreport.integration.qontak.domain;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+import lombok.Data;
+
+/**
+ * One contact list of a bulk broadcast campaign split into chunks. The
+ * recipients of a chunk are the ones whose sanitized phone number is between
+ * {@link #firstRecipientKey} and {@link #lastRecipientKey}, so an unfinished
+ * chunk can be rebuilt and resumed later.
+ */
+@Data
+@Entity
+@Table(name = "bulk_broadcast_chunk", uniqueConstraints = @UniqueConstraint(name = "bulk_broadcast_chunk_campaign_key_chunk_index_UK", columnNames = {
+	"campaign_key", "chunk_index" }))
+public class BulkBroadcastChunk implements Serializable {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+	@Column(name = "campaign_key", nullable = false)
+	private String campaignKey;
+	@Column(name = "chunk_index", nullable = false)
+	private int chunkIndex;
+	@Column(name = "first_recipient_key", nullable = false)
+	private String firstRecipientKey;
+	@Column(name = "last_recipient_key", nullable = false)
+	private String lastRecipientKey;
+	@Column(name = "number_of_recipients", nullable = false)
+	private int numberOfRecipients;
+	@Column(name = "contact_list_id")
+	private String contactListId;
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", nullable = false, length = 32)
+	private Status status = Status.PENDING;
+	@Column(name = "attempts", nullable = false)
+	private int attempts;
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+
+	public enum Status {
+		PENDING, CONTACT_LIST_READY, SENT, FAILED
+	}
+}
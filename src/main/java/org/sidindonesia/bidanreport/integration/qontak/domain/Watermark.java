@@ -0,0 +1,32 @@
+package org.sidindonesia.bidanreport.integration.qontak.domain;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Data;
+
+/**
+ * Last event ID processed by a scheduler, see
+ * {@link org.sidindonesia.bidanreport.service.LastIdService}, or last value of a
+ * text column, see {@link org.sidindonesia.bidanreport.service.MotherProfileService}.
+ */
+@Data
+@Entity
+@Table(name = "watermark")
+public class Watermark implements Serializable {
+
+	@Id
+	@Column(name = "name", nullable = false, length = 64)
+	private String name;
+	@Column(name = "last_id")
+	private Long lastId;
+	@Column(name = "last_value")
+	private String lastValue;
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+}
@@ -0,0 +1,60 @@
+package org.sidindonesia.bidanreport.integration.qontak.domain;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.Data;
+
+/**
+ * A direct broadcast waiting in the outbox to be sent, or already sent.
+ */
+@Data
+@Entity
+@Table(name = "whatsapp_outbox", indexes = @Index(name = "whatsapp_outbox_status_next_attempt_at_IX", columnList = "status, next_attempt_at"))
+public class WhatsAppOutboxMessage implements Serializable {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@Column(name = "id")
+	private Long id;
+	@Column(name = "message_template_id", nullable = false, length = 36)
+	private String messageTemplateId;
+	@Column(name = "message_template_name", nullable = false)
+	private String messageTemplateName;
+	@Column(name = "to_name")
+	private String toName;
+	@Column(name = "to_number", nullable = false)
+	private String toNumber;
+	@Column(name = "request_body", nullable = false, columnDefinition = "text")
+	private String requestBody;
+	@Enumerated(EnumType.STRING)
+	@Column(name = "status", nullable = false, length = 16)
+	private Status status = Status.PENDING;
+	@Column(name = "attempts", nullable = false)
+	private int attempts;
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+	@Column(name = "next_attempt_at", nullable = false)
+	private LocalDateTime nextAttemptAt;
+	@Column(name = "sent_at")
+	private LocalDateTime sentAt;
+
+	/**
+	 * A message is {@code SENDING} from the moment a dispatcher claimed it until
+	 * its outcome is recorded. Its {@code next_attempt_at} is then the end of the
+	 * claim, after which another dispatcher may claim it again.
+	 */
+	public enum Status {
+		PENDING, SENDING, SENT, FAILED
+	}
+}
@@ -1,13 +1,8 @@
 package org.sidindonesia.bidanreport.integration.qontak.listener;
 
-import java.util.Optional;
-
-import org.sidindonesia.bidanreport.config.property.LastIdProperties;
 import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
 import org.sidindonesia.bidanreport.integration.qontak.web.request.AuthRequest;
 import org.sidindonesia.bidanreport.integration.qontak.web.response.AuthResponse;
-import org.sidindonesia.bidanreport.repository.MotherEditRepository;
-import org.sidindonesia.bidanreport.repository.MotherIdentityRepository;
 import org.sidindonesia.bidanreport.service.LastIdService;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.ApplicationListener;
@@ -25,9 +20,6 @@ public class AuthenticationListener implements ApplicationListener<ApplicationRe
 
 	private final QontakProperties qontakProperties;
 	private final WebClient webClient;
-	private final MotherIdentityRepository motherIdentityRepository;
-	private final MotherEditRepository motherEditRepository;
-	private final LastIdProperties lastIdProperties;
 	private final LastIdService lastIdService;
 
 	@Override
@@ -61,27 +53,7 @@ public class AuthenticationListener implements ApplicationListener<ApplicationRe
 	}
 
 	private void syncLastId() {
-		Optional<Long> optNewPregnantWomenLastId = motherIdentityRepository
-			.findFirstPregnantWomanByOrderByEventIdDesc();
-		if (optNewPregnantWomenLastId.isPresent()) {
-			lastIdProperties.getMotherIdentity().setPregnantMotherLastId(optNewPregnantWomenLastId.get());
-		}
-		Optional<Long> optEditedPregnantWomenLastId = motherEditRepository.findFirstPregnantWomanByOrderByEventIdDesc();
-		if (optEditedPregnantWomenLastId.isPresent()) {
-			lastIdProperties.getMotherEdit().setPregnantMotherLastId(optEditedPregnantWomenLastId.get());
-		}
-		Optional<Long> optNewNonPregnantWomenLastId = motherIdentityRepository
-			.findFirstNonPregnantWomanByOrderByEventIdDesc();
-		if (optNewNonPregnantWomenLastId.isPresent()) {
-			lastIdProperties.getMotherIdentity().setNonPregnantMotherLastId(optNewNonPregnantWomenLastId.get());
-		}
-		Optional<Long> optEditedNonPregnantWomenLastId = motherEditRepository
-			.findFirstNonPregnantWomanByOrderByEventIdDesc();
-		if (optEditedNonPregnantWomenLastId.isPresent()) {
-			lastIdProperties.getMotherEdit().setNonPregnantMotherLastId(optEditedNonPregnantWomenLastId.get());
-		}
-
-		lastIdService.syncANCVisitPregnancyGapLastId();
+		lastIdService.initLastIds();
 		log.info("Sync-ed last ID from DB successfully.");
 	}
 }
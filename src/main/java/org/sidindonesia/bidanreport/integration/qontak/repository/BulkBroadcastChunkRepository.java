@@ -0,0 +1,17 @@
+package org.sidindonesia.bidanreport.integration.qontak.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.sidindonesia.bidanreport.integration.qontak.domain.BulkBroadcastChunk;
+import org.sidindonesia.bidanreport.integration.qontak.domain.BulkBroadcastChunk.Status;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface BulkBroadcastChunkRepository extends JpaRepository<BulkBroadcastChunk, Long> {
+
+	List<BulkBroadcastChunk> findAllByCampaignKeyOrderByChunkIndex(String campaignKey);
+
+	boolean existsByCampaignKeyAndStatusIn(String campaignKey, Collection<Status> statuses);
+}
@@ -0,0 +1,23 @@
+package org.sidindonesia.bidanreport.integration.qontak.repository;
+
+import org.sidindonesia.bidanreport.integration.qontak.domain.Watermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WatermarkRepository extends JpaRepository<Watermark, String> {
+
+	@Modifying
+	@Query(nativeQuery = true, value = "INSERT INTO {h-schema}watermark (name, last_id, updated_at) "
+		+ "VALUES (?1, ?2, CURRENT_TIMESTAMP) "
+		+ "ON CONFLICT (name) DO UPDATE SET last_id = ?2, updated_at = CURRENT_TIMESTAMP")
+	int upsert(String name, long lastId);
+
+	@Modifying
+	@Query(nativeQuery = true, value = "INSERT INTO {h-schema}watermark (name, last_value, updated_at) "
+		+ "VALUES (?1, ?2, CURRENT_TIMESTAMP) "
+		+ "ON CONFLICT (name) DO UPDATE SET last_id = NULL, last_value = ?2, updated_at = CURRENT_TIMESTAMP")
+	int upsertLastValue(String name, String lastValue);
+}
@@ -0,0 +1,24 @@
+package org.sidindonesia.bidanreport.integration.qontak.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.sidindonesia.bidanreport.integration.qontak.domain.WhatsAppOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface WhatsAppOutboxRepository extends JpaRepository<WhatsAppOutboxMessage, Long> {
+
+	/**
+	 * Locks the next messages due before {@code now}, pending or claimed by a
+	 * dispatcher whose claim expired, skipping the ones already locked by another
+	 * dispatcher, until the end of the transaction.
+	 */
+	@Query(nativeQuery = true, value = "SELECT * FROM {h-schema}whatsapp_outbox wo "
+		+ "WHERE wo.status IN ('PENDING', 'SENDING') AND wo.next_attempt_at <= ?1 " + "ORDER BY wo.id LIMIT ?2 "
+		+ "FOR UPDATE SKIP LOCKED")
+	List<WhatsAppOutboxMessage> findAllDueByNextAttemptAtBeforeForUpdateSkipLocked(LocalDateTime now,
+		int batchSize);
+}
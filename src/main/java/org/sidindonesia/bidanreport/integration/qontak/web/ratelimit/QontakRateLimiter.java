@@ -0,0 +1,76 @@
+package org.sidindonesia.bidanreport.integration.qontak.web.ratelimit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
+import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties.RateLimit;
+import org.sidindonesia.bidanreport.util.RetryAfterUtil;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Spaces the calls to each Qontak endpoint to its {@code qontak.rate-limit.*}
+ * rate, shared by every scheduler using the Qontak {@code WebClient}. Waiting
+ * for a permit does not block any thread.
+ */
+@Slf4j
+@Component
+public class QontakRateLimiter implements ExchangeFilterFunction {
+	/**
+	 * Keyed by API path, more specific paths first since e.g. the broadcast
+	 * direct path starts with the broadcast path.
+	 */
+	private final Map<String, TokenBucket> tokenBuckets = new LinkedHashMap<>();
+
+	public QontakRateLimiter(QontakProperties qontakProperties) {
+		QontakProperties.RateLimits rateLimits = qontakProperties.getRateLimit();
+		tokenBuckets.put(qontakProperties.getApiPathBroadcastDirect(),
+			createTokenBucket(rateLimits.getBroadcastDirect()));
+		tokenBuckets.put(qontakProperties.getApiPathBroadcast(), createTokenBucket(rateLimits.getBroadcastBulk()));
+		TokenBucket contactListTokenBucket = createTokenBucket(rateLimits.getContactList());
+		tokenBuckets.put(qontakProperties.getApiPathContactListAsync(), contactListTokenBucket);
+		tokenBuckets.put(qontakProperties.getApiPathContactList(), contactListTokenBucket);
+		tokenBuckets.put(qontakProperties.getApiPathUploadFile(), createTokenBucket(rateLimits.getUploadFile()));
+	}
+
+	private static TokenBucket createTokenBucket(RateLimit rateLimit) {
+		return new TokenBucket(rateLimit.getPermitsPerSecond(), rateLimit.getBurst());
+	}
+
+	@Override
+	public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+		TokenBucket tokenBucket = findTokenBucket(request.url().getPath());
+		if (tokenBucket == null) {
+			return next.exchange(request);
+		}
+		return Mono.defer(() -> Mono.delay(tokenBucket.reserve())).then(Mono.defer(() -> next.exchange(request)))
+			.doOnNext(response -> {
+				if (response.rawStatusCode() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+					tokenBucket.onTooManyRequests(
+						RetryAfterUtil.parse(response.headers().asHttpHeaders().getFirst(HttpHeaders.RETRY_AFTER)));
+					log.debug("Slowed down {} to {} request(s) per second", request.url().getPath(),
+						tokenBucket.getPermitsPerSecond());
+				} else {
+					tokenBucket.onAccepted();
+				}
+			});
+	}
+
+	private TokenBucket findTokenBucket(String path) {
+		if (path == null) {
+			return null;
+		}
+		return tokenBuckets.entrySet().stream()
+			.filter(entry -> entry.getKey() != null && path.startsWith(entry.getKey())).map(Map.Entry::getValue)
+			.findFirst().orElse(null);
+	}
+}
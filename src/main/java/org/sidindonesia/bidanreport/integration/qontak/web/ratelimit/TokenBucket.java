@@ -0,0 +1,71 @@
+package org.sidindonesia.bidanreport.integration.qontak.web.ratelimit;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out permits at {@code permitsPerSecond}, letting up to {@code burst}
+ * of them go at once after an idle period. The rate is halved on every 429 and
+ * grows back by a tenth of the configured rate on every other response, so
+ * senders settle just below the quota Qontak actually grants.
+ */
+class TokenBucket {
+	private static final double MIN_RATE_FACTOR = 1.0 / 16;
+	private static final double RECOVERY_RATE_FACTOR = 0.1;
+	private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+	private final double configuredPermitsPerSecond;
+	private final int burst;
+	private final LongSupplier nanoClock;
+	private double permitsPerSecond;
+	private long theoreticalArrivalNanos;
+
+	TokenBucket(double permitsPerSecond, int burst) {
+		this(permitsPerSecond, burst, System::nanoTime);
+	}
+
+	/**
+	 * @param nanoClock current time in nanoseconds, as {@link System#nanoTime()}
+	 */
+	TokenBucket(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+		this.configuredPermitsPerSecond = permitsPerSecond;
+		this.burst = Math.max(burst, 1);
+		this.nanoClock = nanoClock;
+		this.permitsPerSecond = permitsPerSecond;
+		this.theoreticalArrivalNanos = nanoClock.getAsLong();
+	}
+
+	/**
+	 * Reserves the next permit and returns how long the caller has to wait
+	 * before using it.
+	 */
+	synchronized Duration reserve() {
+		long now = nanoClock.getAsLong();
+		long intervalNanos = intervalNanos();
+		theoreticalArrivalNanos = Math.max(theoreticalArrivalNanos, now) + intervalNanos;
+		return Duration.ofNanos(Math.max(0, theoreticalArrivalNanos - burst * intervalNanos - now));
+	}
+
+	synchronized void onTooManyRequests(Duration retryAfter) {
+		permitsPerSecond = Math.max(permitsPerSecond / 2, configuredPermitsPerSecond * MIN_RATE_FACTOR);
+		long now = nanoClock.getAsLong();
+		if (retryAfter != null) {
+			// the burst allowance must not let the next permit go before Retry-After
+			theoreticalArrivalNanos = Math.max(theoreticalArrivalNanos,
+				now + retryAfter.toNanos() + (burst - 1) * intervalNanos());
+		}
+	}
+
+	synchronized void onAccepted() {
+		permitsPerSecond = Math.min(permitsPerSecond + configuredPermitsPerSecond * RECOVERY_RATE_FACTOR,
+			configuredPermitsPerSecond);
+	}
+
+	synchronized double getPermitsPerSecond() {
+		return permitsPerSecond;
+	}
+
+	private long intervalNanos() {
+		return (long) (NANOS_PER_SECOND / permitsPerSecond);
+	}
+}
@@ -0,0 +1,124 @@
+package org.sidindonesia.bidanreport.integration.qontak.web.retry;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.sidindonesia.bidanreport.config.property.SchedulingProperties.RetrySchedule;
+import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
+import org.sidindonesia.bidanreport.util.RetryAfterUtil;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Retry policy of every Qontak API call. Idempotent calls are retried on 429,
+ * 502, 503, 504 and I/O errors. Other calls are retried only when Qontak
+ * surely did not act on them: on 429 and 503, or when the connection could not
+ * even be established, since e.g. a broadcast timing out may still have been
+ * sent. Calls are retried at most {@code max-number-of-retries} attempts in total,
+ * waiting for the Retry-After header when there is one, else for an
+ * exponential backoff from {@code initial-delay-in-ms} up to
+ * {@code delay-in-ms}. Both waits are jittered so the callers failing together
+ * do not retry together. Retries are also bound by a {@link RetryBudget}
+ * shared by all calls.
+ */
+@Slf4j
+@Component
+public class QontakRetryPolicy {
+	private static final Set<Integer> RETRYABLE_STATUS_CODES = Set.of(429, 502, 503, 504);
+	private static final Set<Integer> NOT_PROCESSED_STATUS_CODES = Set.of(429, 503);
+	private static final double RETRY_AFTER_JITTER_FACTOR = 0.1;
+
+	private final RetryBudget retryBudget;
+
+	public QontakRetryPolicy(QontakProperties qontakProperties) {
+		QontakProperties.RetryBudget retryBudgetProperties = qontakProperties.getRetryBudget();
+		this.retryBudget = new RetryBudget(retryBudgetProperties.getRatio(), retryBudgetProperties.getMaxTokens());
+	}
+
+	/**
+	 * To be applied with {@link Mono#transform} on a Qontak API call, which is
+	 * resubscribed to on every retry. When the call is given up on, its last
+	 * error is propagated as is.
+	 *
+	 * @param isIdempotent whether sending the call twice has the same effect as
+	 *                     sending it once, e.g. a GET, but not a POST creating a
+	 *                     broadcast or contact list
+	 */
+	public <T> Function<Mono<T>, Mono<T>> withRetries(String operationName, RetrySchedule retrySchedule,
+		boolean isIdempotent) {
+		Retry retry = Retry.from(retrySignals -> retrySignals.concatMap(retrySignal -> {
+			Throwable failure = retrySignal.failure();
+			if (!isRetryable(failure, isIdempotent) || retrySignal.totalRetries() + 1 >= retrySchedule.getMaxNumberOfRetries()) {
+				return Mono.<Long>error(failure);
+			}
+			if (!retryBudget.tryWithdraw()) {
+				log.warn("Retry budget exhausted, giving up {} after: {}", operationName, failure.getMessage());
+				return Mono.<Long>error(failure);
+			}
+			Duration delay = computeDelay(retrySignal.totalRetries(), failure, retrySchedule);
+			log.debug("Retrying {} in {}ms after: {}", operationName, delay.toMillis(), failure.getMessage());
+			return Mono.delay(delay);
+		}));
+		return call -> call.retryWhen(retry).doOnSubscribe(subscription -> retryBudget.deposit());
+	}
+
+	static boolean isRetryable(Throwable failure, boolean isIdempotent) {
+		if (failure instanceof WebClientResponseException) {
+			int statusCode = ((WebClientResponseException) failure).getRawStatusCode();
+			return isIdempotent ? RETRYABLE_STATUS_CODES.contains(statusCode)
+				: NOT_PROCESSED_STATUS_CODES.contains(statusCode);
+		}
+		if (!isIdempotent) {
+			return isConnectFailure(failure);
+		}
+		return failure instanceof WebClientRequestException || failure instanceof IOException
+			|| failure instanceof TimeoutException;
+	}
+
+	/**
+	 * Whether the request failed before it could be sent, as the connection to
+	 * Qontak could not be established.
+	 */
+	private static boolean isConnectFailure(Throwable failure) {
+		for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ConnectException || cause instanceof UnknownHostException
+				|| cause instanceof NoRouteToHostException) {
+				return true;
+			}
+			if (cause.getCause() == cause) {
+				break;
+			}
+		}
+		return false;
+	}
+
+	private static Duration computeDelay(long retryNumber, Throwable failure, RetrySchedule retrySchedule) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (failure instanceof WebClientResponseException) {
+			Duration retryAfter = RetryAfterUtil
+				.parse(((WebClientResponseException) failure).getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+			if (retryAfter != null) {
+				long retryAfterInMs = retryAfter.toMillis();
+				return Duration
+					.ofMillis(retryAfterInMs + random.nextLong((long) (retryAfterInMs * RETRY_AFTER_JITTER_FACTOR) + 1));
+			}
+		}
+		long backoffInMs = Math.min(retrySchedule.getDelayInMs(),
+			retrySchedule.getInitialDelayInMs() << Math.min(retryNumber, 30));
+		// "equal jitter": half of the backoff is kept, the other half is random
+		return Duration.ofMillis(backoffInMs / 2 + random.nextLong(backoffInMs / 2 + 1));
+	}
+}
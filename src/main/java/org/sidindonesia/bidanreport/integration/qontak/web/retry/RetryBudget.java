@@ -0,0 +1,30 @@
+package org.sidindonesia.bidanreport.integration.qontak.web.retry;
+
+/**
+ * Every call deposits {@code ratio} of a token and every retry withdraws a
+ * whole one, so retries stay below that share of the calls once the initial
+ * {@code maxTokens} are spent, e.g. during an outage of Qontak.
+ */
+class RetryBudget {
+	private final double ratio;
+	private final double maxTokens;
+	private double tokens;
+
+	RetryBudget(double ratio, int maxTokens) {
+		this.ratio = ratio;
+		this.maxTokens = maxTokens;
+		this.tokens = maxTokens;
+	}
+
+	synchronized void deposit() {
+		tokens = Math.min(maxTokens, tokens + ratio);
+	}
+
+	synchronized boolean tryWithdraw() {
+		if (tokens < 1) {
+			return false;
+		}
+		tokens--;
+		return true;
+	}
+}
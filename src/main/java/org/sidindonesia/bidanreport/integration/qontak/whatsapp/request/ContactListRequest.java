@@ -1,6 +1,6 @@
 package org.sidindonesia.bidanreport.integration.qontak.whatsapp.request;
 
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 
 import lombok.Data;
 
@@ -8,5 +8,5 @@ import lombok.Data;
 public class ContactListRequest {
 	private String name;
 	private String source_type = "spreadsheet"; // Possible values are: spreadsheet, crm_static, crm_dynamic
-	private FileSystemResource file;
+	private Resource file;
 }
@@ -22,9 +22,4 @@ public class BroadcastDirectResponse {
 		private Integer code;
 		private List<Object> messages;
 	}
-
-	public BroadcastDirectResponse withStatus(int rawStatusCode) {
-		this.status = String.valueOf(rawStatusCode);
-		return this;
-	}
 }
\ No newline at end of file
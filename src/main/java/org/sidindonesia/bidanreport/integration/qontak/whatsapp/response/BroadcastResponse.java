@@ -32,9 +32,4 @@ public class BroadcastResponse {
 		private Integer code;
 		private List<Object> messages;
 	}
-
-	public BroadcastResponse withStatus(int rawStatusCode) {
-		this.status = String.valueOf(rawStatusCode);
-		return this;
-	}
 }
\ No newline at end of file
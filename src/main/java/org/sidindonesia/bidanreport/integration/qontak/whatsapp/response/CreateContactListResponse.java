@@ -24,9 +24,4 @@ public class CreateContactListResponse {
 		private Integer code;
 		private List<Object> messages;
 	}
-
-	public CreateContactListResponse withStatus(int rawStatusCode) {
-		this.status = String.valueOf(rawStatusCode);
-		return this;
-	}
 }
\ No newline at end of file
@@ -1,9 +1,20 @@
 package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service;
 
+import static java.util.stream.Collectors.toList;
+
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
 
 import org.hl7.fhir.r4.model.BooleanType;
 import org.hl7.fhir.r4.model.Bundle;
@@ -24,6 +35,7 @@ import org.hl7.fhir.r4.model.Quantity;
 import org.hl7.fhir.r4.model.Reference;
 import org.hl7.fhir.r4.model.StringType;
 import org.hl7.fhir.r4.model.Type;
+import org.sidindonesia.bidanreport.config.property.QRCodeProperties;
 import org.sidindonesia.bidanreport.integration.qontak.constant.Constants;
 import org.sidindonesia.bidanreport.integration.qontak.web.response.FileUploadResponse;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.ParametersWithHeader;
@@ -35,9 +47,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import ca.uhn.fhir.context.FhirContext;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
@@ -52,25 +69,101 @@ public class FhirResourceService {
 	private static final String HTTP_LOINC_ORG = "http://loinc.org";
 	private final QRCodeService qrCodeService;
 	private final FhirContext fhirContext;
+	private final QRCodeProperties qrCodeProperties;
 	@Autowired
 	@Qualifier("webClientHapiFhirServer")
 	private WebClient webClientHapiFhirServer;
 	@Value("${hapi-fhir-server.base-url}")
 	private String hapiFhirBaseUrl;
+	@Value("${hapi-fhir-server.transaction-batch-size:50}")
+	private int transactionBatchSize;
+	private AsyncCache<String, QRCodeHeaderImage> qrCodeHeaderImageCache;
+
+	@PostConstruct
+	void initQRCodeHeaderImageCache() {
+		qrCodeHeaderImageCache = Caffeine.newBuilder().maximumSize(qrCodeProperties.getCache().getMaximumSize())
+		    .expireAfterWrite(Duration.ofMillis(qrCodeProperties.getCache().getExpireAfterWriteInMs())).buildAsync();
+	}
 
+	/**
+	 * The FHIR resources and the uploaded QR code are reused for as long as
+	 * {@code qr-code.cache.expire-after-write-in-ms} while the latest ANC visit
+	 * values of the mother stay the same. They are created once per mother even
+	 * when her reminders are sent concurrently: the first caller creates them on
+	 * its own thread while the others wait for its result, outside of the cache
+	 * lock.
+	 * <p>
+	 * Dormant: only reached from the direct broadcast of
+	 * {@link VisitReminderService}, unused since the reminders are sent as bulk
+	 * broadcasts, whose contact lists cannot carry a header image per mother.
+	 */
 	public void fillHeaderWithQRCodeImage(AncVisitReminderProjection motherIdentity, List<String> values,
 	    ParametersWithHeader parameters) {
+		String cacheKey = cacheKeyOf(motherIdentity, values);
+		CompletableFuture<QRCodeHeaderImage> createdHeaderImage = new CompletableFuture<>();
+		AtomicReference<QRCodeHeaderImage> postedHeaderImage = new AtomicReference<>();
+		// only swaps futures under the lock, the FHIR post and the upload run after
+		CompletableFuture<QRCodeHeaderImage> headerImageFuture = qrCodeHeaderImageCache.asMap().compute(cacheKey,
+		    (key, cachedHeaderImage) -> {
+			    if (isUploadedOrBeingCreated(cachedHeaderImage)) {
+				    return cachedHeaderImage;
+			    }
+			    postedHeaderImage.set(valueOf(cachedHeaderImage));
+			    return createdHeaderImage;
+		    });
+		if (headerImageFuture == createdHeaderImage) {
+			// a null or failed result is removed from the cache, to be created again
+			try {
+				createdHeaderImage
+				    .complete(createQRCodeHeaderImage(motherIdentity, values, postedHeaderImage.get()));
+			} catch (RuntimeException | Error e) {
+				createdHeaderImage.completeExceptionally(e);
+				throw e;
+			}
+		}
+		QRCodeHeaderImage headerImage = headerImageFuture.exceptionally(e -> null).join();
+		if (headerImage != null && headerImage.getFileUrl() != null) {
+			addQRCodeHeaderParams(parameters, headerImage.getFileUrl());
+		}
+	}
+
+	private static boolean isUploadedOrBeingCreated(CompletableFuture<QRCodeHeaderImage> headerImageFuture) {
+		if (headerImageFuture == null) {
+			return false;
+		}
+		if (!headerImageFuture.isDone()) {
+			return true;
+		}
+		QRCodeHeaderImage headerImage = valueOf(headerImageFuture);
+		return headerImage != null && headerImage.getFileUrl() != null;
+	}
+
+	private static QRCodeHeaderImage valueOf(CompletableFuture<QRCodeHeaderImage> headerImageFuture) {
+		return headerImageFuture != null && headerImageFuture.isDone()
+		    && !headerImageFuture.isCompletedExceptionally() ? headerImageFuture.join() : null;
+	}
 
-		// URL FHIR Resource "Patient" operation `$everything`
-		String urlPatientOperationEverything = postTransactionBundleToFHIRServerThenReturnURLPatientOperationEverything(
-		    motherIdentity, values);
+	/**
+	 * @return {@code null} when the FHIR resources could not be posted, nothing is
+	 *         cached then
+	 */
+	private QRCodeHeaderImage createQRCodeHeaderImage(AncVisitReminderProjection motherIdentity, List<String> values,
+	    QRCodeHeaderImage cachedHeaderImage) {
+		// URL FHIR Resource "Patient" operation `$everything`, only posted again
+		// when not cached, so the same patient is not created twice
+		String urlPatientOperationEverything = cachedHeaderImage != null
+		    ? cachedHeaderImage.getUrlPatientOperationEverything()
+		    : postTransactionBundleToFHIRServerThenReturnURLPatientOperationEverything(motherIdentity, values);
+		if (urlPatientOperationEverything == null) {
+			return null;
+		}
 
 		FileUploadResponse responseBody = qrCodeService
 		    .createQRCodeImageThenUploadToQontak(urlPatientOperationEverything);
+		String fileUrl = null;
 		if (responseBody != null) {
 			if (Constants.SUCCESS.equals(responseBody.getStatus())) {
-				parameters.getHeader().addHeaderParam("url", responseBody.getData().getUrl());
-				parameters.getHeader().addHeaderParam("filename", QR_CODE_GAP_CARE_PNG);
+				fileUrl = responseBody.getData().getUrl();
 			} else {
 				log.error(
 				    "Upload QR Code Gap Care PNG file failed for: {}, at phone number: {}, with error details: {}",
@@ -80,36 +173,122 @@ public class FhirResourceService {
 			log.error("Upload QR Code Gap Care PNG file failed with no content for: {}, at phone number: {}",
 			    motherIdentity.getFullName(), motherIdentity.getMobilePhoneNumber());
 		}
+		return new QRCodeHeaderImage(urlPatientOperationEverything, fileUrl);
+	}
+
+	private static void addQRCodeHeaderParams(ParametersWithHeader parameters, String fileUrl) {
+		parameters.getHeader().addHeaderParam("url", fileUrl);
+		parameters.getHeader().addHeaderParam("filename", QR_CODE_GAP_CARE_PNG);
 	}
 
 	public String postTransactionBundleToFHIRServerThenReturnURLPatientOperationEverything(
 	    AncVisitReminderProjection motherIdentity, List<String> values) {
+		Bundle bundle = new Bundle().setType(BundleType.TRANSACTION);
+		addPatientAndObservationEntries(bundle, motherIdentity, values);
+
+		BundleTransactionResponse transactionResponseBundle = postTransactionBundle(bundle).block();
+		if (transactionResponseBundle == null) {
+			return null;
+		} else {
+			return toURLPatientOperationEverything(transactionResponseBundle.getEntryFirstRep());
+		}
+	}
 
+	/**
+	 * Posts the FHIR resources of the mothers not cached yet in transaction
+	 * bundles of at most {@code hapi-fhir-server.transaction-batch-size} mothers
+	 * each, instead of one transaction per mother, then caches the URL of every
+	 * created patient for {@link #fillHeaderWithQRCodeImage}. Mothers left out of
+	 * a failed bundle are posted one by one by {@link #fillHeaderWithQRCodeImage}
+	 * as before. Dormant as well, see {@link #fillHeaderWithQRCodeImage}.
+	 */
+	public void postTransactionBundlesToFHIRServerInBatches(List<AncVisitReminderProjection> motherIdentities) {
+		List<AncVisitReminderProjection> notCachedMotherIdentities = motherIdentities.stream()
+		    .filter(motherIdentity -> qrCodeHeaderImageCache
+		        .getIfPresent(cacheKeyOf(motherIdentity, splitPregnancyGapValues(motherIdentity))) == null)
+		    .collect(toList());
+		for (int from = 0; from < notCachedMotherIdentities.size(); from += transactionBatchSize) {
+			postTransactionBundleOf(notCachedMotherIdentities.subList(from,
+			    Math.min(from + transactionBatchSize, notCachedMotherIdentities.size())));
+		}
+	}
+
+	private void postTransactionBundleOf(List<AncVisitReminderProjection> motherIdentities) {
+		Bundle bundle = new Bundle().setType(BundleType.TRANSACTION);
+		// the response entries are in the same order as the request entries
+		Map<String, Integer> patientEntryIndexes = new LinkedHashMap<>();
+		for (AncVisitReminderProjection motherIdentity : motherIdentities) {
+			List<String> values = splitPregnancyGapValues(motherIdentity);
+			String cacheKey = cacheKeyOf(motherIdentity, values);
+			if (patientEntryIndexes.containsKey(cacheKey)) {
+				continue;
+			}
+			Bundle motherBundle = new Bundle();
+			try {
+				addPatientAndObservationEntries(motherBundle, motherIdentity, values);
+			} catch (RuntimeException e) {
+				// malformed values must not fail the whole bundle
+				log.warn("FHIR resources of: {}, at phone number: {}, are left out of the batch: {}",
+				    motherIdentity.getFullName(), motherIdentity.getMobilePhoneNumber(), e.getMessage());
+				continue;
+			}
+			patientEntryIndexes.put(cacheKey, bundle.getEntry().size());
+			bundle.getEntry().addAll(motherBundle.getEntry());
+		}
+		if (patientEntryIndexes.isEmpty()) {
+			return;
+		}
+
+		BundleTransactionResponse transactionResponseBundle = postTransactionBundle(bundle).onErrorResume(e -> {
+			log.error("Post FHIR transaction bundle of {} mother(s) failed, to be posted one by one: {}",
+			    patientEntryIndexes.size(), e.getMessage());
+			return Mono.empty();
+		}).block();
+		if (transactionResponseBundle != null) {
+			// never replaces a QR code uploaded in the meantime
+			patientEntryIndexes.forEach((cacheKey, patientEntryIndex) -> qrCodeHeaderImageCache.asMap()
+			    .putIfAbsent(cacheKey, CompletableFuture.completedFuture(new QRCodeHeaderImage(
+			        toURLPatientOperationEverything(transactionResponseBundle.getEntry().get(patientEntryIndex)),
+			        null))));
+			log.debug("FHIR resources of {} mother(s) have been posted in one transaction bundle",
+			    patientEntryIndexes.size());
+		}
+	}
+
+	private Mono<BundleTransactionResponse> postTransactionBundle(Bundle bundle) {
+		String encodedJSON = fhirContext.newJsonParser().encodeResourceToString(bundle);
+		return webClientHapiFhirServer.post().bodyValue(encodedJSON).retrieve()
+		    .bodyToMono(BundleTransactionResponse.class);
+	}
+
+	private String toURLPatientOperationEverything(BundleTransactionResponse.EntryComponent patientEntry) {
+		String location = patientEntry.getResponse().getLocation();
+		return hapiFhirBaseUrl + "/" + location.substring(0, 1 + location.indexOf("/", 1 + location.indexOf("/")))
+		    + "$everything";
+	}
+
+	public static List<String> splitPregnancyGapValues(AncVisitReminderProjection motherIdentity) {
+		return Stream.of(motherIdentity.getPregnancyGapCommaSeparatedValues().split(",")).map(String::trim)
+		    .collect(toList());
+	}
+
+	private static String cacheKeyOf(AncVisitReminderProjection motherIdentity, List<String> values) {
+		return motherIdentity.getMotherBaseEntityId() + ":"
+		    + DigestUtils.md5DigestAsHex(String.join(",", values).getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void addPatientAndObservationEntries(Bundle bundle, AncVisitReminderProjection motherIdentity,
+	    List<String> values) {
 		Patient patient = createPatientResource(motherIdentity);
 
 		String patientUUID = "urn:uuid:" + UUID.randomUUID();
-		Bundle bundle = new Bundle().setType(BundleType.TRANSACTION)
-		    .addEntry(new BundleEntryComponent().setResource(patient).setFullUrl(patientUUID)
-		        .setRequest(new BundleEntryRequestComponent().setMethod(HTTPVerb.POST)
-		            .setUrl(patient.getResourceType().toString())));
+		bundle.addEntry(new BundleEntryComponent().setResource(patient).setFullUrl(patientUUID).setRequest(
+		    new BundleEntryRequestComponent().setMethod(HTTPVerb.POST).setUrl(patient.getResourceType().toString())));
 		Reference referencePatient = new Reference().setReference(patientUUID);
 		Type ancEffectiveDateTime = new DateTimeType()
 		    .setValue(Date.valueOf(values.get(0).equalsIgnoreCase("N/A") ? LocalDate.EPOCH.toString() : values.get(0)));
 
 		fillBundleWithObservationResources(values, bundle, referencePatient, ancEffectiveDateTime);
-
-		String encodedJSON = fhirContext.newJsonParser().encodeResourceToString(bundle);
-		Mono<BundleTransactionResponse> response = webClientHapiFhirServer.post().bodyValue(encodedJSON).retrieve()
-		    .bodyToMono(BundleTransactionResponse.class);
-
-		BundleTransactionResponse transactionResponseBundle = response.block();
-		if (transactionResponseBundle == null) {
-			return null;
-		} else {
-			String location = transactionResponseBundle.getEntryFirstRep().getResponse().getLocation();
-			return hapiFhirBaseUrl + "/" + location.substring(0, 1 + location.indexOf("/", 1 + location.indexOf("/")))
-			    + "$everything";
-		}
 	}
 
 	private Patient createPatientResource(AncVisitReminderProjection motherIdentity) {
@@ -300,4 +479,14 @@ public class FhirResourceService {
 		observation.setValue(value);
 		return observation;
 	}
+
+	/**
+	 * The file URL is {@code null} when only the FHIR resources were posted.
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	private static class QRCodeHeaderImage {
+		private final String urlPatientOperationEverything;
+		private final String fileUrl;
+	}
 }
\ No newline at end of file
@@ -1,23 +1,25 @@
 package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service;
 
 import static java.util.stream.Collectors.toList;
-import static org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.ContactListUtil.createContactListRequest;
 import static org.sidindonesia.bidanreport.util.CSVUtil.CALC_GESTATIONAL;
 import static org.sidindonesia.bidanreport.util.CSVUtil.FULL_NAME;
 import static org.sidindonesia.bidanreport.util.CSVUtil.PREGNA_TRIMESTER;
 
-import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.List;
 
+import org.sidindonesia.bidanreport.config.property.SchedulingProperties;
 import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.BroadcastRequest;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.Parameters;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.BroadcastMessageService;
-import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.ContactListService;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.BulkBroadcastService;
 import org.sidindonesia.bidanreport.repository.MotherEditRepository;
 import org.sidindonesia.bidanreport.repository.MotherIdentityRepository;
 import org.sidindonesia.bidanreport.repository.projection.HealthEducationProjection;
+import org.sidindonesia.bidanreport.service.MotherProfileService;
 import org.sidindonesia.bidanreport.util.CSVUtil;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -25,99 +27,101 @@ import org.springframework.transaction.annotation.Transactional;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
 
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
 @Service
 public class HealthEducationService {
+	private static final String MESSAGE_TEMPLATE_NAME = "health_education";
 	private final QontakProperties qontakProperties;
+	private final SchedulingProperties schedulingProperties;
 	private final MotherIdentityRepository motherIdentityRepository;
 	private final MotherEditRepository motherEditRepository;
 	private final BroadcastMessageService broadcastMessageService;
-	private final ContactListService contactListService;
+	private final BulkBroadcastService bulkBroadcastService;
+	private final MotherProfileService motherProfileService;
 
 	@Scheduled(cron = "${scheduling.health-education.cron}", zone = "${scheduling.health-education.zone}")
-	public void sendHealthEducationsToEnrolledMothers() throws IOException, InterruptedException {
+	public void sendHealthEducationsToEnrolledMothers() {
 		log.debug("Executing scheduled \"Send Health Education via WhatsApp\"...");
 		log.debug("Send scheduled health education messages to all pregnant mothers "
 			+ "with current_date between last_menstrual_period_date and expected_delivery_date "
 			+ "and not recorded in `anc_close` within that period.");
-		processRowsFromMotherIdentity();
-		processRowsFromMotherEdit();
+		motherProfileService.refreshMotherProfiles();
+		// both campaigns are uploaded and awaited at the same time
+		Mono.zip(processRowsFromMotherIdentity(), processRowsFromMotherEdit()).block();
 	}
 
-	private void processRowsFromMotherIdentity() throws IOException, InterruptedException {
+	/**
+	 * Sends the chunks of today's campaigns left unsent by
+	 * {@link #sendHealthEducationsToEnrolledMothers()}, if any.
+	 */
+	@Scheduled(fixedRateString = "${scheduling.bulk-broadcast-resume.fixed-rate-in-ms}", initialDelayString = "${scheduling.bulk-broadcast-resume.initial-delay-in-ms}")
+	public void resumeUnfinishedHealthEducations() {
+		boolean isMotherIdentityUnfinished = bulkBroadcastService.hasUnfinishedChunks(campaignKeyOf("mother_identity"));
+		boolean isMotherEditUnfinished = bulkBroadcastService.hasUnfinishedChunks(campaignKeyOf("mother_edit"));
+		if (isMotherIdentityUnfinished || isMotherEditUnfinished) {
+			log.info("Resuming unfinished \"Send Health Education via WhatsApp\"...");
+			motherProfileService.refreshMotherProfiles();
+			Mono.zip(isMotherIdentityUnfinished ? processRowsFromMotherIdentity() : Mono.just(true),
+				isMotherEditUnfinished ? processRowsFromMotherEdit() : Mono.just(true)).block();
+		}
+	}
+
+	private Mono<Boolean> processRowsFromMotherIdentity() {
 		List<HealthEducationProjection> allPregnantWomenToBeGivenHealthEducationMessage = motherIdentityRepository
 			.findAllPregnantWomenToBeGivenEducationOfTheirHealth();
 
-		broadcastHealthEducationMessageTo(allPregnantWomenToBeGivenHealthEducationMessage, "mother_identity");
+		return broadcastHealthEducationMessageTo(allPregnantWomenToBeGivenHealthEducationMessage, "mother_identity");
 	}
 
-	private void processRowsFromMotherEdit() throws IOException, InterruptedException {
+	private Mono<Boolean> processRowsFromMotherEdit() {
 		List<HealthEducationProjection> allPregnantWomenToBeGivenHealthEducationMessage = motherEditRepository
 			.findAllPregnantWomenToBeGivenEducationOfTheirHealth();
 
-		broadcastHealthEducationMessageTo(allPregnantWomenToBeGivenHealthEducationMessage, "mother_edit");
+		return broadcastHealthEducationMessageTo(allPregnantWomenToBeGivenHealthEducationMessage, "mother_edit");
+	}
+
+	private String campaignKeyOf(String fromTable) {
+		return BulkBroadcastService.campaignKeyOf(MESSAGE_TEMPLATE_NAME, fromTable,
+			LocalDate.now(ZoneId.of(schedulingProperties.getHealthEducation().getZone())));
 	}
 
-	private void broadcastHealthEducationMessageTo(
-		List<HealthEducationProjection> allPregnantWomenToBeGivenHealthEducationMessage, String fromTable)
-		throws IOException, InterruptedException {
+	private Mono<Boolean> broadcastHealthEducationMessageTo(
+		List<HealthEducationProjection> allPregnantWomenToBeGivenHealthEducationMessage, String fromTable) {
 
 		List<HealthEducationProjection> filteredPregnantWomen = allPregnantWomenToBeGivenHealthEducationMessage
 			.parallelStream()
 			.filter(healthEducationProjection -> healthEducationProjection.getCalculatedGestationalAge() != null
 				&& healthEducationProjection.getPregnancyTrimester() != null)
 			.collect(toList());
-		if (!filteredPregnantWomen.isEmpty()) {
-
-			// Create contact list CSV
-			String contactsCsvFileName = qontakProperties.getWhatsApp()
-				.getHealthEducationContactListCsvAbsoluteFileName().replace(".csv", "_" + fromTable + ".csv");
-			CSVUtil.createContactListCSVFileForHealthEducation(filteredPregnantWomen, contactsCsvFileName);
-
-			String campaignName = ZonedDateTime.now() + " "
-				+ qontakProperties.getWhatsApp().getDistrictHealthOfficeName() + ", " + fromTable
-				+ " (Health Education)";
-			// Hit API post contact list, get contact_list_id
-			String contactListId = contactListService
-				.sendCreateContactListRequestToQontakAPI(createContactListRequest(campaignName, contactsCsvFileName));
-
-			if (contactListId != null) {
-
-				if (contactListService.tryRetrieveContactListByIdMultipleTimes(contactListId)) {
-					broadcastBulk(fromTable, filteredPregnantWomen, campaignName, contactListId);
-				}
-
-			} else {
-				log.error(
-					"\"Send Health Education via WhatsApp\" for enrolled pregnant women failed due to error when POST contact list. ("
-						+ fromTable + ")");
-			}
+		if (filteredPregnantWomen.isEmpty()) {
+			return Mono.just(true);
 		}
-	}
-
-	private void broadcastBulk(String fromTable, List<HealthEducationProjection> filteredPregnantWomen,
-		String campaignName, String contactListId) throws InterruptedException {
-		// Broadcast to contact_list
-		boolean isSuccess = broadcastBulkMessageViaWhatsApp(
-			qontakProperties.getWhatsApp().getHealthEducationMessageTemplateId(), contactListId, campaignName);
-
-		log.info("\"Send Health Education via WhatsApp\" for enrolled pregnant women completed. (" + fromTable + ")");
 
-		if (isSuccess) {
-			log.info(
-				"{} enrolled pregnant women have been given health education via WhatsApp successfully as bulk broadcast request.",
-				filteredPregnantWomen.size());
-		}
-	}
-
-	private boolean broadcastBulkMessageViaWhatsApp(String messageTemplateId, String contactListId, String campaignName)
-		throws InterruptedException {
-		BroadcastRequest requestBody = createHealthEducationMessageRequestBody(messageTemplateId, contactListId,
-			campaignName);
-		return broadcastMessageService.sendBroadcastRequestToQontakAPI(requestBody);
+		String campaignName = ZonedDateTime.now() + " " + qontakProperties.getWhatsApp().getDistrictHealthOfficeName()
+			+ ", " + fromTable + " (Health Education)";
+		String messageTemplateId = qontakProperties.getWhatsApp().getHealthEducationMessageTemplateId();
+		// Create a contact list CSV per chunk, hit API post contact list, wait until
+		// Qontak has processed it, then broadcast to it
+		return bulkBroadcastService
+			.broadcastInChunks(campaignKeyOf(fromTable), campaignName, filteredPregnantWomen,
+				chunk -> CSVUtil.createContactListCSVForHealthEducation(chunk,
+					"contacts_health-education_" + fromTable + ".csv"),
+				(chunkCampaignName, contactListId) -> createHealthEducationMessageRequestBody(messageTemplateId,
+					contactListId, chunkCampaignName))
+			.doOnNext(isSuccess -> {
+				log.info("\"Send Health Education via WhatsApp\" for enrolled pregnant women completed. (" + fromTable
+					+ ")");
+
+				if (isSuccess) {
+					log.info(
+						"{} enrolled pregnant women have been given health education via WhatsApp successfully as bulk broadcast request.",
+						filteredPregnantWomen.size());
+				}
+			});
 	}
 
 	private BroadcastRequest createHealthEducationMessageRequestBody(String messageTemplateId, String contactListId,
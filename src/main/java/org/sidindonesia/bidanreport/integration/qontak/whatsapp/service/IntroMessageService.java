@@ -1,101 +1,168 @@
 package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service;
 
+import static java.util.stream.Collectors.toList;
+import static org.sidindonesia.bidanreport.util.CSVUtil.DHO;
+import static org.sidindonesia.bidanreport.util.CSVUtil.FULL_NAME;
+
+import java.time.ZonedDateTime;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Consumer;
 
 import org.sidindonesia.bidanreport.config.property.LastIdProperties;
 import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
 import org.sidindonesia.bidanreport.integration.qontak.repository.AutomatedMessageStatsRepository;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.BroadcastDirectRequest;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.BroadcastRequest;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.Parameters;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.BroadcastMessageService;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.BulkBroadcastService;
 import org.sidindonesia.bidanreport.repository.MotherEditRepository;
 import org.sidindonesia.bidanreport.repository.MotherIdentityRepository;
 import org.sidindonesia.bidanreport.repository.projection.MotherIdentityWhatsAppProjection;
+import org.sidindonesia.bidanreport.service.LastIdService;
+import org.sidindonesia.bidanreport.service.MotherProfileService;
+import org.sidindonesia.bidanreport.util.CSVUtil;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Not transactional, so a bulk broadcast is awaited without holding a
+ * connection: the messages queued, or the campaign sent, are committed together
+ * with the last ID moved past them.
+ */
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 @Service
 public class IntroMessageService {
+	private static final String MESSAGE_TEMPLATE_NAME = "intro_pregnant_woman";
 	private final MotherIdentityRepository motherIdentityRepository;
 	private final MotherEditRepository motherEditRepository;
 	private final LastIdProperties lastIdProperties;
+	private final LastIdService lastIdService;
 	private final QontakProperties qontakProperties;
 	private final BroadcastMessageService broadcastMessageService;
+	private final WhatsAppOutboxService whatsAppOutboxService;
+	private final BulkBroadcastService bulkBroadcastService;
 	private final AutomatedMessageStatsRepository automatedMessageStatsRepository;
+	private final MotherProfileService motherProfileService;
+	private final PlatformTransactionManager transactionManager;
 
 	@Scheduled(fixedRateString = "${scheduling.intro-message.fixed-rate-in-ms}", initialDelayString = "${scheduling.intro-message.initial-delay-in-ms}")
 	public void sendIntroMessageToNewMothersViaWhatsApp() {
 		log.debug("Executing scheduled \"Send Join Notification via WhatsApp\"...");
 
+		lastIdService.loadLastIds();
+		motherProfileService.refreshMotherProfiles();
 		processNewPregnantWomen();
 		processEditedPregnantWomen();
 	}
 
 	private void processNewPregnantWomen() {
+		long lastId = lastIdProperties.getMotherIdentity().getPregnantMotherLastId();
 		List<MotherIdentityWhatsAppProjection> newPregnantWomenIdentities = motherIdentityRepository
-			.findAllPregnantWomenByEventIdGreaterThanAndHasMobilePhoneNumberOrderByEventId(
-				lastIdProperties.getMotherIdentity().getPregnantMotherLastId());
-
-		AtomicLong newEnrolledPregnantWomenSuccessCount = new AtomicLong();
-		newPregnantWomenIdentities.parallelStream().forEach(broadcastIntroMessageViaWhatsApp(
-			newEnrolledPregnantWomenSuccessCount, qontakProperties.getWhatsApp().getPregnantWomanMessageTemplateId()));
+			.findAllPregnantWomenByEventIdGreaterThanAndHasMobilePhoneNumberOrderByEventId(lastId);
 
-		if (!newPregnantWomenIdentities.isEmpty()) {
-			lastIdProperties.getMotherIdentity().setPregnantMotherLastId(
-				newPregnantWomenIdentities.get(newPregnantWomenIdentities.size() - 1).getEventId());
+		if (!newPregnantWomenIdentities.isEmpty() && sendIntroMessages(newPregnantWomenIdentities, "mother_identity",
+			lastId, () -> lastIdService.updateMotherIdentityPregnantMotherLastId(
+				newPregnantWomenIdentities.get(newPregnantWomenIdentities.size() - 1).getEventId()))) {
 			log.info("\"Send Join Notification via WhatsApp\" for new enrolled pregnant women completed.");
-			log.info("{} out of {} new enrolled pregnant women have been notified via WhatsApp successfully.",
-				newEnrolledPregnantWomenSuccessCount, newPregnantWomenIdentities.size());
-
-			automatedMessageStatsRepository.upsert(qontakProperties.getWhatsApp().getPregnantWomanMessageTemplateId(),
-				"intro_pregnant_woman", newEnrolledPregnantWomenSuccessCount.get(),
-				newPregnantWomenIdentities.size() - newEnrolledPregnantWomenSuccessCount.get());
 		}
 	}
 
 	private void processEditedPregnantWomen() {
+		long lastId = lastIdProperties.getMotherEdit().getPregnantMotherLastId();
 		List<MotherIdentityWhatsAppProjection> editedPregnantWomenIds = motherEditRepository
-			.findAllPregnantWomenByLastEditAndPreviouslyInMotherIdentityNoMobilePhoneNumberOrderByEventId(
-				lastIdProperties.getMotherEdit().getPregnantMotherLastId());
-
-		AtomicLong editedPregnantWomenSuccessCount = new AtomicLong();
-		editedPregnantWomenIds.parallelStream().forEach(broadcastIntroMessageViaWhatsApp(
-			editedPregnantWomenSuccessCount, qontakProperties.getWhatsApp().getPregnantWomanMessageTemplateId()));
+			.findAllPregnantWomenByLastEditAndPreviouslyInMotherIdentityNoMobilePhoneNumberOrderByEventId(lastId);
 
-		if (!editedPregnantWomenIds.isEmpty()) {
-			lastIdProperties.getMotherEdit()
-				.setPregnantMotherLastId(editedPregnantWomenIds.get(editedPregnantWomenIds.size() - 1).getEventId());
+		if (!editedPregnantWomenIds.isEmpty() && sendIntroMessages(editedPregnantWomenIds, "mother_edit", lastId,
+			() -> lastIdService.updateMotherEditPregnantMotherLastId(
+				editedPregnantWomenIds.get(editedPregnantWomenIds.size() - 1).getEventId()))) {
 			log.info("\"Send Join Notification via WhatsApp\" for edited pregnant women completed.");
-			log.info("{} out of {} edited pregnant women have been notified via WhatsApp successfully.",
-				editedPregnantWomenSuccessCount, editedPregnantWomenIds.size());
+		}
+	}
+
+	/**
+	 * Queues one direct broadcast per mother, or when
+	 * {@code qontak.whats-app.intro-message-bulk-broadcast-enabled} broadcasts to
+	 * contact lists of all of them, which costs the same few API calls however
+	 * many mothers there are, then moves the last ID past these mothers.
+	 *
+	 * @return whether the last ID has been moved
+	 */
+	private boolean sendIntroMessages(List<MotherIdentityWhatsAppProjection> motherIdentities, String fromTable,
+		long lastId, Runnable moveLastIdPastTheseMothers) {
+		String messageTemplateId = qontakProperties.getWhatsApp().getPregnantWomanMessageTemplateId();
+		if (qontakProperties.getWhatsApp().isIntroMessageBulkBroadcastEnabled()) {
+			return broadcastBulkIntroMessage(motherIdentities, messageTemplateId, fromTable, lastId,
+				moveLastIdPastTheseMothers);
+		}
+		inTransaction(() -> {
+			enqueueIntroMessages(motherIdentities, messageTemplateId);
+			moveLastIdPastTheseMothers.run();
+		});
+		log.info("{} intro message(s) have been queued. ({})", motherIdentities.size(), fromTable);
+		return true;
+	}
 
-			automatedMessageStatsRepository.upsert(qontakProperties.getWhatsApp().getPregnantWomanMessageTemplateId(),
-				"intro_pregnant_woman", editedPregnantWomenSuccessCount.get(),
-				editedPregnantWomenIds.size() - editedPregnantWomenSuccessCount.get());
+	/**
+	 * The campaign is keyed by the last ID it is selected from, which only moves
+	 * once every chunk has been sent, so the next run resumes the chunks left
+	 * unsent instead of sending the campaign again.
+	 */
+	private boolean broadcastBulkIntroMessage(List<MotherIdentityWhatsAppProjection> motherIdentities,
+		String messageTemplateId, String fromTable, long lastId, Runnable moveLastIdPastTheseMothers) {
+		String districtHealthOfficeName = qontakProperties.getWhatsApp().getDistrictHealthOfficeName();
+		String campaignName = ZonedDateTime.now() + " " + districtHealthOfficeName + ", " + fromTable
+			+ " (Intro Message)";
+
+		boolean isSuccess = Boolean.TRUE.equals(bulkBroadcastService
+			.broadcastInChunks(BulkBroadcastService.campaignKeyOf(MESSAGE_TEMPLATE_NAME, fromTable, lastId),
+				campaignName, motherIdentities,
+				chunk -> CSVUtil.createContactListCSVForIntroMessage(chunk,
+					"contacts_intro-message_" + fromTable + ".csv", districtHealthOfficeName),
+				(chunkCampaignName, contactListId) -> createIntroMessageBroadcastRequestBody(messageTemplateId,
+					contactListId, chunkCampaignName))
+			.block());
+
+		if (isSuccess) {
+			log.info("{} intro message(s) have been sent as bulk broadcast request. ({})", motherIdentities.size(),
+				fromTable);
+			inTransaction(() -> {
+				automatedMessageStatsRepository.upsert(messageTemplateId, MESSAGE_TEMPLATE_NAME,
+					motherIdentities.size(), 0);
+				moveLastIdPastTheseMothers.run();
+			});
+		} else {
+			log.error("\"Send Join Notification via WhatsApp\" as bulk broadcast failed, to be resumed next time. ({})",
+				fromTable);
 		}
+		return isSuccess;
+	}
+
+	private void inTransaction(Runnable runnable) {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> runnable.run());
+	}
+
+	private BroadcastRequest createIntroMessageBroadcastRequestBody(String messageTemplateId, String contactListId,
+		String campaignName) {
+		BroadcastRequest requestBody = broadcastMessageService.createBroadcastRequestBody(campaignName,
+			messageTemplateId, contactListId);
+		Parameters parameters = new Parameters();
+		parameters.addBodyWithValues("1", FULL_NAME);
+		parameters.addBodyWithValues("2", DHO);
+		requestBody.setParameters(parameters);
+		return requestBody;
 	}
 
-	private Consumer<MotherIdentityWhatsAppProjection> broadcastIntroMessageViaWhatsApp(AtomicLong successCount,
+	private void enqueueIntroMessages(List<MotherIdentityWhatsAppProjection> motherIdentities,
 		String messageTemplateId) {
-		return motherIdentity -> {
-			BroadcastDirectRequest requestBody = createIntroMessageRequestBody(motherIdentity, messageTemplateId);
-			try {
-				broadcastMessageService.sendBroadcastDirectRequestToQontakAPI(successCount, motherIdentity,
-					requestBody);
-			} catch (InterruptedException e) {
-				log.warn("Broadcast Direct got interrupted! {}", e);
-				Thread.currentThread().interrupt();
-			}
-		};
+		whatsAppOutboxService.enqueue(motherIdentities.stream()
+			.map(motherIdentity -> createIntroMessageRequestBody(motherIdentity, messageTemplateId)).collect(toList()),
+			MESSAGE_TEMPLATE_NAME);
 	}
 
 	private BroadcastDirectRequest createIntroMessageRequestBody(MotherIdentityWhatsAppProjection motherIdentity,
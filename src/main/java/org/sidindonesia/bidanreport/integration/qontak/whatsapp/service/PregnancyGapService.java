@@ -1,104 +1,225 @@
 package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service;
 
 import static java.util.stream.Collectors.toList;
+import static org.sidindonesia.bidanreport.util.CSVUtil.ANC_DATE;
+import static org.sidindonesia.bidanreport.util.CSVUtil.DIASTOLIC_BP;
+import static org.sidindonesia.bidanreport.util.CSVUtil.FETAL_HEART_RATE;
+import static org.sidindonesia.bidanreport.util.CSVUtil.FETAL_PRESENTATI;
+import static org.sidindonesia.bidanreport.util.CSVUtil.FULL_NAME;
+import static org.sidindonesia.bidanreport.util.CSVUtil.GESTATIONAL_AGE;
+import static org.sidindonesia.bidanreport.util.CSVUtil.GIVEN_IFA_TABLET;
+import static org.sidindonesia.bidanreport.util.CSVUtil.GIVEN_TT_INJECTI;
+import static org.sidindonesia.bidanreport.util.CSVUtil.GLUCOSE_140_MGDL;
+import static org.sidindonesia.bidanreport.util.CSVUtil.HAS_HBSAG;
+import static org.sidindonesia.bidanreport.util.CSVUtil.HAS_HIV;
+import static org.sidindonesia.bidanreport.util.CSVUtil.HAS_PROTEINURIA;
+import static org.sidindonesia.bidanreport.util.CSVUtil.HAS_SYPHILIS;
+import static org.sidindonesia.bidanreport.util.CSVUtil.HAS_THALASEMIA;
+import static org.sidindonesia.bidanreport.util.CSVUtil.HB_LEVEL_RESULT;
+import static org.sidindonesia.bidanreport.util.CSVUtil.HEIGHT_IN_CM;
+import static org.sidindonesia.bidanreport.util.CSVUtil.MUAC_IN_CM;
+import static org.sidindonesia.bidanreport.util.CSVUtil.SYSTOLIC_BP;
+import static org.sidindonesia.bidanreport.util.CSVUtil.TETANUS_T_IMM_ST;
+import static org.sidindonesia.bidanreport.util.CSVUtil.UTERINE_F_HEIGHT;
+import static org.sidindonesia.bidanreport.util.CSVUtil.WEIGHT_IN_KG;
 
+import java.time.ZonedDateTime;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 import org.sidindonesia.bidanreport.config.property.LastIdProperties;
 import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
 import org.sidindonesia.bidanreport.integration.qontak.repository.AutomatedMessageStatsRepository;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.BroadcastDirectRequest;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.BroadcastRequest;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.Parameters;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.BroadcastMessageService;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.BulkBroadcastService;
 import org.sidindonesia.bidanreport.repository.MotherEditRepository;
 import org.sidindonesia.bidanreport.repository.MotherIdentityRepository;
 import org.sidindonesia.bidanreport.repository.projection.PregnancyGapProjection;
 import org.sidindonesia.bidanreport.service.LastIdService;
-import org.springframework.data.util.Pair;
+import org.sidindonesia.bidanreport.service.LatestAncVisitService;
+import org.sidindonesia.bidanreport.service.MotherProfileService;
+import org.sidindonesia.bidanreport.util.CSVUtil;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Not transactional, so a bulk broadcast is awaited without holding a
+ * connection: the messages queued, or the campaign sent, are committed together
+ * with the last ID moved past them.
+ */
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 @Service
 public class PregnancyGapService {
+	private static final String MESSAGE_TEMPLATE_NAME = "pregnancy_gap";
 	private final QontakProperties qontakProperties;
 	private final MotherIdentityRepository motherIdentityRepository;
 	private final MotherEditRepository motherEditRepository;
 	private final BroadcastMessageService broadcastMessageService;
 	private final LastIdProperties lastIdProperties;
 	private final LastIdService lastIdService;
+	private final WhatsAppOutboxService whatsAppOutboxService;
+	private final BulkBroadcastService bulkBroadcastService;
 	private final AutomatedMessageStatsRepository automatedMessageStatsRepository;
+	private final LatestAncVisitService latestAncVisitService;
+	private final MotherProfileService motherProfileService;
+	private final PlatformTransactionManager transactionManager;
 
 	@Scheduled(fixedRateString = "${scheduling.pregnancy-gap.fixed-rate-in-ms}", initialDelayString = "${scheduling.pregnancy-gap.initial-delay-in-ms}")
 	public void sendPregnancyGapMessageToEnrolledMothers() {
 		log.debug("Executing scheduled \"Inform Pregnancy Gap via WhatsApp\"...");
 		log.debug("Send pregnancy gap message to all mothers according to their latest ANC visit");
-		processRowsFromMotherIdentity();
-		processRowsFromMotherEdit();
-
-		lastIdService.syncANCVisitPregnancyGapLastId();
+		lastIdService.loadLastIds();
+		// taken before the selection, an ANC visit arriving in between is then
+		// selected again on the next run rather than never
+		Optional<Long> optLatestANCVisitEventId = lastIdService.findLatestANCVisitEventId();
+		// refreshed at least up to that ANC visit
+		latestAncVisitService.refreshLatestAncVisits();
+		motherProfileService.refreshMotherProfiles();
+		// each table has its own last ID, so the mothers of a table already sent to
+		// are not sent to again when the other table fails
+		processRowsFromMotherIdentity(
+			() -> optLatestANCVisitEventId.ifPresent(lastIdService::updateMotherIdentityANCVisitPregnancyGapLastId));
+		processRowsFromMotherEdit(
+			() -> optLatestANCVisitEventId.ifPresent(lastIdService::updateMotherEditANCVisitPregnancyGapLastId));
 	}
 
-	private void processRowsFromMotherIdentity() {
+	private void processRowsFromMotherIdentity(Runnable moveLastIdPastTheseAncVisits) {
+		long lastId = lastIdProperties.getMotherIdentity().getAncVisitPregnancyGapLastId();
 		List<PregnancyGapProjection> allPregnantWomenToBeInformedOfGapInTheirPregnancy = motherIdentityRepository
-			.findAllPregnantWomenToBeInformedOfHerGapOnPregnancy(lastIdProperties.getAncVisitPregnancyGapLastId());
+			.findAllPregnantWomenToBeInformedOfHerGapOnPregnancy(lastId);
 
-		broadcastPregnancyGapMessageTo(allPregnantWomenToBeInformedOfGapInTheirPregnancy);
+		broadcastPregnancyGapMessageTo(allPregnantWomenToBeInformedOfGapInTheirPregnancy, "mother_identity", lastId,
+			moveLastIdPastTheseAncVisits);
 	}
 
-	private void processRowsFromMotherEdit() {
+	private void processRowsFromMotherEdit(Runnable moveLastIdPastTheseAncVisits) {
+		long lastId = lastIdProperties.getMotherEdit().getAncVisitPregnancyGapLastId();
 		List<PregnancyGapProjection> allPregnantWomenToBeInformedOfGapInTheirPregnancy = motherEditRepository
-			.findAllPregnantWomenToBeInformedOfHerGapOnPregnancy(lastIdProperties.getAncVisitPregnancyGapLastId());
+			.findAllPregnantWomenToBeInformedOfHerGapOnPregnancy(lastId);
 
-		broadcastPregnancyGapMessageTo(allPregnantWomenToBeInformedOfGapInTheirPregnancy);
+		broadcastPregnancyGapMessageTo(allPregnantWomenToBeInformedOfGapInTheirPregnancy, "mother_edit", lastId,
+			moveLastIdPastTheseAncVisits);
 	}
 
+	/**
+	 * Queues one direct broadcast per mother, or when
+	 * {@code qontak.whats-app.pregnancy-gap-bulk-broadcast-enabled} broadcasts to
+	 * contact lists of all of them, then moves the last ID past these ANC visits.
+	 */
 	private void broadcastPregnancyGapMessageTo(
-		List<PregnancyGapProjection> allPregnantWomenToBeInformedOfGapInTheirPregnancy) {
-		if (!allPregnantWomenToBeInformedOfGapInTheirPregnancy.isEmpty()) {
-			AtomicLong pregnantGapSuccessCount = new AtomicLong();
-			List<Pair<PregnancyGapProjection, BroadcastDirectRequest>> pairs = allPregnantWomenToBeInformedOfGapInTheirPregnancy
-				.parallelStream().filter(motherIdentity -> motherIdentity.getPregnancyGapCommaSeparatedValues() != null)
-				.map(motherIdentity -> createPregnancyGapMessageRequestBody(motherIdentity,
-					qontakProperties.getWhatsApp().getPregnancyGapMessageTemplateId()))
-				.collect(toList());
-
-			pairs.parallelStream().forEach(pair -> {
-				try {
-					broadcastMessageService.sendBroadcastDirectRequestToQontakAPI(pregnantGapSuccessCount,
-						pair.getFirst(), pair.getSecond());
-				} catch (InterruptedException e) {
-					log.warn("Broadcast Direct got interrupted! {}", e);
-					Thread.currentThread().interrupt();
-				}
-			});
+		List<PregnancyGapProjection> allPregnantWomenToBeInformedOfGapInTheirPregnancy, String fromTable,
+		long lastId, Runnable moveLastIdPastTheseAncVisits) {
+		String messageTemplateId = qontakProperties.getWhatsApp().getPregnancyGapMessageTemplateId();
+		List<PregnancyGapProjection> pregnantWomenWithGap = allPregnantWomenToBeInformedOfGapInTheirPregnancy.stream()
+			.filter(motherIdentity -> motherIdentity.getPregnancyGapCommaSeparatedValues() != null).collect(toList());
+		if (pregnantWomenWithGap.isEmpty()) {
+			inTransaction(moveLastIdPastTheseAncVisits);
+			return;
+		}
+
+		if (qontakProperties.getWhatsApp().isPregnancyGapBulkBroadcastEnabled()) {
+			broadcastBulkPregnancyGapMessage(pregnantWomenWithGap, messageTemplateId, fromTable, lastId,
+				moveLastIdPastTheseAncVisits);
+			return;
+		}
+		List<BroadcastDirectRequest> requestBodies = pregnantWomenWithGap.stream()
+			.map(motherIdentity -> createPregnancyGapMessageRequestBody(motherIdentity, messageTemplateId))
+			.collect(toList());
+		inTransaction(() -> {
+			whatsAppOutboxService.enqueue(requestBodies, "pregnancy_gap");
+			moveLastIdPastTheseAncVisits.run();
+		});
+
+		log.info("\"Inform Pregnancy Gap via WhatsApp\" for enrolled pregnant women completed.");
+		log.info(
+			"{} out of {} enrolled pregnant women have been queued to be informed of the gap in their pregnancy via WhatsApp.",
+			requestBodies.size(), allPregnantWomenToBeInformedOfGapInTheirPregnancy.size());
+	}
+
+	/**
+	 * The campaign is keyed by the last ID it is selected from, which only moves
+	 * once every chunk has been sent, so the next run resumes the chunks left
+	 * unsent instead of sending the campaign again.
+	 */
+	private void broadcastBulkPregnancyGapMessage(List<PregnancyGapProjection> pregnantWomenWithGap,
+		String messageTemplateId, String fromTable, long lastId, Runnable moveLastIdPastTheseAncVisits) {
+		String campaignName = ZonedDateTime.now() + " "
+			+ qontakProperties.getWhatsApp().getDistrictHealthOfficeName() + ", " + fromTable + " (Pregnancy Gap)";
 
-			log.info("\"Inform Pregnancy Gap via WhatsApp\" for enrolled pregnant women completed.");
-			log.info(
-				"{} out of {} enrolled pregnant women have been informed of the gap in their pregnancy via WhatsApp successfully.",
-				pregnantGapSuccessCount, allPregnantWomenToBeInformedOfGapInTheirPregnancy.size());
+		boolean isSuccess = Boolean.TRUE.equals(bulkBroadcastService
+			.broadcastInChunks(BulkBroadcastService.campaignKeyOf(MESSAGE_TEMPLATE_NAME, fromTable, lastId),
+				campaignName, pregnantWomenWithGap,
+				chunk -> CSVUtil.createContactListCSVForPregnancyGapMessage(chunk,
+					"contacts_pregnancy-gap_" + fromTable + ".csv"),
+				(chunkCampaignName, contactListId) -> createPregnancyGapBroadcastRequestBody(messageTemplateId,
+					contactListId, chunkCampaignName))
+			.block());
 
-			automatedMessageStatsRepository.upsert(qontakProperties.getWhatsApp().getPregnancyGapMessageTemplateId(),
-				"pregnancy_gap", pregnantGapSuccessCount.get(),
-				allPregnantWomenToBeInformedOfGapInTheirPregnancy.size() - pregnantGapSuccessCount.get());
+		if (isSuccess) {
+			log.info("{} pregnancy gap message(s) have been sent as bulk broadcast request. ({})",
+				pregnantWomenWithGap.size(), fromTable);
+			inTransaction(() -> {
+				automatedMessageStatsRepository.upsert(messageTemplateId, MESSAGE_TEMPLATE_NAME,
+					pregnantWomenWithGap.size(), 0);
+				moveLastIdPastTheseAncVisits.run();
+			});
+		} else {
+			log.error("\"Inform Pregnancy Gap via WhatsApp\" as bulk broadcast failed, to be resumed next time. ({})",
+				fromTable);
 		}
 	}
 
-	private Pair<PregnancyGapProjection, BroadcastDirectRequest> createPregnancyGapMessageRequestBody(
-		PregnancyGapProjection motherIdentity, String messageTemplateId) {
+	private void inTransaction(Runnable runnable) {
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> runnable.run());
+	}
+
+	private BroadcastRequest createPregnancyGapBroadcastRequestBody(String messageTemplateId, String contactListId,
+		String campaignName) {
+		BroadcastRequest requestBody = broadcastMessageService.createBroadcastRequestBody(campaignName,
+			messageTemplateId, contactListId);
+		Parameters parameters = new Parameters();
+		parameters.addBodyWithValues("1", FULL_NAME);
+		parameters.addBodyWithValues("2", ANC_DATE);
+		parameters.addBodyWithValues("3", GESTATIONAL_AGE);
+		parameters.addBodyWithValues("4", HEIGHT_IN_CM);
+		parameters.addBodyWithValues("5", WEIGHT_IN_KG);
+		parameters.addBodyWithValues("6", MUAC_IN_CM);
+		parameters.addBodyWithValues("7", SYSTOLIC_BP);
+		parameters.addBodyWithValues("8", DIASTOLIC_BP);
+		parameters.addBodyWithValues("9", UTERINE_F_HEIGHT);
+		parameters.addBodyWithValues("10", FETAL_PRESENTATI);
+		parameters.addBodyWithValues("11", FETAL_HEART_RATE);
+		parameters.addBodyWithValues("12", TETANUS_T_IMM_ST);
+		parameters.addBodyWithValues("13", GIVEN_TT_INJECTI);
+		parameters.addBodyWithValues("14", GIVEN_IFA_TABLET);
+		parameters.addBodyWithValues("15", HAS_PROTEINURIA);
+		parameters.addBodyWithValues("16", HB_LEVEL_RESULT);
+		parameters.addBodyWithValues("17", GLUCOSE_140_MGDL);
+		parameters.addBodyWithValues("18", HAS_THALASEMIA);
+		parameters.addBodyWithValues("19", HAS_SYPHILIS);
+		parameters.addBodyWithValues("20", HAS_HBSAG);
+		parameters.addBodyWithValues("21", HAS_HIV);
+		requestBody.setParameters(parameters);
+		return requestBody;
+	}
+
+	private BroadcastDirectRequest createPregnancyGapMessageRequestBody(PregnancyGapProjection motherIdentity,
+		String messageTemplateId) {
 		BroadcastDirectRequest requestBody = broadcastMessageService.createBroadcastDirectRequestBody(motherIdentity,
 			messageTemplateId);
 
 		setParametersForPregnancyGapMessage(motherIdentity, requestBody);
-		return Pair.of(motherIdentity, requestBody);
+		return requestBody;
 	}
 
 	private void setParametersForPregnancyGapMessage(PregnancyGapProjection motherIdentity,
@@ -1,16 +1,15 @@
 package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service;
 
 import static java.util.stream.Collectors.toList;
-import static org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.ContactListUtil.createContactListRequest;
 import static org.sidindonesia.bidanreport.util.CSVUtil.FULL_NAME;
 import static org.sidindonesia.bidanreport.util.CSVUtil.VISIT_NUMBER;
 
-import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.stream.Stream;
 
+import org.sidindonesia.bidanreport.config.property.SchedulingProperties;
 import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
 import org.sidindonesia.bidanreport.integration.qontak.repository.AutomatedMessageStatsRepository;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.BroadcastDirectRequest;
@@ -18,18 +17,22 @@ import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.Broadcas
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.Parameters;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.ParametersWithHeader;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.BroadcastMessageService;
-import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.ContactListService;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.BulkBroadcastService;
 import org.sidindonesia.bidanreport.repository.MotherEditRepository;
 import org.sidindonesia.bidanreport.repository.MotherIdentityRepository;
 import org.sidindonesia.bidanreport.repository.projection.AncVisitReminderProjection;
+import org.sidindonesia.bidanreport.service.LatestAncVisitService;
+import org.sidindonesia.bidanreport.service.MotherProfileService;
 import org.sidindonesia.bidanreport.util.CSVUtil;
-import org.springframework.data.util.Pair;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @RequiredArgsConstructor
 @Slf4j
@@ -43,18 +46,40 @@ public class VisitReminderService {
 	private final BroadcastMessageService broadcastMessageService;
 	private final AutomatedMessageStatsRepository automatedMessageStatsRepository;
 	private final FhirResourceService fhirResourceService;
-	private final ContactListService contactListService;
+	private final BulkBroadcastService bulkBroadcastService;
+	private final SchedulingProperties schedulingProperties;
+	private final LatestAncVisitService latestAncVisitService;
+	private final MotherProfileService motherProfileService;
 
 	@Scheduled(cron = "${scheduling.visit-reminder.cron}", zone = "${scheduling.visit-reminder.zone}")
-	public void sendVisitRemindersToEnrolledMothers() throws IOException, InterruptedException {
+	public void sendVisitRemindersToEnrolledMothers() {
 		log.debug("Executing scheduled \"Send ANC Visit Reminder via WhatsApp\"...");
 		log.debug("Send ANC visit reminder to all mothers with -"
 			+ qontakProperties.getWhatsApp().getVisitReminderIntervalInDays() + " day(s) for the next ANC visit date");
-		processRowsFromMotherIdentity();
-		processRowsFromMotherEdit();
+		latestAncVisitService.refreshLatestAncVisits();
+		motherProfileService.refreshMotherProfiles();
+		// both campaigns are uploaded and awaited at the same time
+		Mono.zip(processRowsFromMotherIdentity(), processRowsFromMotherEdit()).block();
 	}
 
-	private void processRowsFromMotherIdentity() throws IOException, InterruptedException {
+	/**
+	 * Sends the chunks of today's campaigns left unsent by
+	 * {@link #sendVisitRemindersToEnrolledMothers()}, if any.
+	 */
+	@Scheduled(fixedRateString = "${scheduling.bulk-broadcast-resume.fixed-rate-in-ms}", initialDelayString = "${scheduling.bulk-broadcast-resume.initial-delay-in-ms}")
+	public void resumeUnfinishedVisitReminders() {
+		boolean isMotherIdentityUnfinished = bulkBroadcastService.hasUnfinishedChunks(campaignKeyOf("mother_identity"));
+		boolean isMotherEditUnfinished = bulkBroadcastService.hasUnfinishedChunks(campaignKeyOf("mother_edit"));
+		if (isMotherIdentityUnfinished || isMotherEditUnfinished) {
+			log.info("Resuming unfinished \"Send ANC Visit Reminder via WhatsApp\"...");
+			latestAncVisitService.refreshLatestAncVisits();
+			motherProfileService.refreshMotherProfiles();
+			Mono.zip(isMotherIdentityUnfinished ? processRowsFromMotherIdentity() : Mono.just(true),
+				isMotherEditUnfinished ? processRowsFromMotherEdit() : Mono.just(true)).block();
+		}
+	}
+
+	private Mono<Boolean> processRowsFromMotherIdentity() {
 		List<AncVisitReminderProjection> allPregnantWomenToBeRemindedForTheNextANCVisit = motherIdentityRepository
 			.findAllPregnantWomenToBeRemindedForTheNextANCVisit(qontakProperties.getWhatsApp().getVisitIntervalInDays(),
 				qontakProperties.getWhatsApp().getVisitReminderIntervalInDays())
@@ -62,12 +87,13 @@ public class VisitReminderService {
 			.filter(ancVisitReminderProjection -> ancVisitReminderProjection.getLatestAncVisitNumber() != null)
 			.collect(toList());
 
-		if (!allPregnantWomenToBeRemindedForTheNextANCVisit.isEmpty()) {
-			broadcastANCVisitReminderMessageTo(allPregnantWomenToBeRemindedForTheNextANCVisit, "mother_identity");
+		if (allPregnantWomenToBeRemindedForTheNextANCVisit.isEmpty()) {
+			return Mono.just(true);
 		}
+		return broadcastANCVisitReminderMessageTo(allPregnantWomenToBeRemindedForTheNextANCVisit, "mother_identity");
 	}
 
-	private void processRowsFromMotherEdit() throws IOException, InterruptedException {
+	private Mono<Boolean> processRowsFromMotherEdit() {
 		List<AncVisitReminderProjection> allPregnantWomenToBeRemindedForTheNextANCVisit = motherEditRepository
 			.findAllPregnantWomenToBeRemindedForTheNextANCVisit(qontakProperties.getWhatsApp().getVisitIntervalInDays(),
 				qontakProperties.getWhatsApp().getVisitReminderIntervalInDays())
@@ -75,61 +101,41 @@ public class VisitReminderService {
 			.filter(ancVisitReminderProjection -> ancVisitReminderProjection.getLatestAncVisitNumber() != null)
 			.collect(toList());
 
-		if (!allPregnantWomenToBeRemindedForTheNextANCVisit.isEmpty()) {
-			broadcastANCVisitReminderMessageTo(allPregnantWomenToBeRemindedForTheNextANCVisit, "mother_edit");
+		if (allPregnantWomenToBeRemindedForTheNextANCVisit.isEmpty()) {
+			return Mono.just(true);
 		}
+		return broadcastANCVisitReminderMessageTo(allPregnantWomenToBeRemindedForTheNextANCVisit, "mother_edit");
 	}
 
-	private void broadcastANCVisitReminderMessageTo(
-		List<AncVisitReminderProjection> allPregnantWomenToBeRemindedForTheNextANCVisit, String fromTable)
-		throws IOException, InterruptedException {
+	private String campaignKeyOf(String fromTable) {
+		return BulkBroadcastService.campaignKeyOf(MESSAGE_TEMPLATE_NAME, fromTable,
+			LocalDate.now(ZoneId.of(schedulingProperties.getVisitReminder().getZone())));
+	}
 
-		// Create contact list CSV
-		String contactsCsvFileName = qontakProperties.getWhatsApp().getAncVisitReminderContactListCsvAbsoluteFileName()
-			.replace(".csv", "_" + fromTable + ".csv");
-		CSVUtil.createContactListCSVFileForANCVisitReminderMessage(allPregnantWomenToBeRemindedForTheNextANCVisit,
-			contactsCsvFileName);
+	private Mono<Boolean> broadcastANCVisitReminderMessageTo(
+		List<AncVisitReminderProjection> allPregnantWomenToBeRemindedForTheNextANCVisit, String fromTable) {
 
 		String campaignName = ZonedDateTime.now() + " " + qontakProperties.getWhatsApp().getDistrictHealthOfficeName()
 			+ ", " + fromTable + " (ANC Visit Reminder)";
-		// Hit API post contact list, get contact_list_id
-		String contactListId = contactListService
-			.sendCreateContactListRequestToQontakAPI(createContactListRequest(campaignName, contactsCsvFileName));
-
-		if (contactListId != null) {
-
-			if (contactListService.tryRetrieveContactListByIdMultipleTimes(contactListId)) {
-				broadcastBulk(fromTable, allPregnantWomenToBeRemindedForTheNextANCVisit, campaignName, contactListId);
-			}
-
-		} else {
-			log.error(
-				"\"Send ANC Visit Reminder via WhatsApp\" for enrolled pregnant women failed due to error when POST contact list. ("
+		String messageTemplateId = qontakProperties.getWhatsApp().getVisitReminderMessageTemplateId();
+		// Create a contact list CSV per chunk, hit API post contact list, wait until
+		// Qontak has processed it, then broadcast to it
+		return bulkBroadcastService
+			.broadcastInChunks(campaignKeyOf(fromTable), campaignName, allPregnantWomenToBeRemindedForTheNextANCVisit,
+				chunk -> CSVUtil.createContactListCSVForANCVisitReminderMessage(chunk,
+					"contacts_anc-visit-reminder_" + fromTable + ".csv"),
+				(chunkCampaignName, contactListId) -> createANCVisitReminderMessageRequestBody(messageTemplateId,
+					contactListId, chunkCampaignName))
+			.doOnNext(isSuccess -> {
+				log.info("\"Send ANC Visit Reminder via WhatsApp\" for enrolled pregnant women completed. ("
 					+ fromTable + ")");
-		}
-	}
-
-	private void broadcastBulk(String fromTable,
-		List<AncVisitReminderProjection> allPregnantWomenToBeRemindedForTheNextANCVisit, String campaignName,
-		String contactListId) throws InterruptedException {
-		// Broadcast to contact_list
-		boolean isSuccess = broadcastBulkMessageViaWhatsApp(
-			qontakProperties.getWhatsApp().getVisitReminderMessageTemplateId(), contactListId, campaignName);
 
-		log.info("\"Send ANC Visit Reminder via WhatsApp\" for enrolled pregnant women completed. (" + fromTable + ")");
-
-		if (isSuccess) {
-			log.info(
-				"{} enrolled pregnant women have been reminded of the next ANC visit via WhatsApp successfully as bulk broadcast request.",
-				allPregnantWomenToBeRemindedForTheNextANCVisit.size());
-		}
-	}
-
-	private boolean broadcastBulkMessageViaWhatsApp(String messageTemplateId, String contactListId, String campaignName)
-		throws InterruptedException {
-		BroadcastRequest requestBody = createANCVisitReminderMessageRequestBody(messageTemplateId, contactListId,
-			campaignName);
-		return broadcastMessageService.sendBroadcastRequestToQontakAPI(requestBody);
+				if (isSuccess) {
+					log.info(
+						"{} enrolled pregnant women have been reminded of the next ANC visit via WhatsApp successfully as bulk broadcast request.",
+						allPregnantWomenToBeRemindedForTheNextANCVisit.size());
+				}
+			});
 	}
 
 	private BroadcastRequest createANCVisitReminderMessageRequestBody(String messageTemplateId, String contactListId,
@@ -148,55 +154,47 @@ public class VisitReminderService {
 		requestBody.setParameters(parameters);
 	}
 
+	/**
+	 * Sends the reminders as direct broadcasts, with the QR code of her FHIR
+	 * resources as header image to every mother with a pregnancy gap. Dormant
+	 * since the reminders are sent as bulk broadcasts, whose contact lists cannot
+	 * carry a header image per mother.
+	 * <p>
+	 * At most {@code scheduling.broadcast-direct.max-concurrency} reminders are
+	 * prepared and sent at the same time, the blocking FHIR post and QR code
+	 * upload of a reminder running on the bounded elastic scheduler.
+	 */
 	@SuppressWarnings("unused") // not deleted because the FHIR QR code still not refactored into broadcast bulk
 	private void broadcastANCVisitReminderMessageTo(
 		List<AncVisitReminderProjection> allPregnantWomenToBeRemindedForTheNextANCVisit) {
 		if (!allPregnantWomenToBeRemindedForTheNextANCVisit.isEmpty()) {
-			AtomicLong visitReminderSuccessCount = new AtomicLong();
-			List<Pair<AncVisitReminderProjection, BroadcastDirectRequest>> pairs = allPregnantWomenToBeRemindedForTheNextANCVisit
-				.parallelStream()
-				.filter(ancVisitReminderProjection -> ancVisitReminderProjection.getLatestAncVisitNumber() != null
-					&& ancVisitReminderProjection.getPregnancyGapCommaSeparatedValues() == null)
-				.map(
-					ancVisitReminderProjection -> Pair.of(ancVisitReminderProjection,
-						createANCVisitReminderMessageRequestBody(ancVisitReminderProjection,
-							qontakProperties.getWhatsApp().getVisitReminderMessageTemplateId(), false)))
-				.collect(toList());
-
-			pairs.parallelStream().forEach(pair -> {
-				try {
-					broadcastMessageService.sendBroadcastDirectRequestToQontakAPI(visitReminderSuccessCount,
-						pair.getFirst(), pair.getSecond());
-				} catch (InterruptedException e) {
-					log.warn("Broadcast Direct got interrupted! {}", e);
-					Thread.currentThread().interrupt();
-				}
-			});
-
-			// cannot do parallel because QR code file generation
-			allPregnantWomenToBeRemindedForTheNextANCVisit.stream()
+			List<AncVisitReminderProjection> pregnantWomenWithPregnancyGap = allPregnantWomenToBeRemindedForTheNextANCVisit
+				.stream()
 				.filter(ancVisitReminderProjection -> ancVisitReminderProjection.getLatestAncVisitNumber() != null
 					&& ancVisitReminderProjection.getPregnancyGapCommaSeparatedValues() != null)
-				.forEach(ancVisitReminderProjection -> {
-					try {
-						broadcastMessageService.sendBroadcastDirectRequestToQontakAPI(visitReminderSuccessCount,
-							ancVisitReminderProjection,
-							createANCVisitReminderMessageRequestBody(ancVisitReminderProjection,
-								qontakProperties.getWhatsApp().getVisitReminderMessageTemplateId(), true));
-					} catch (InterruptedException e) {
-						log.warn("Broadcast Direct got interrupted! {}", e);
-						Thread.currentThread().interrupt();
-					}
-				});
+				.collect(toList());
+			// one FHIR transaction per batch of mothers instead of one per mother
+			fhirResourceService.postTransactionBundlesToFHIRServerInBatches(pregnantWomenWithPregnancyGap);
+
+			String messageTemplateId = qontakProperties.getWhatsApp().getVisitReminderMessageTemplateId();
+			long visitReminderSuccessCount = Flux.fromIterable(allPregnantWomenToBeRemindedForTheNextANCVisit)
+				.filter(ancVisitReminderProjection -> ancVisitReminderProjection.getLatestAncVisitNumber() != null)
+				.flatMap(ancVisitReminderProjection -> Mono
+					.fromCallable(() -> createANCVisitReminderMessageRequestBody(ancVisitReminderProjection,
+						messageTemplateId, ancVisitReminderProjection.getPregnancyGapCommaSeparatedValues() != null))
+					.subscribeOn(Schedulers.boundedElastic())
+					.flatMap(requestBody -> broadcastMessageService.sendBroadcastDirect(ancVisitReminderProjection,
+						requestBody)),
+					schedulingProperties.getBroadcastDirect().getMaxConcurrency())
+				.filter(Boolean::booleanValue).count().blockOptional().orElse(0L);
 
 			log.info("\"Send ANC Visit Reminder via WhatsApp\" for enrolled pregnant women completed.");
 			log.info(
 				"{} out of {} enrolled pregnant women have been reminded of the next ANC visit via WhatsApp successfully.",
 				visitReminderSuccessCount, allPregnantWomenToBeRemindedForTheNextANCVisit.size());
 
-			automatedMessageStatsRepository.upsert(qontakProperties.getWhatsApp().getVisitReminderMessageTemplateId(),
-				MESSAGE_TEMPLATE_NAME, visitReminderSuccessCount.get(),
-				allPregnantWomenToBeRemindedForTheNextANCVisit.size() - visitReminderSuccessCount.get());
+			automatedMessageStatsRepository.upsert(messageTemplateId, MESSAGE_TEMPLATE_NAME, visitReminderSuccessCount,
+				allPregnantWomenToBeRemindedForTheNextANCVisit.size() - visitReminderSuccessCount);
 		}
 	}
 
@@ -215,9 +213,7 @@ public class VisitReminderService {
 		if (useQRCodeAsHeader) {
 			parameters = new ParametersWithHeader();
 			fhirResourceService.fillHeaderWithQRCodeImage(ancVisitReminderProjection,
-				Stream.of(ancVisitReminderProjection.getPregnancyGapCommaSeparatedValues().split(",")).map(String::trim)
-					.collect(toList()),
-				(ParametersWithHeader) parameters);
+				FhirResourceService.splitPregnancyGapValues(ancVisitReminderProjection), (ParametersWithHeader) parameters);
 			requestBody.setMessage_template_id(
 				qontakProperties.getWhatsApp().getVisitReminderWithHeaderImageMessageTemplateId());
 		} else {
@@ -0,0 +1,150 @@
+package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
+import org.sidindonesia.bidanreport.integration.qontak.domain.WhatsAppOutboxMessage;
+import org.sidindonesia.bidanreport.integration.qontak.repository.AutomatedMessageStatsRepository;
+import org.sidindonesia.bidanreport.integration.qontak.repository.WhatsAppOutboxRepository;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.BroadcastDirectRequest;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.BroadcastMessageService;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.DeliveryOutcome;
+import org.springframework.data.util.Pair;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Direct broadcasts are queued in the {@code whatsapp_outbox} table by the
+ * schedulers selecting their recipients, then sent by
+ * {@link #dispatchPendingMessages()}. A message is marked as sent only after
+ * Qontak accepted it, so it is sent at least once even when the application
+ * stops in the middle of a batch: its claim expires and it is claimed again.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+@Service
+public class WhatsAppOutboxService {
+	private final WhatsAppOutboxRepository whatsAppOutboxRepository;
+	private final AutomatedMessageStatsRepository automatedMessageStatsRepository;
+	private final BroadcastMessageService broadcastMessageService;
+	private final QontakProperties qontakProperties;
+	private final ObjectMapper objectMapper;
+	private final PlatformTransactionManager transactionManager;
+
+	/**
+	 * Queues the messages in the current transaction, so they are queued
+	 * together with the last ID of their recipients.
+	 */
+	public void enqueue(List<BroadcastDirectRequest> requestBodies, String messageTemplateName) {
+		LocalDateTime now = LocalDateTime.now();
+		whatsAppOutboxRepository.saveAll(requestBodies.stream()
+			.map(requestBody -> createOutboxMessage(requestBody, messageTemplateName, now)).collect(toList()));
+		log.debug("Queued {} {} message(s)", requestBodies.size(), messageTemplateName);
+	}
+
+	private WhatsAppOutboxMessage createOutboxMessage(BroadcastDirectRequest requestBody, String messageTemplateName,
+		LocalDateTime now) {
+		WhatsAppOutboxMessage message = new WhatsAppOutboxMessage();
+		message.setMessageTemplateId(requestBody.getMessage_template_id());
+		message.setMessageTemplateName(messageTemplateName);
+		message.setToName(requestBody.getTo_name());
+		message.setToNumber(requestBody.getTo_number());
+		try {
+			message.setRequestBody(objectMapper.writeValueAsString(requestBody));
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+		message.setCreatedAt(now);
+		message.setNextAttemptAt(now);
+		return message;
+	}
+
+	/**
+	 * Sends the due messages in batches of {@code qontak.outbox.batch-size}. A
+	 * batch is claimed in a short transaction, so several instances can dispatch
+	 * the same outbox, then sent outside of any transaction, no connection nor row
+	 * lock being held while waiting for Qontak. The outcome of each message is
+	 * recorded in its own transaction as soon as it is known.
+	 */
+	@Scheduled(fixedRateString = "${scheduling.outbox-dispatch.fixed-rate-in-ms}", initialDelayString = "${scheduling.outbox-dispatch.initial-delay-in-ms}")
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void dispatchPendingMessages() {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		int dispatchedCount;
+		do {
+			dispatchedCount = dispatchNextBatch(transaction);
+		} while (dispatchedCount == qontakProperties.getOutbox().getBatchSize());
+	}
+
+	private int dispatchNextBatch(TransactionTemplate transaction) {
+		List<WhatsAppOutboxMessage> messages = transaction.execute(status -> claimNextBatch(LocalDateTime.now()));
+		if (messages == null || messages.isEmpty()) {
+			return 0;
+		}
+
+		long sentCount = 0;
+		for (Pair<WhatsAppOutboxMessage, DeliveryOutcome> outcome : broadcastMessageService
+			.sendOutboxMessagesToQontakAPI(messages).toIterable()) {
+			transaction.executeWithoutResult(
+				status -> recordOutcome(outcome.getFirst(), outcome.getSecond(), LocalDateTime.now()));
+			if (outcome.getSecond() == DeliveryOutcome.SENT) {
+				sentCount++;
+			}
+		}
+		log.info("Dispatched {} queued WhatsApp message(s), {} sent.", messages.size(), sentCount);
+		return messages.size();
+	}
+
+	/**
+	 * Claims the next due messages until {@code qontak.outbox.claim-duration-in-ms}
+	 * after {@code now}, counting the attempt right away so a message whose
+	 * sending keeps being interrupted still runs out of attempts.
+	 */
+	List<WhatsAppOutboxMessage> claimNextBatch(LocalDateTime now) {
+		QontakProperties.Outbox outbox = qontakProperties.getOutbox();
+		List<WhatsAppOutboxMessage> messages = whatsAppOutboxRepository
+			.findAllDueByNextAttemptAtBeforeForUpdateSkipLocked(now, outbox.getBatchSize());
+		for (WhatsAppOutboxMessage message : messages) {
+			message.setStatus(WhatsAppOutboxMessage.Status.SENDING);
+			message.setAttempts(message.getAttempts() + 1);
+			message.setNextAttemptAt(now.plus(outbox.getClaimDurationInMs(), ChronoUnit.MILLIS));
+		}
+		return whatsAppOutboxRepository.saveAll(messages);
+	}
+
+	void recordOutcome(WhatsAppOutboxMessage message, DeliveryOutcome outcome, LocalDateTime now) {
+		QontakProperties.Outbox outbox = qontakProperties.getOutbox();
+		if (outcome == DeliveryOutcome.SENT) {
+			message.setStatus(WhatsAppOutboxMessage.Status.SENT);
+			message.setSentAt(now);
+		} else if (outcome == DeliveryOutcome.PERMANENT_FAILURE || message.getAttempts() >= outbox.getMaxAttempts()) {
+			message.setStatus(WhatsAppOutboxMessage.Status.FAILED);
+		} else {
+			message.setStatus(WhatsAppOutboxMessage.Status.PENDING);
+			message.setNextAttemptAt(
+				now.plus(outbox.getRetryDelayInMs() << (message.getAttempts() - 1), ChronoUnit.MILLIS));
+			whatsAppOutboxRepository.save(message);
+			return;
+		}
+		whatsAppOutboxRepository.save(message);
+		boolean isSent = outcome == DeliveryOutcome.SENT;
+		automatedMessageStatsRepository.upsert(message.getMessageTemplateId(), message.getMessageTemplateName(),
+			isSent ? 1 : 0, isSent ? 0 : 1);
+	}
+}
@@ -1,25 +1,31 @@
 package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.List;
 
 import org.sidindonesia.bidanreport.config.property.SchedulingProperties;
 import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
 import org.sidindonesia.bidanreport.integration.qontak.constant.Constants;
+import org.sidindonesia.bidanreport.integration.qontak.domain.WhatsAppOutboxMessage;
+import org.sidindonesia.bidanreport.integration.qontak.web.retry.QontakRetryPolicy;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.BroadcastDirectRequest;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.BroadcastRequest;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.response.BroadcastDirectResponse;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.response.BroadcastResponse;
 import org.sidindonesia.bidanreport.repository.projection.MotherIdentityWhatsAppProjection;
 import org.sidindonesia.bidanreport.util.IndonesiaPhoneNumberUtil;
+import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.gson.Gson;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @RequiredArgsConstructor
@@ -31,82 +37,147 @@ public class BroadcastMessageService {
 	private final WebClient webClient;
 	private final Gson gson;
 	private final SchedulingProperties schedulingProperties;
+	private final QontakRetryPolicy qontakRetryPolicy;
+	private final ObjectMapper objectMapper;
 
-	public void sendBroadcastDirectRequestToQontakAPI(AtomicLong successCount,
-	    MotherIdentityWhatsAppProjection motherIdentity, BroadcastDirectRequest requestBody)
-	    throws InterruptedException {
-		for (int i = 0; i < schedulingProperties.getBroadcastDirect().getMaxNumberOfRetries(); i++) {
-			BroadcastDirectResponse responseBody = broadcastDirect(requestBody).block();
-			if (responseBody != null) {
-				if ("429".equalsIgnoreCase(responseBody.getStatus())) {
-					Thread.sleep(schedulingProperties.getBroadcastDirect().getDelayInMs());
-					log.debug("Retrying broadcast direct: {}", requestBody);
-				} else if (Constants.SUCCESS.equals(responseBody.getStatus())) {
-					successCount.incrementAndGet();
-					return;
-				} else {
-					log.error(
-					    "Request broadcast direct message failed for: {}, at phone number: {}, with error details: {}",
-					    motherIdentity.getFullName(), motherIdentity.getMobilePhoneNumber(), responseBody.getError());
-					return;
-				}
-			} else {
-				log.error("Request broadcast direct message failed with no content for: {}, at phone number: {}",
-				    motherIdentity.getFullName(), motherIdentity.getMobilePhoneNumber());
-				return;
-			}
+	/**
+	 * Sends the queued direct broadcasts with at most
+	 * {@code scheduling.broadcast-direct.max-concurrency} requests in flight. No
+	 * thread is parked while waiting for Qontak, nor while backing off before a
+	 * retry. Emits the outcome of each message, in completion order.
+	 */
+	public Flux<Pair<WhatsAppOutboxMessage, DeliveryOutcome>> sendOutboxMessagesToQontakAPI(
+	    List<WhatsAppOutboxMessage> messages) {
+		return Flux.fromIterable(messages)
+		    .flatMap(message -> Mono.fromCallable(() -> objectMapper.readTree(message.getRequestBody()))
+		        .flatMap(requestBody -> deliverBroadcastDirect(message, requestBody))
+		        .onErrorResume(JsonProcessingException.class, e -> {
+			        log.error("Queued broadcast direct message with ID: {} has an unreadable request body: {}",
+			            message.getId(), e.getMessage());
+			        return Mono.just(DeliveryOutcome.PERMANENT_FAILURE);
+		        }).map(outcome -> Pair.of(message, outcome)),
+		        schedulingProperties.getBroadcastDirect().getMaxConcurrency());
+	}
+
+	private Mono<DeliveryOutcome> deliverBroadcastDirect(WhatsAppOutboxMessage message, Object requestBody) {
+		return postBroadcastDirect(requestBody)
+		    .transform(qontakRetryPolicy.withRetries("broadcast direct", schedulingProperties.getBroadcastDirect(),
+		        false))
+		    .map(responseBody -> {
+			    if (Constants.SUCCESS.equals(responseBody.getStatus())) {
+				    return DeliveryOutcome.SENT;
+			    }
+			    log.error("Queued broadcast direct message with ID: {} failed, with error details: {}",
+			        message.getId(), responseBody.getError());
+			    return DeliveryOutcome.RETRYABLE_FAILURE;
+		    }).switchIfEmpty(Mono.fromSupplier(() -> {
+			    log.error("Queued broadcast direct message with ID: {} failed with no content", message.getId());
+			    return DeliveryOutcome.RETRYABLE_FAILURE;
+		    })).onErrorResume(e -> {
+			    if (isPermanentFailure(e)) {
+				    log.error("Queued broadcast direct message with ID: {} was refused, with error details: {}",
+				        message.getId(), ((WebClientResponseException) e).getResponseBodyAsString());
+				    return Mono.just(DeliveryOutcome.PERMANENT_FAILURE);
+			    }
+			    log.error("Queued broadcast direct message with ID: {} failed, caused by: {}", message.getId(),
+			        e.getMessage());
+			    return Mono.just(DeliveryOutcome.RETRYABLE_FAILURE);
+		    });
+	}
+
+	/**
+	 * A 4xx response refuses the request itself, except 401 Unauthorized (an
+	 * expired access token), 408 Request Timeout and 429 Too Many Requests.
+	 */
+	static boolean isPermanentFailure(Throwable failure) {
+		if (!(failure instanceof WebClientResponseException)) {
+			return false;
 		}
+		int statusCode = ((WebClientResponseException) failure).getRawStatusCode();
+		return statusCode >= 400 && statusCode < 500 && statusCode != 401 && statusCode != 408
+		    && statusCode != 429;
 	}
 
-	private Mono<BroadcastDirectResponse> broadcastDirect(BroadcastDirectRequest requestBody) {
-		return webClient.post().uri(qontakProperties.getApiPathBroadcastDirect()).bodyValue(requestBody)
-		    .header("Authorization", "Bearer " + qontakProperties.getAccessToken()).retrieve()
-		    .bodyToMono(BroadcastDirectResponse.class).onErrorResume(WebClientResponseException.class, ex -> {
-			    if (ex.getRawStatusCode() == 429) {
-				    return Mono.just(new BroadcastDirectResponse().withStatus(ex.getRawStatusCode()));
+	/**
+	 * Sends one direct broadcast straight to Qontak, bypassing the outbox. Emits
+	 * whether the message has been sent.
+	 */
+	public Mono<Boolean> sendBroadcastDirect(MotherIdentityWhatsAppProjection motherIdentity,
+	    BroadcastDirectRequest requestBody) {
+		return sendBroadcastDirect(motherIdentity.getFullName(), motherIdentity.getMobilePhoneNumber(), requestBody);
+	}
+
+	/**
+	 * Retried by {@link QontakRetryPolicy}, a failure given up on is logged and
+	 * counted as not sent.
+	 */
+	private Mono<Boolean> sendBroadcastDirect(String toName, String toNumber, Object requestBody) {
+		return broadcastDirect(requestBody)
+		    .transform(qontakRetryPolicy.withRetries("broadcast direct", schedulingProperties.getBroadcastDirect(),
+		        false))
+		    .map(responseBody -> {
+			    if (Constants.SUCCESS.equals(responseBody.getStatus())) {
+				    return true;
 			    }
-			    return ex.getRawStatusCode() == 422 || ex.getRawStatusCode() == 401
-			        ? Mono.just(gson.fromJson(ex.getResponseBodyAsString(), BroadcastDirectResponse.class))
-			        : Mono.error(ex);
+			    log.error(
+			        "Request broadcast direct message failed for: {}, at phone number: {}, with error details: {}",
+			        toName, toNumber, responseBody.getError());
+			    return false;
+		    }).switchIfEmpty(Mono.fromSupplier(() -> {
+			    log.error("Request broadcast direct message failed with no content for: {}, at phone number: {}",
+			        toName, toNumber);
+			    return false;
+		    })).onErrorResume(e -> {
+			    log.error("Request broadcast direct message failed for: {}, at phone number: {}, caused by: {}",
+			        toName, toNumber, e.getMessage());
+			    return Mono.just(false);
 		    });
 	}
 
-	public boolean sendBroadcastRequestToQontakAPI(BroadcastRequest requestBody) throws InterruptedException {
-		for (int i = 0; i < schedulingProperties.getBroadcastBulk().getMaxNumberOfRetries(); i++) {
-			BroadcastResponse responseBody = broadcastBulk(requestBody).block();
-			if (responseBody != null) {
-				if ("429".equalsIgnoreCase(responseBody.getStatus())) {
-					Thread.sleep(schedulingProperties.getBroadcastBulk().getDelayInMs());
-					log.debug("Retrying broadcast bulk: {}", requestBody);
-				} else if (Constants.SUCCESS.equals(responseBody.getStatus())) {
-					return true;
-				} else {
-					log.error("Request broadcast message failed for Contact List with ID: {}, with error details: {}",
-					    requestBody.getContact_list_id(), responseBody.getError());
-					return false;
-				}
-			} else {
-				log.error("Request broadcast message failed with no content for Contact List with ID: {}",
-				    requestBody.getContact_list_id());
-				return false;
-			}
+	private Mono<BroadcastDirectResponse> broadcastDirect(Object requestBody) {
+		return postBroadcastDirect(requestBody)
+		    .onErrorResume(WebClientResponseException.class,
+		        ex -> ex.getRawStatusCode() == 422 || ex.getRawStatusCode() == 401
+		            ? Mono.just(gson.fromJson(ex.getResponseBodyAsString(), BroadcastDirectResponse.class))
+		            : Mono.error(ex));
+	}
 
-		}
-		return false;
+	private Mono<BroadcastDirectResponse> postBroadcastDirect(Object requestBody) {
+		return webClient.post().uri(qontakProperties.getApiPathBroadcastDirect()).bodyValue(requestBody)
+		    .header("Authorization", "Bearer " + qontakProperties.getAccessToken()).retrieve()
+		    .bodyToMono(BroadcastDirectResponse.class);
+	}
 
+	public Mono<Boolean> sendBroadcastRequest(BroadcastRequest requestBody) {
+		return broadcastBulk(requestBody)
+		    .transform(qontakRetryPolicy.withRetries("broadcast bulk", schedulingProperties.getBroadcastBulk(),
+		        false))
+		    .map(responseBody -> {
+			    if (Constants.SUCCESS.equals(responseBody.getStatus())) {
+				    return true;
+			    }
+			    log.error("Request broadcast message failed for Contact List with ID: {}, with error details: {}",
+			        requestBody.getContact_list_id(), responseBody.getError());
+			    return false;
+		    }).switchIfEmpty(Mono.fromSupplier(() -> {
+			    log.error("Request broadcast message failed with no content for Contact List with ID: {}",
+			        requestBody.getContact_list_id());
+			    return false;
+		    })).onErrorResume(e -> {
+			    log.error("Request broadcast message failed for Contact List with ID: {}, caused by: {}",
+			        requestBody.getContact_list_id(), e.getMessage());
+			    return Mono.just(false);
+		    });
 	}
 
 	private Mono<BroadcastResponse> broadcastBulk(BroadcastRequest requestBody) {
 		return webClient.post().uri(qontakProperties.getApiPathBroadcast()).bodyValue(requestBody)
 		    .header("Authorization", "Bearer " + qontakProperties.getAccessToken()).retrieve()
-		    .bodyToMono(BroadcastResponse.class).onErrorResume(WebClientResponseException.class, ex -> {
-			    if (ex.getRawStatusCode() == 429) {
-				    return Mono.just(new BroadcastResponse().withStatus(ex.getRawStatusCode()));
-			    }
-			    return ex.getRawStatusCode() == 422 || ex.getRawStatusCode() == 401
-			        ? Mono.just(gson.fromJson(ex.getResponseBodyAsString(), BroadcastResponse.class))
-			        : Mono.error(ex);
-		    });
+		    .bodyToMono(BroadcastResponse.class)
+		    .onErrorResume(WebClientResponseException.class,
+		        ex -> ex.getRawStatusCode() == 422 || ex.getRawStatusCode() == 401
+		            ? Mono.just(gson.fromJson(ex.getResponseBodyAsString(), BroadcastResponse.class))
+		            : Mono.error(ex));
 	}
 
 	public BroadcastDirectRequest createBroadcastDirectRequestBody(MotherIdentityWhatsAppProjection motherIdentity,
@@ -0,0 +1,238 @@
+package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util;
+
+import static java.util.stream.Collectors.toList;
+import static org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.ContactListUtil.createContactListRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
+import org.sidindonesia.bidanreport.integration.qontak.domain.BulkBroadcastChunk;
+import org.sidindonesia.bidanreport.integration.qontak.domain.BulkBroadcastChunk.Status;
+import org.sidindonesia.bidanreport.integration.qontak.repository.BulkBroadcastChunkRepository;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.BroadcastRequest;
+import org.sidindonesia.bidanreport.repository.projection.MotherIdentityWhatsAppProjection;
+import org.sidindonesia.bidanreport.util.IndonesiaPhoneNumberUtil;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Sends a bulk broadcast campaign as several contact lists of at most
+ * {@code qontak.bulk-broadcast.chunk-size} recipients, recorded in the
+ * {@code bulk_broadcast_chunk} table so a campaign failing half way can be
+ * resumed without sending the chunks already sent again.
+ * <p>
+ * A chunk is the range of the phone numbers of its recipients. A recipient
+ * belongs to the first chunk whose range includes their phone number, the ones
+ * in the range of no chunk are split into chunks of their own when the campaign
+ * is resumed. Only a recipient arriving in the range of a chunk already sent
+ * misses the campaign.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class BulkBroadcastService {
+	private static final List<Status> UNFINISHED_STATUSES = List.of(Status.PENDING, Status.CONTACT_LIST_READY);
+	private final BulkBroadcastChunkRepository bulkBroadcastChunkRepository;
+	private final ContactListService contactListService;
+	private final BroadcastMessageService broadcastMessageService;
+	private final QontakProperties qontakProperties;
+	private final PlatformTransactionManager transactionManager;
+
+	public static String campaignKeyOf(String messageTemplateName, String fromTable, LocalDate campaignDate) {
+		return messageTemplateName + "/" + fromTable + "/" + campaignDate;
+	}
+
+	/**
+	 * Key of a campaign sent to the rows selected after a last ID, which stays the
+	 * same until the campaign is done and the last ID is moved.
+	 */
+	public static String campaignKeyOf(String messageTemplateName, String fromTable, long lastId) {
+		return messageTemplateName + "/" + fromTable + "/after-" + lastId;
+	}
+
+	public boolean hasUnfinishedChunks(String campaignKey) {
+		return bulkBroadcastChunkRepository.existsByCampaignKeyAndStatusIn(campaignKey, UNFINISHED_STATUSES);
+	}
+
+	/**
+	 * The first call for a campaign key splits the recipients into chunks, the
+	 * next ones only send the chunks of that split not sent yet, and the chunks of
+	 * the recipients arrived since out of the range of every chunk. Up to
+	 * {@code qontak.bulk-broadcast.max-concurrency} chunks are uploaded, awaited
+	 * and broadcast at the same time, so the next contact list is being processed
+	 * by Qontak while the previous one is broadcast.
+	 *
+	 * @param toContactListCsv   renders the contact list of a chunk
+	 * @param toBroadcastRequest creates the broadcast of a chunk from its campaign
+	 *                           name and contact list ID
+	 * @return whether every chunk left has been sent
+	 */
+	public <T extends MotherIdentityWhatsAppProjection> Mono<Boolean> broadcastInChunks(String campaignKey,
+		String campaignName, List<T> recipients, Function<List<T>, Resource> toContactListCsv,
+		BiFunction<String, String, BroadcastRequest> toBroadcastRequest) {
+		List<T> sortedRecipients = recipients.stream()
+			.sorted(Comparator.comparing(BulkBroadcastService::recipientKeyOf)).collect(toList());
+		List<BulkBroadcastChunk> chunks = findOrCreateChunks(campaignKey, sortedRecipients);
+		Map<Integer, List<T>> recipientsByChunkIndex = groupByChunkIndex(chunks, sortedRecipients);
+		List<BulkBroadcastChunk> unfinishedChunks = chunks.stream()
+			.filter(chunk -> UNFINISHED_STATUSES.contains(chunk.getStatus())).collect(toList());
+		log.info("Campaign {} has {} chunk(s) left to be sent out of {}", campaignKey, unfinishedChunks.size(),
+			chunks.size());
+
+		return Flux.fromIterable(unfinishedChunks)
+			.flatMap(
+				chunk -> sendChunk(chunk, chunks.size(), campaignName,
+					recipientsByChunkIndex.getOrDefault(chunk.getChunkIndex(), List.of()), toContactListCsv,
+					toBroadcastRequest),
+				qontakProperties.getBulkBroadcast().getMaxConcurrency())
+			.all(Boolean::booleanValue);
+	}
+
+	/**
+	 * Committed on its own, the chunks are updated from other threads afterwards.
+	 */
+	<T extends MotherIdentityWhatsAppProjection> List<BulkBroadcastChunk> findOrCreateChunks(String campaignKey,
+		List<T> sortedRecipients) {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		return transactionTemplate.execute(status -> {
+			List<BulkBroadcastChunk> chunks = bulkBroadcastChunkRepository
+				.findAllByCampaignKeyOrderByChunkIndex(campaignKey);
+			if (chunks.isEmpty()) {
+				return bulkBroadcastChunkRepository.saveAll(splitIntoChunks(campaignKey, sortedRecipients, 0));
+			}
+			List<T> leftoverRecipients = sortedRecipients.stream()
+				.filter(recipient -> findChunkOf(recipient, chunks).isEmpty()).collect(toList());
+			if (leftoverRecipients.isEmpty()) {
+				return chunks;
+			}
+			log.info("Campaign {} has {} recipient(s) out of the range of every chunk, sent in new chunk(s)",
+				campaignKey, leftoverRecipients.size());
+			List<BulkBroadcastChunk> allChunks = new ArrayList<>(chunks);
+			allChunks.addAll(bulkBroadcastChunkRepository
+				.saveAll(splitIntoChunks(campaignKey, leftoverRecipients, chunks.size())));
+			return allChunks;
+		});
+	}
+
+	private <T extends MotherIdentityWhatsAppProjection> List<BulkBroadcastChunk> splitIntoChunks(String campaignKey,
+		List<T> sortedRecipients, int firstChunkIndex) {
+		int chunkSize = qontakProperties.getBulkBroadcast().getChunkSize();
+		LocalDateTime now = LocalDateTime.now();
+		List<BulkBroadcastChunk> chunks = new ArrayList<>();
+		int from = 0;
+		while (from < sortedRecipients.size()) {
+			int to = Math.min(from + chunkSize, sortedRecipients.size());
+			// recipients sharing a phone number stay in the same chunk, as the chunk
+			// boundaries are phone numbers
+			while (to < sortedRecipients.size()
+				&& recipientKeyOf(sortedRecipients.get(to)).equals(recipientKeyOf(sortedRecipients.get(to - 1)))) {
+				to++;
+			}
+			BulkBroadcastChunk chunk = new BulkBroadcastChunk();
+			chunk.setCampaignKey(campaignKey);
+			chunk.setChunkIndex(firstChunkIndex + chunks.size());
+			chunk.setFirstRecipientKey(recipientKeyOf(sortedRecipients.get(from)));
+			chunk.setLastRecipientKey(recipientKeyOf(sortedRecipients.get(to - 1)));
+			chunk.setNumberOfRecipients(to - from);
+			chunk.setCreatedAt(now);
+			chunk.setUpdatedAt(now);
+			chunks.add(chunk);
+			from = to;
+		}
+		return chunks;
+	}
+
+	static <T extends MotherIdentityWhatsAppProjection> Map<Integer, List<T>> groupByChunkIndex(
+		List<BulkBroadcastChunk> chunks, List<T> sortedRecipients) {
+		Map<Integer, List<T>> recipientsByChunkIndex = new HashMap<>();
+		for (T recipient : sortedRecipients) {
+			findChunkOf(recipient, chunks).ifPresent(chunk -> recipientsByChunkIndex
+				.computeIfAbsent(chunk.getChunkIndex(), chunkIndex -> new ArrayList<>()).add(recipient));
+		}
+		return recipientsByChunkIndex;
+	}
+
+	/**
+	 * @param chunks ordered by chunk index
+	 */
+	private static Optional<BulkBroadcastChunk> findChunkOf(MotherIdentityWhatsAppProjection recipient,
+		List<BulkBroadcastChunk> chunks) {
+		String recipientKey = recipientKeyOf(recipient);
+		return chunks.stream().filter(chunk -> recipientKey.compareTo(chunk.getFirstRecipientKey()) >= 0
+			&& recipientKey.compareTo(chunk.getLastRecipientKey()) <= 0).findFirst();
+	}
+
+	private static String recipientKeyOf(MotherIdentityWhatsAppProjection recipient) {
+		return IndonesiaPhoneNumberUtil.sanitize(recipient.getMobilePhoneNumber());
+	}
+
+	private <T extends MotherIdentityWhatsAppProjection> Mono<Boolean> sendChunk(BulkBroadcastChunk chunk,
+		int numberOfChunks, String campaignName, List<T> chunkRecipients, Function<List<T>, Resource> toContactListCsv,
+		BiFunction<String, String, BroadcastRequest> toBroadcastRequest) {
+		if (chunkRecipients.isEmpty()) {
+			// every recipient of the chunk left the campaign since it was split
+			return save(recordAttempt(chunk, true)).thenReturn(true);
+		}
+		String chunkCampaignName = numberOfChunks > 1
+			? campaignName + " [" + (chunk.getChunkIndex() + 1) + "/" + numberOfChunks + "]"
+			: campaignName;
+
+		Mono<String> readyContactListId = chunk.getStatus() == Status.CONTACT_LIST_READY
+			? Mono.just(chunk.getContactListId())
+			: Mono.defer(() -> contactListService
+				.createContactList(
+					createContactListRequest(chunkCampaignName, toContactListCsv.apply(chunkRecipients)))
+				.filterWhen(contactListService::awaitContactListReady).flatMap(contactListId -> {
+					chunk.setContactListId(contactListId);
+					chunk.setStatus(Status.CONTACT_LIST_READY);
+					return save(chunk).thenReturn(contactListId);
+				}));
+
+		return readyContactListId
+			.flatMap(contactListId -> broadcastMessageService
+				.sendBroadcastRequest(toBroadcastRequest.apply(chunkCampaignName, contactListId)))
+			.defaultIfEmpty(false).flatMap(isSent -> save(recordAttempt(chunk, isSent)).thenReturn(isSent));
+	}
+
+	private BulkBroadcastChunk recordAttempt(BulkBroadcastChunk chunk, boolean isSent) {
+		chunk.setAttempts(chunk.getAttempts() + 1);
+		chunk.setUpdatedAt(LocalDateTime.now());
+		if (isSent) {
+			chunk.setStatus(Status.SENT);
+			log.info("Chunk {} of campaign {} with {} recipient(s) has been sent", chunk.getChunkIndex() + 1,
+				chunk.getCampaignKey(), chunk.getNumberOfRecipients());
+		} else if (chunk.getAttempts() >= qontakProperties.getBulkBroadcast().getMaxAttempts()) {
+			chunk.setStatus(Status.FAILED);
+			log.error("Chunk {} of campaign {} failed after {} attempt(s), giving up", chunk.getChunkIndex() + 1,
+				chunk.getCampaignKey(), chunk.getAttempts());
+		} else {
+			log.warn("Chunk {} of campaign {} failed, to be resumed later", chunk.getChunkIndex() + 1,
+				chunk.getCampaignKey());
+		}
+		return chunk;
+	}
+
+	private Mono<BulkBroadcastChunk> save(BulkBroadcastChunk chunk) {
+		return Mono.fromCallable(() -> bulkBroadcastChunkRepository.save(chunk))
+			.subscribeOn(Schedulers.boundedElastic());
+	}
+}
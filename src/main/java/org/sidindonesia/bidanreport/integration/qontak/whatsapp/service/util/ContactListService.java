@@ -1,8 +1,12 @@
 package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.sidindonesia.bidanreport.config.property.SchedulingProperties;
 import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
 import org.sidindonesia.bidanreport.integration.qontak.constant.Constants;
+import org.sidindonesia.bidanreport.integration.qontak.web.retry.QontakRetryPolicy;
 import org.sidindonesia.bidanreport.integration.qontak.web.response.RetrieveContactListResponse;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.ContactListRequest;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.response.CreateContactListResponse;
@@ -23,82 +27,130 @@ import reactor.core.publisher.Mono;
 @Transactional(readOnly = true)
 @Service
 public class ContactListService {
+	private static final long MIN_FIRST_CHECK_DELAY_IN_MS = 1000;
 	private final QontakProperties qontakProperties;
 	private final WebClient webClient;
 	private final Gson gson;
 	private final SchedulingProperties schedulingProperties;
+	private final QontakRetryPolicy qontakRetryPolicy;
+	/**
+	 * How long Qontak usually takes to process a contact list, learned from the
+	 * previous uploads, 0 until the first one is ready.
+	 */
+	private final AtomicLong estimatedProcessingTimeInMs = new AtomicLong();
 
-	public String sendCreateContactListRequestToQontakAPI(ContactListRequest requestBody) throws InterruptedException {
-		Mono<CreateContactListResponse> response = webClient.post().uri(qontakProperties.getApiPathContactListAsync())
+	/**
+	 * @return the ID of the created contact list, or empty when it failed
+	 */
+	public Mono<String> createContactList(ContactListRequest requestBody) {
+		return webClient.post().uri(qontakProperties.getApiPathContactListAsync())
 		    .body(BodyInserters.fromMultipartData("file", requestBody.getFile()).with("name", requestBody.getName())
 		        .with("source_type", requestBody.getSource_type()))
 		    .header("Authorization", "Bearer " + qontakProperties.getAccessToken()).retrieve()
-		    .bodyToMono(CreateContactListResponse.class).onErrorResume(WebClientResponseException.class, ex -> {
-			    if (ex.getRawStatusCode() == 429) {
-				    return Mono.just(new CreateContactListResponse().withStatus(ex.getRawStatusCode()));
+		    .bodyToMono(CreateContactListResponse.class)
+		    .onErrorResume(WebClientResponseException.class,
+		        ex -> ex.getRawStatusCode() == 422 || ex.getRawStatusCode() == 401
+		            ? Mono.just(gson.fromJson(ex.getResponseBodyAsString(), CreateContactListResponse.class))
+		            : Mono.error(ex))
+		    .transform(qontakRetryPolicy.withRetries("create contact list", schedulingProperties.getContactList(),
+		        false))
+		    .flatMap(responseBody -> {
+			    if (Constants.SUCCESS.equals(responseBody.getStatus())) {
+				    return Mono.justOrEmpty(responseBody.getData().getId());
 			    }
-			    return ex.getRawStatusCode() == 422 || ex.getRawStatusCode() == 401
-			        ? Mono.just(gson.fromJson(ex.getResponseBodyAsString(), CreateContactListResponse.class))
-			        : Mono.error(ex);
-		    });
-
-		for (int i = 0; i < schedulingProperties.getContactList().getMaxNumberOfRetries(); i++) {
-			CreateContactListResponse responseBody = response.block();
-			if (responseBody != null) {
-				if ("429".equalsIgnoreCase(responseBody.getStatus())) {
-					Thread.sleep(schedulingProperties.getContactList().getDelayInMs());
-					log.debug("Retrying create Contact List: {}", requestBody);
-				} else if (Constants.SUCCESS.equals(responseBody.getStatus())) {
-					return responseBody.getData().getId();
-				} else {
-					log.error("Request create contact list failed with error details: {}", responseBody.getError());
-				}
-			} else {
-				log.error("Request create contact list failed with no content.");
-			}
-		}
-		return null;
+			    log.error("Request create contact list failed with error details: {}", responseBody.getError());
+			    return Mono.<String>empty();
+		    }).doOnError(e -> log.error("Request create contact list failed, caused by: {}", e.getMessage()))
+		    .onErrorResume(e -> Mono.empty());
 	}
 
-	public RetrieveContactListResponse retrieveContactListRequestToQontakAPI(String contactListId) {
-		Mono<RetrieveContactListResponse> response = webClient.get()
+	/**
+	 * @return the contact list, or empty when it failed
+	 */
+	public Mono<RetrieveContactListResponse> retrieveContactList(String contactListId) {
+		return webClient.get()
 		    .uri(qontakProperties.getApiPathContactList() + "/" + contactListId)
 		    .header("Authorization", "Bearer " + qontakProperties.getAccessToken()).retrieve()
-		    .bodyToMono(RetrieveContactListResponse.class).onErrorResume(WebClientResponseException.class,
+		    .bodyToMono(RetrieveContactListResponse.class)
+		    .onErrorResume(WebClientResponseException.class,
 		        ex -> ex.getRawStatusCode() == 422 || ex.getRawStatusCode() == 401
 		            ? Mono.just(gson.fromJson(ex.getResponseBodyAsString(), RetrieveContactListResponse.class))
-		            : Mono.error(ex));
+		            : Mono.error(ex))
+		    .transform(qontakRetryPolicy.withRetries("retrieve contact list", schedulingProperties.getContactList(),
+		        true))
+		    .switchIfEmpty(Mono.fromRunnable(() -> log.error("Request retrieve contact list failed with no content.")))
+		    .flatMap(responseBody -> {
+			    if (Constants.SUCCESS.equals(responseBody.getStatus())) {
+				    return Mono.just(responseBody);
+			    }
+			    log.error("Request retrieve contact list failed with error details: {}", responseBody.getError());
+			    return Mono.<RetrieveContactListResponse>empty();
+		    }).doOnError(e -> log.error("Request retrieve contact list failed, caused by: {}", e.getMessage()))
+		    .onErrorResume(e -> Mono.empty());
+	}
 
-		RetrieveContactListResponse responseBody = response.block();
-		if (responseBody != null) {
-			if (Constants.SUCCESS.equals(responseBody.getStatus())) {
-				return responseBody;
-			} else {
-				log.error("Request retrieve contact list failed with error details: {}", responseBody.getError());
-			}
-		} else {
-			log.error("Request retrieve contact list failed with no content.");
-		}
-		return null;
+	/**
+	 * Polls Qontak on the Reactor timer until it has processed the contact list,
+	 * so no thread is held while waiting (because the API is asynchronous and
+	 * currently there is no "Create contact list synchronously"). The first
+	 * check is made once the usual processing time has passed, the next ones
+	 * back off from {@code scheduling.contact-list.initial-delay-in-ms} up to
+	 * {@code scheduling.contact-list.retrieve-delay-in-ms}. It gives up after as
+	 * long as {@code max-number-of-retries} retrieve delays.
+	 *
+	 * @return whether the contact list is ready to be broadcast to
+	 */
+	public Mono<Boolean> awaitContactListReady(String contactListId) {
+		return Mono.defer(() -> pollUntilReady(contactListId, System.nanoTime(), 0));
 	}
 
-	public boolean tryRetrieveContactListByIdMultipleTimes(String contactListId) throws InterruptedException {
-		// Give Qontak some time to process the contact list (because the API is
-		// asynchronous and currently there is no "Create contact list synchronously")
-		Thread.sleep(schedulingProperties.getContactList().getInitialDelayInMs()); // give initial 5 seconds
-		for (int i = 0; i < schedulingProperties.getContactList().getMaxNumberOfRetries(); i++) {
-			RetrieveContactListResponse response = retrieveContactListRequestToQontakAPI(contactListId);
+	private Mono<Boolean> pollUntilReady(String contactListId, long startedAtInNanos, int attempt) {
+		SchedulingProperties.RetrySchedule contactList = schedulingProperties.getContactList();
+		long timeoutInMs = contactList.getInitialDelayInMs()
+		    + contactList.getMaxNumberOfRetries() * contactList.getRetrieveDelayInMs();
+		if (Duration.ofNanos(System.nanoTime() - startedAtInNanos).toMillis() >= timeoutInMs) {
+			log.error("Contact List with ID: {} still not available after {} checks within {}ms", contactListId,
+			    attempt, timeoutInMs);
+			return Mono.just(false);
+		}
 
-			if (response != null && response.getData() != null
-			    && Constants.SUCCESS.equalsIgnoreCase(response.getData().getProgress())) {
-				return true;
+		return Mono.delay(delayBeforeCheck(attempt)).then(isContactListReady(contactListId)).flatMap(isReady -> {
+			if (isReady) {
+				learnProcessingTime(Duration.ofNanos(System.nanoTime() - startedAtInNanos).toMillis(), attempt);
+				return Mono.just(true);
 			}
+			return pollUntilReady(contactListId, startedAtInNanos, attempt + 1);
+		});
+	}
+
+	private Mono<Boolean> isContactListReady(String contactListId) {
+		return retrieveContactList(contactListId)
+		    .map(response -> response.getData() != null
+		        && Constants.SUCCESS.equalsIgnoreCase(response.getData().getProgress()))
+		    .defaultIfEmpty(false);
+	}
 
-			Thread.sleep(schedulingProperties.getContactList().getRetrieveDelayInMs());
+	private Duration delayBeforeCheck(int attempt) {
+		SchedulingProperties.RetrySchedule contactList = schedulingProperties.getContactList();
+		if (attempt == 0) {
+			long estimate = estimatedProcessingTimeInMs.get();
+			return Duration.ofMillis(estimate > 0 ? estimate : contactList.getInitialDelayInMs());
 		}
-		log.error("Bulk broadcast request failed due to Contact List not available after {} retries with interval {}ms",
-		    schedulingProperties.getContactList().getMaxNumberOfRetries(),
-		    schedulingProperties.getContactList().getRetrieveDelayInMs());
-		return false;
+		return Duration.ofMillis(Math.min(contactList.getRetrieveDelayInMs(),
+		    contactList.getInitialDelayInMs() << Math.min(attempt - 1, 20)));
+	}
+
+	/**
+	 * Ready on the first check means the list may have been ready even earlier,
+	 * so the next first check is tried a quarter sooner, otherwise the estimate
+	 * moves halfway to the time it actually took.
+	 */
+	private void learnProcessingTime(long elapsedInMs, int attempt) {
+		estimatedProcessingTimeInMs.updateAndGet(estimate -> {
+			if (attempt == 0) {
+				return Math.max(MIN_FIRST_CHECK_DELAY_IN_MS, elapsedInMs * 3 / 4);
+			}
+			return estimate > 0 ? (estimate + elapsedInMs) / 2 : elapsedInMs;
+		});
 	}
 }
@@ -1,9 +1,7 @@
 package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util;
 
-import java.nio.file.FileSystems;
-
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.ContactListRequest;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -11,10 +9,10 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class ContactListUtil {
 
-	public static ContactListRequest createContactListRequest(String campaignName, String fileName) {
+	public static ContactListRequest createContactListRequest(String campaignName, Resource file) {
 		ContactListRequest requestBody = new ContactListRequest();
 		requestBody.setName(campaignName);
-		requestBody.setFile(new FileSystemResource(FileSystems.getDefault().getPath(fileName)));
+		requestBody.setFile(file);
 		return requestBody;
 	}
 }
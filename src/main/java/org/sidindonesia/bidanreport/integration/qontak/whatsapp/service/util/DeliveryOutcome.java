@@ -0,0 +1,18 @@
+package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util;
+
+/**
+ * The outcome of sending one queued direct broadcast.
+ */
+public enum DeliveryOutcome {
+	SENT,
+	/**
+	 * Qontak could not be reached or was not able to take the message, worth
+	 * another attempt later.
+	 */
+	RETRYABLE_FAILURE,
+	/**
+	 * Qontak refused the message itself, e.g. with 422 Unprocessable Entity, it
+	 * will be refused again.
+	 */
+	PERMANENT_FAILURE
+}
@@ -1,8 +1,10 @@
 package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util;
 
+import org.sidindonesia.bidanreport.config.property.SchedulingProperties;
 import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
+import org.sidindonesia.bidanreport.integration.qontak.web.retry.QontakRetryPolicy;
 import org.sidindonesia.bidanreport.integration.qontak.web.response.FileUploadResponse;
-import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.reactive.function.BodyInserters;
@@ -21,15 +23,18 @@ public class UploadFileService {
 	private final QontakProperties qontakProperties;
 	private final WebClient webClient;
 	private final Gson gson;
+	private final SchedulingProperties schedulingProperties;
+	private final QontakRetryPolicy qontakRetryPolicy;
 
-	public FileUploadResponse uploadFileToQontak(FileSystemResource fileSystemResource) {
+	public FileUploadResponse uploadFileToQontak(Resource file) {
 		Mono<FileUploadResponse> response = webClient.post().uri(qontakProperties.getApiPathUploadFile())
-			.body(BodyInserters.fromMultipartData("file", fileSystemResource))
+			.body(BodyInserters.fromMultipartData("file", file))
 			.header("Authorization", "Bearer " + qontakProperties.getAccessToken()).retrieve()
 			.bodyToMono(FileUploadResponse.class).onErrorResume(WebClientResponseException.class,
 				ex -> ex.getRawStatusCode() == 422 || ex.getRawStatusCode() == 401
 					? Mono.just(gson.fromJson(ex.getResponseBodyAsString(), FileUploadResponse.class))
-					: Mono.error(ex));
+					: Mono.error(ex))
+			.transform(qontakRetryPolicy.withRetries("upload file", schedulingProperties.getUploadFile(), false));
 
 		return response.block();
 	}
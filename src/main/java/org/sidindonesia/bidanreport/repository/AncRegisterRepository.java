@@ -1,8 +1,54 @@
 package org.sidindonesia.bidanreport.repository;
 
+import java.util.Optional;
+
 import org.sidindonesia.bidanreport.domain.AncRegister;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AncRegisterRepository extends BaseRepository<AncRegister, Long> {
+	@Query(nativeQuery = true, value = "SELECT ar.event_id FROM {h-schema}anc_register ar "
+		+ "ORDER BY ar.event_id DESC LIMIT 1")
+	Optional<Long> findLastEventId();
+
+	/**
+	 * Upserts into {@code mother_profile} the LMP, EDD and WhatsApp consent of
+	 * the latest of the ANC registers with an event ID greater than
+	 * {@code fromEventId} up to {@code untilEventId} of every mother, unless the
+	 * one already there is later.
+	 */
+	@Modifying
+	@Query(nativeQuery = true, value = "INSERT INTO {h-schema}mother_profile AS mp "
+		+ "(mother_base_entity_id, anc_register_event_id, last_menstrual_period_date, expected_delivery_date, "
+		+ "is_consented_whatsapp) "
+		+ "SELECT DISTINCT ON (ar.mother_base_entity_id) ar.mother_base_entity_id, ar.event_id, "
+		+ "ar.last_menstrual_period_date, ar.expected_delivery_date, ar.is_consented_whatsapp "
+		+ "FROM {h-schema}anc_register ar "
+		+ "WHERE ar.event_id > ?1 AND ar.event_id <= ?2 AND ar.mother_base_entity_id IS NOT NULL "
+		+ "ORDER BY ar.mother_base_entity_id, ar.event_id DESC "
+		+ "ON CONFLICT (mother_base_entity_id) DO UPDATE SET anc_register_event_id = EXCLUDED.anc_register_event_id, "
+		+ "last_menstrual_period_date = EXCLUDED.last_menstrual_period_date, "
+		+ "expected_delivery_date = EXCLUDED.expected_delivery_date, "
+		+ "is_consented_whatsapp = EXCLUDED.is_consented_whatsapp "
+		+ "WHERE mp.anc_register_event_id IS NULL OR EXCLUDED.anc_register_event_id > mp.anc_register_event_id")
+	int upsertMotherProfileAncRegisters(long fromEventId, long untilEventId);
+
+	/**
+	 * Same as {@link #upsertMotherProfileAncRegisters(long, long)} for the height,
+	 * which is the one of the ANC register with the latest server version.
+	 */
+	@Modifying
+	@Query(nativeQuery = true, value = "INSERT INTO {h-schema}mother_profile AS mp "
+		+ "(mother_base_entity_id, height_in_cm, height_server_version_epoch) "
+		+ "SELECT DISTINCT ON (ar.mother_base_entity_id) ar.mother_base_entity_id, ar.height_in_cm, "
+		+ "ar.server_version_epoch FROM {h-schema}anc_register ar "
+		+ "WHERE ar.event_id > ?1 AND ar.event_id <= ?2 AND ar.mother_base_entity_id IS NOT NULL "
+		+ "ORDER BY ar.mother_base_entity_id, ar.server_version_epoch DESC "
+		+ "ON CONFLICT (mother_base_entity_id) DO UPDATE SET height_in_cm = EXCLUDED.height_in_cm, "
+		+ "height_server_version_epoch = EXCLUDED.height_server_version_epoch "
+		+ "WHERE mp.height_server_version_epoch IS NULL "
+		+ "OR EXCLUDED.height_server_version_epoch >= mp.height_server_version_epoch")
+	int upsertMotherProfileHeights(long fromEventId, long untilEventId);
 }
@@ -3,6 +3,7 @@ package org.sidindonesia.bidanreport.repository;
 import java.util.Optional;
 
 import org.sidindonesia.bidanreport.domain.AncVisit;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -11,4 +12,21 @@ public interface AncVisitRepository extends BaseRepository<AncVisit, Long> {
 	@Query(nativeQuery = true, value = "SELECT av.event_id FROM {h-schema}anc_visit av "
 		+ "ORDER BY av.event_id DESC LIMIT 1")
 	Optional<Long> findLastEventId();
+
+	/**
+	 * Upserts into {@code latest_anc_visit} the latest of the ANC visits with an
+	 * event ID greater than {@code fromEventId} up to {@code untilEventId} of
+	 * every mother, unless the one already there is later.
+	 */
+	@Modifying
+	@Query(nativeQuery = true, value = "INSERT INTO {h-schema}latest_anc_visit AS lav "
+		+ "(mother_base_entity_id, latest_event_id, latest_anc_date) "
+		+ "SELECT DISTINCT ON (av.mother_base_entity_id) av.mother_base_entity_id, av.event_id, av.anc_date "
+		+ "FROM {h-schema}anc_visit av WHERE av.event_id > ?1 AND av.event_id <= ?2 "
+		+ "AND av.mother_base_entity_id IS NOT NULL AND av.anc_date IS NOT NULL "
+		+ "ORDER BY av.mother_base_entity_id, av.anc_date DESC, av.event_id DESC "
+		+ "ON CONFLICT (mother_base_entity_id) DO UPDATE SET latest_event_id = EXCLUDED.latest_event_id, "
+		+ "latest_anc_date = EXCLUDED.latest_anc_date "
+		+ "WHERE (EXCLUDED.latest_anc_date, EXCLUDED.latest_event_id) > (lav.latest_anc_date, lav.latest_event_id)")
+	int upsertLatestAncVisits(long fromEventId, long untilEventId);
 }
@@ -2,6 +2,7 @@ package org.sidindonesia.bidanreport.repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.repository.NoRepositoryBean;
@@ -9,4 +10,21 @@ import org.springframework.data.repository.NoRepositoryBean;
 @NoRepositoryBean
 public interface BaseRepository<T, I> extends JpaRepository<T, I> {
 	List<T> findAllByDateCreatedBetween(LocalDateTime fromDate, LocalDateTime untilDate);
+
+	/**
+	 * Reads every row ordered by the ID column(s), e.g. {@code event_id}, one page
+	 * at a time using keyset pagination. The persistence context is cleared after
+	 * each page has been consumed, so entities of a page must not be used after
+	 * the consumer returns.
+	 *
+	 * @param pageSize     maximum number of rows per page
+	 * @param pageConsumer called once for every non-empty page
+	 */
+	void forEachPageOrderById(int pageSize, Consumer<List<T>> pageConsumer);
+
+	/**
+	 * Row count and greatest ID of the table as {@code "count:id"}, which changes
+	 * whenever rows are inserted or deleted.
+	 */
+	String getHighWaterMark();
 }
@@ -0,0 +1,98 @@
+package org.sidindonesia.bidanreport.repository;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.StreamSupport;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.PropertyAccessor;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+
+/**
+ * Repository base class registered in
+ * {@link org.sidindonesia.bidanreport.config.DatabaseConfiguration}, providing
+ * the implementation of the non-derived methods declared in
+ * {@link BaseRepository}.
+ */
+public class BaseRepositoryImpl<T, I> extends SimpleJpaRepository<T, I> {
+	private final EntityManager entityManager;
+	private final Class<T> domainClass;
+	private final List<String> idAttributeNames;
+
+	public BaseRepositoryImpl(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+		super(entityInformation, entityManager);
+		this.entityManager = entityManager;
+		this.domainClass = entityInformation.getJavaType();
+		// composite IDs have no declared order in the metamodel, sort them to get a
+		// stable keyset
+		this.idAttributeNames = StreamSupport.stream(entityInformation.getIdAttributeNames().spliterator(), false)
+			.sorted().collect(toList());
+	}
+
+	public void forEachPageOrderById(int pageSize, Consumer<List<T>> pageConsumer) {
+		List<T> page = findPageAfter(null, pageSize);
+		while (!page.isEmpty()) {
+			pageConsumer.accept(page);
+			List<Object> lastKey = getIdValues(page.get(page.size() - 1));
+			entityManager.clear();
+
+			page = page.size() < pageSize ? List.of() : findPageAfter(lastKey, pageSize);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public String getHighWaterMark() {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+		Root<T> root = query.from(domainClass);
+		query.multiselect(cb.count(root), cb.greatest(root.<Comparable>get(idAttributeNames.get(0))));
+		Object[] result = entityManager.createQuery(query).getSingleResult();
+		return result[0] + ":" + result[1];
+	}
+
+	private List<T> findPageAfter(List<Object> lastKey, int pageSize) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<T> query = cb.createQuery(domainClass);
+		Root<T> root = query.from(domainClass);
+		query.select(root).orderBy(idAttributeNames.stream().map(name -> cb.asc(root.get(name))).collect(toList()));
+		if (lastKey != null) {
+			query.where(isAfter(cb, root, lastKey));
+		}
+		return entityManager.createQuery(query).setMaxResults(pageSize).setHint(QueryHints.HINT_READONLY, true)
+			.getResultList();
+	}
+
+	/**
+	 * Row-value comparison {@code (id1, id2, ...) > (lastId1, lastId2, ...)}
+	 * written out as {@code id1 > ?1 OR (id1 = ?1 AND id2 > ?2) OR ...}.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Predicate isAfter(CriteriaBuilder cb, Root<T> root, List<Object> lastKey) {
+		List<Predicate> alternatives = new ArrayList<>();
+		List<Predicate> equalPrefix = new ArrayList<>();
+		for (int i = 0; i < idAttributeNames.size(); i++) {
+			String name = idAttributeNames.get(i);
+			List<Predicate> alternative = new ArrayList<>(equalPrefix);
+			alternative.add(cb.greaterThan(root.<Comparable>get(name), (Comparable) lastKey.get(i)));
+			alternatives.add(cb.and(alternative.toArray(new Predicate[0])));
+			equalPrefix.add(cb.equal(root.get(name), lastKey.get(i)));
+		}
+		return cb.or(alternatives.toArray(new Predicate[0]));
+	}
+
+	private List<Object> getIdValues(T entity) {
+		PropertyAccessor propertyAccessor = PropertyAccessorFactory.forDirectFieldAccess(entity);
+		return idAttributeNames.stream().map(propertyAccessor::getPropertyValue).collect(toList());
+	}
+}
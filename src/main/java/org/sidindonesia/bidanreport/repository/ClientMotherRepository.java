@@ -1,10 +1,43 @@
 package org.sidindonesia.bidanreport.repository;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 import org.sidindonesia.bidanreport.domain.ClientMother;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ClientMotherRepository extends BaseRepository<ClientMother, LocalDateTime> {
+	/**
+	 * Server versions are compared by length first, then as text, the same as
+	 * the numbers they hold.
+	 */
+	@Query(nativeQuery = true, value = "SELECT cm.server_version_epoch FROM {h-schema}client_mother cm "
+		+ "WHERE cm.server_version_epoch IS NOT NULL "
+		+ "ORDER BY length(cm.server_version_epoch) DESC, cm.server_version_epoch DESC LIMIT 1")
+	Optional<String> findLastServerVersionEpoch();
+
+	/**
+	 * Upserts into {@code mother_profile} the full name of the latest of the
+	 * clients with a server version greater than {@code fromServerVersionEpoch}
+	 * up to {@code untilServerVersionEpoch} of every mother, unless the one
+	 * already there is later.
+	 */
+	@Modifying
+	@Query(nativeQuery = true, value = "INSERT INTO {h-schema}mother_profile AS mp "
+		+ "(mother_base_entity_id, full_name, full_name_server_version_epoch) "
+		+ "SELECT DISTINCT ON (cm.base_entity_id) cm.base_entity_id, cm.full_name, cm.server_version_epoch "
+		+ "FROM {h-schema}client_mother cm "
+		+ "WHERE (length(cm.server_version_epoch), cm.server_version_epoch) > (length(?1), ?1) "
+		+ "AND (length(cm.server_version_epoch), cm.server_version_epoch) <= (length(?2), ?2) "
+		+ "AND cm.base_entity_id IS NOT NULL "
+		+ "ORDER BY cm.base_entity_id, length(cm.server_version_epoch) DESC, cm.server_version_epoch DESC "
+		+ "ON CONFLICT (mother_base_entity_id) DO UPDATE SET full_name = EXCLUDED.full_name, "
+		+ "full_name_server_version_epoch = EXCLUDED.full_name_server_version_epoch "
+		+ "WHERE mp.full_name_server_version_epoch IS NULL "
+		+ "OR (length(EXCLUDED.full_name_server_version_epoch), EXCLUDED.full_name_server_version_epoch) "
+		+ ">= (length(mp.full_name_server_version_epoch), mp.full_name_server_version_epoch)")
+	int upsertMotherProfileFullNames(String fromServerVersionEpoch, String untilServerVersionEpoch);
 }
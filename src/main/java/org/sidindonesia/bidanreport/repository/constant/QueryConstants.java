@@ -14,6 +14,20 @@ public final class QueryConstants {
 
 	private static final String INNER_JOIN_SELECT_MOTHER_BASE_ENTITY_ID_MAX_ANC_DATE_AS_LATEST_ANC_DATE = "  INNER JOIN (SELECT mother_base_entity_id, MAX(anc_date) AS latest_anc_date";
 
+	/**
+	 * The latest ANC visit of a mother, see
+	 * {@link org.sidindonesia.bidanreport.service.LatestAncVisitService}.
+	 */
+	private static final String INNER_JOIN_LATEST_ANC_VISIT_ON_AV_SUB1 = " INNER JOIN {h-schema}latest_anc_visit lav ON av_sub1.event_id = lav.latest_event_id ";
+
+	/**
+	 * The latest full name, LMP, EDD, WhatsApp consent and height of a mother, see
+	 * {@link org.sidindonesia.bidanreport.service.MotherProfileService}.
+	 */
+	private static final String LEFT_JOIN_MOTHER_PROFILE_ON_MI = " LEFT JOIN {h-schema}mother_profile mp ON mp.mother_base_entity_id = mi.mother_base_entity_id ";
+
+	private static final String LEFT_JOIN_MOTHER_PROFILE_ON_ME = " LEFT JOIN {h-schema}mother_profile mp ON mp.mother_base_entity_id = me.mother_base_entity_id ";
+
 	private static final String SELECT_MOTHER_BASE_ENTITY_ID_FROM_ANC_REGISTER = "  SELECT ar.mother_base_entity_id FROM {h-schema}anc_register ar)";
 
 	private static final String HAS_MOBILE_PHONE_NUMBER_AND_NOT_DEMO_USER = "mi_id_only.mobile_phone_number IS NOT NULL AND mi_id_only.provider_id NOT ILIKE '%demo%'";
@@ -24,24 +38,24 @@ public final class QueryConstants {
 
 	private static final String SELECT_EVENT_ID_AND_MOBILE_PHONE_NUMBER_FROM_MOTHER_IDENTITY = ""
 		+ "SELECT mi.event_id AS eventId, mi.mobile_phone_number AS mobilePhoneNumber, "
-		+ "(SELECT cm.full_name FROM {h-schema}client_mother cm "
-		+ "WHERE cm.base_entity_id = mi.mother_base_entity_id ORDER BY cm.server_version_epoch DESC LIMIT 1) AS fullName "
+		+ "mp.full_name AS fullName "
 		+ "FROM {h-schema}mother_identity mi "
+		+ "LEFT JOIN {h-schema}mother_profile mp ON mp.mother_base_entity_id = mi.mother_base_entity_id "
 		+ "WHERE mi.event_id IN (SELECT MAX(mi_id_only.event_id) OVER (PARTITION BY mi_id_only.mobile_phone_number)"
 		+ " FROM {h-schema}mother_identity mi_id_only";
 
 	private static final String SELECT_EVENT_ID_AND_MOBILE_PHONE_NUMBER_FROM_MOTHER_EDIT = ""
 		+ "SELECT me.event_id AS eventId, me.mobile_phone_number AS mobilePhoneNumber, "
-		+ "(SELECT cm.full_name FROM {h-schema}client_mother cm "
-		+ "WHERE cm.base_entity_id = me.mother_base_entity_id ORDER BY cm.server_version_epoch DESC LIMIT 1) AS fullName "
+		+ "mp.full_name AS fullName "
 		+ "FROM {h-schema}mother_edit me "
+		+ "LEFT JOIN {h-schema}mother_profile mp ON mp.mother_base_entity_id = me.mother_base_entity_id "
 		+ "WHERE me.event_id IN (SELECT MAX(me_id_only.event_id) OVER (PARTITION BY me_id_only.mother_base_entity_id)"
 		+ " FROM {h-schema}mother_edit me_id_only";
 
 	private static final String PREGNANCY_GAP_COMMA_SEPARATED_VALUES = "CONCAT_WS(',', "
 		+ "   CASE WHEN av_sub1.anc_date IS NULL THEN 'N/A' ELSE av_sub1.anc_date\\:\\:varchar END, "
 		+ "   CASE WHEN (av_sub1.gestational_age = '') IS NOT FALSE THEN 'N/A' ELSE av_sub1.gestational_age END, "
-		+ "   CASE WHEN ((SELECT height_in_cm FROM {h-schema}anc_register WHERE mother_base_entity_id = av_sub1.mother_base_entity_id ORDER BY server_version_epoch DESC LIMIT 1) = '') IS NOT FALSE THEN '-' ELSE (SELECT height_in_cm FROM {h-schema}anc_register WHERE mother_base_entity_id = av_sub1.mother_base_entity_id ORDER BY server_version_epoch DESC LIMIT 1) END, "
+		+ "   CASE WHEN (mp.height_in_cm = '') IS NOT FALSE THEN '-' ELSE mp.height_in_cm END, "
 		+ "   CASE WHEN (av_sub1.weight_in_kg = '') IS NOT FALSE THEN '-' ELSE av_sub1.weight_in_kg END, "
 		+ "   CASE WHEN (av_sub1.mid_upper_arm_circumference_in_cm = '') IS NOT FALSE THEN '-' ELSE av_sub1.mid_upper_arm_circumference_in_cm END, "
 		+ "   CASE WHEN (av_sub1.vital_sign_systolic_blood_pressure = '') IS NOT FALSE THEN '-' ELSE av_sub1.vital_sign_systolic_blood_pressure END, "
@@ -81,97 +95,53 @@ public final class QueryConstants {
 		+ "  AND me_duplicate.event_id <= ?1 AND me_duplicate.provider_id NOT ILIKE '%demo%')";
 
 	public static final String MOTHER_IDENTITY_NATIVE_QUERY_FIND_ALL_WITH_LATEST_ANC_VISIT_DATE_IS_CURRENT_DATE_MINUS_ANC_VISIT_INTERVAL_IN_DAYS_PLUS_VISIT_REMINDER_INTERVAL_IN_DAYS = ""
-		+ "SELECT " + " mi.event_id AS eventId, " + " mi.mobile_phone_number AS mobilePhoneNumber, " + " ( "
-		+ " SELECT " + "  cm.full_name " + " FROM " + "  {h-schema}client_mother cm " + " WHERE "
-		+ "  cm.base_entity_id = mi.mother_base_entity_id " + " ORDER BY " + "  cm.server_version_epoch DESC "
-		+ " LIMIT 1) AS fullName, " + " ( " + " SELECT " + "  CASE "
+		+ "SELECT " + " mi.event_id AS eventId, " + " mi.mobile_phone_number AS mobilePhoneNumber, "
+		+ " mi.mother_base_entity_id AS motherBaseEntityId, " + " mp.full_name AS fullName, " + " ( " + " SELECT " + "  CASE "
 		+ "   WHEN (av_sub1.anc_visit_number = '') IS NOT FALSE THEN '0' " + "   ELSE av_sub1.anc_visit_number "
-		+ "  END " + " FROM " + "  {h-schema}anc_visit av_sub1 " + " INNER JOIN ( " + "  SELECT "
-		+ "   MAX(av_sub2.event_id) AS latest_event_id " + "  FROM " + "   {h-schema}anc_visit av_sub2 "
-		+ "  INNER JOIN ( " + "   SELECT " + "    mother_base_entity_id, " + "    MAX(anc_date) AS latest_anc_date "
-		+ "   FROM " + "    {h-schema}anc_visit av_sub3 " + "   GROUP BY "
-		+ "    mother_base_entity_id) av_max_anc_date ON "
-		+ "   (av_sub2.mother_base_entity_id = av_max_anc_date.mother_base_entity_id "
-		+ "    AND av_sub2.anc_date = av_max_anc_date.latest_anc_date) " + "  GROUP BY "
-		+ "   av_sub2.mother_base_entity_id, " + "   av_sub2.anc_date) av_max_event_id ON "
-		+ "  av_sub1.event_id = av_max_event_id.latest_event_id " + " WHERE "
-		+ "  av_sub1.mother_base_entity_id = mi.mother_base_entity_id) AS latestAncVisitNumber, " + " ( " + SELECT + PREGNANCY_GAP_COMMA_SEPARATED_VALUES + FROM
-		+ "  {h-schema}anc_visit av_sub1 " + " INNER JOIN ( " + SELECT + "   MAX(av_sub2.event_id) AS latest_event_id "
-		+ FROM + "   {h-schema}anc_visit av_sub2 " + "  INNER JOIN ( " + "   SELECT " + "    mother_base_entity_id, "
-		+ "    MAX(anc_date) AS latest_anc_date " + "   FROM " + "    {h-schema}anc_visit av_sub3 " + "   GROUP BY "
-		+ "    mother_base_entity_id) av_max_anc_date ON "
-		+ "   (av_sub2.mother_base_entity_id = av_max_anc_date.mother_base_entity_id "
-		+ "    AND av_sub2.anc_date = av_max_anc_date.latest_anc_date) " + "  GROUP BY "
-		+ "   av_sub2.mother_base_entity_id, " + "   av_sub2.anc_date) av_max_event_id ON "
-		+ "  av_sub1.event_id = av_max_event_id.latest_event_id " + WHERE
-		+ "  av_sub1.mother_base_entity_id = mi.mother_base_entity_id "
+		+ "  END " + " FROM " + "  {h-schema}anc_visit av_sub1 " + INNER_JOIN_LATEST_ANC_VISIT_ON_AV_SUB1 + " WHERE "
+		+ "  lav.mother_base_entity_id = mi.mother_base_entity_id) AS latestAncVisitNumber, " + " ( " + SELECT + PREGNANCY_GAP_COMMA_SEPARATED_VALUES + FROM
+		+ "  {h-schema}anc_visit av_sub1 " + INNER_JOIN_LATEST_ANC_VISIT_ON_AV_SUB1 + WHERE
+		+ "  lav.mother_base_entity_id = mi.mother_base_entity_id "
 		+ "  AND av_sub1.date_created >= current_date - INTERVAL '1 day' * ?1) AS pregnancyGapCommaSeparatedValues " + "FROM "
-		+ " {h-schema}mother_identity mi " + "WHERE " + " mi.event_id IN ( " + " SELECT "
+		+ " {h-schema}mother_identity mi " + LEFT_JOIN_MOTHER_PROFILE_ON_MI + "WHERE " + " mi.event_id IN ( " + " SELECT "
 		+ "  MAX(mi_id_only.event_id) OVER (PARTITION BY mi_id_only.mobile_phone_number) " + " FROM "
-		+ "  {h-schema}mother_identity mi_id_only " + " INNER JOIN {h-schema}anc_register ar ON "
-		+ "  mi_id_only.mother_base_entity_id = ar.mother_base_entity_id " + " INNER JOIN ( " + "  SELECT "
-		+ "   MAX(ar_sub.event_id) AS latest_event_id " + "  FROM " + "   {h-schema}anc_register ar_sub "
-		+ "  GROUP BY " + "   ar_sub.mother_base_entity_id) ar_max_event_id ON "
-		+ "  ar.event_id = ar_max_event_id.latest_event_id " + " INNER JOIN ( " + "  SELECT "
-		+ "   mother_base_entity_id, " + "   MAX(anc_date) AS latest_anc_date " + "  FROM " + "   {h-schema}anc_visit "
-		+ "  GROUP BY " + "   1) av ON " + "  mi_id_only.mother_base_entity_id = av.mother_base_entity_id " + " WHERE "
+		+ "  {h-schema}mother_identity mi_id_only " + " INNER JOIN {h-schema}mother_profile mp_ar ON "
+		+ "  mi_id_only.mother_base_entity_id = mp_ar.mother_base_entity_id AND mp_ar.anc_register_event_id IS NOT NULL " + " INNER JOIN {h-schema}latest_anc_visit av ON " + "  mi_id_only.mother_base_entity_id = av.mother_base_entity_id " + " WHERE "
 		+ "  mi_id_only.mobile_phone_number IS NOT NULL " + "  AND mi_id_only.provider_id NOT ILIKE '%demo%' "
 		+ "  AND av.latest_anc_date = current_date - INTERVAL '1 day' * ?1 + INTERVAL '1 day' * ?2 "
-		+ "  AND (ar.is_consented_whatsapp IS NULL " + "   OR ar.is_consented_whatsapp != 'Tidak') " + "  AND "
+		+ "  AND (mp_ar.is_consented_whatsapp IS NULL " + "   OR mp_ar.is_consented_whatsapp != 'Tidak') " + "  AND "
 		+ "  (CASE " + "   WHEN (EXISTS ( " + "   SELECT " + "    1 " + "   FROM " + "    {h-schema}anc_close ac "
-		+ "   WHERE " + "    ac.mother_base_entity_id = ar.mother_base_entity_id)) THEN ( " + "   NOT (( "
+		+ "   WHERE " + "    ac.mother_base_entity_id = mp_ar.mother_base_entity_id)) THEN ( " + "   NOT (( "
 		+ "   SELECT " + "    ac.date_created " + "   FROM " + "    {h-schema}anc_close ac " + "   WHERE "
-		+ "    ac.mother_base_entity_id = ar.mother_base_entity_id " + "   ORDER BY " + "    ac.event_id DESC, "
+		+ "    ac.mother_base_entity_id = mp_ar.mother_base_entity_id " + "   ORDER BY " + "    ac.event_id DESC, "
 		+ "    ac.server_version_epoch DESC "
-		+ "   LIMIT 1) BETWEEN ar.last_menstrual_period_date AND ar.expected_delivery_date)) " + "   ELSE TRUE "
+		+ "   LIMIT 1) BETWEEN mp_ar.last_menstrual_period_date AND mp_ar.expected_delivery_date)) " + "   ELSE TRUE "
 		+ "  END)) " + "ORDER BY " + " mi.event_id";
 
 	public static final String MOTHER_EDIT_NATIVE_QUERY_FIND_ALL_WITH_LATEST_ANC_VISIT_DATE_IS_CURRENT_DATE_MINUS_ANC_VISIT_INTERVAL_IN_DAYS_PLUS_VISIT_REMINDER_INTERVAL_IN_DAYS = ""
-		+ "SELECT " + " me.event_id AS eventId, " + " me.mobile_phone_number AS mobilePhoneNumber, " + " ( "
-		+ " SELECT " + "  cm.full_name " + " FROM " + "  {h-schema}client_mother cm " + " WHERE "
-		+ "  cm.base_entity_id = me.mother_base_entity_id " + " ORDER BY " + "  cm.server_version_epoch DESC "
-		+ " LIMIT 1) AS fullName, " + " ( " + " SELECT " + "  CASE "
+		+ "SELECT " + " me.event_id AS eventId, " + " me.mobile_phone_number AS mobilePhoneNumber, "
+		+ " me.mother_base_entity_id AS motherBaseEntityId, " + " mp.full_name AS fullName, " + " ( " + " SELECT " + "  CASE "
 		+ "   WHEN (av_sub1.anc_visit_number = '') IS NOT FALSE THEN '0' " + "   ELSE av_sub1.anc_visit_number "
-		+ "  END " + " FROM " + "  {h-schema}anc_visit av_sub1 " + " INNER JOIN ( " + "  SELECT "
-		+ "   MAX(av_sub2.event_id) AS latest_event_id " + "  FROM " + "   {h-schema}anc_visit av_sub2 "
-		+ "  INNER JOIN ( " + "   SELECT " + "    mother_base_entity_id, " + "    MAX(anc_date) AS latest_anc_date "
-		+ "   FROM " + "    {h-schema}anc_visit av_sub3 " + "   GROUP BY "
-		+ "    mother_base_entity_id) av_max_anc_date ON "
-		+ "   (av_sub2.mother_base_entity_id = av_max_anc_date.mother_base_entity_id "
-		+ "    AND av_sub2.anc_date = av_max_anc_date.latest_anc_date) " + "  GROUP BY "
-		+ "   av_sub2.mother_base_entity_id, " + "   av_sub2.anc_date) av_max_event_id ON "
-		+ "  av_sub1.event_id = av_max_event_id.latest_event_id " + " WHERE "
-		+ "  av_sub1.mother_base_entity_id = me.mother_base_entity_id) AS latestAncVisitNumber, " + " ( " + SELECT + PREGNANCY_GAP_COMMA_SEPARATED_VALUES + FROM
-		+ "  {h-schema}anc_visit av_sub1 " + " INNER JOIN ( " + SELECT + "   MAX(av_sub2.event_id) AS latest_event_id "
-		+ FROM + "   {h-schema}anc_visit av_sub2 " + "  INNER JOIN ( " + "   SELECT " + "    mother_base_entity_id, "
-		+ "    MAX(anc_date) AS latest_anc_date " + "   FROM " + "    {h-schema}anc_visit av_sub3 " + "   GROUP BY "
-		+ "    mother_base_entity_id) av_max_anc_date ON "
-		+ "   (av_sub2.mother_base_entity_id = av_max_anc_date.mother_base_entity_id "
-		+ "    AND av_sub2.anc_date = av_max_anc_date.latest_anc_date) " + "  GROUP BY "
-		+ "   av_sub2.mother_base_entity_id, " + "   av_sub2.anc_date) av_max_event_id ON "
-		+ "  av_sub1.event_id = av_max_event_id.latest_event_id " + WHERE
-		+ "  av_sub1.mother_base_entity_id = me.mother_base_entity_id "
+		+ "  END " + " FROM " + "  {h-schema}anc_visit av_sub1 " + INNER_JOIN_LATEST_ANC_VISIT_ON_AV_SUB1 + " WHERE "
+		+ "  lav.mother_base_entity_id = me.mother_base_entity_id) AS latestAncVisitNumber, " + " ( " + SELECT + PREGNANCY_GAP_COMMA_SEPARATED_VALUES + FROM
+		+ "  {h-schema}anc_visit av_sub1 " + INNER_JOIN_LATEST_ANC_VISIT_ON_AV_SUB1 + WHERE
+		+ "  lav.mother_base_entity_id = me.mother_base_entity_id "
 		+ "  AND av_sub1.date_created >= current_date - INTERVAL '1 day' * ?1) AS pregnancyGapCommaSeparatedValues " + "FROM "
-		+ " {h-schema}mother_edit me " + "WHERE " + " me.event_id IN ( " + " SELECT "
+		+ " {h-schema}mother_edit me " + LEFT_JOIN_MOTHER_PROFILE_ON_ME + "WHERE " + " me.event_id IN ( " + " SELECT "
 		+ "  MAX(me_id_only.event_id) OVER (PARTITION BY me_id_only.mother_base_entity_id) " + " FROM "
-		+ "  {h-schema}mother_edit me_id_only " + " INNER JOIN {h-schema}anc_register ar ON "
-		+ "  me_id_only.mother_base_entity_id = ar.mother_base_entity_id " + " INNER JOIN ( " + "  SELECT "
-		+ "   MAX(ar_sub.event_id) AS latest_event_id " + "  FROM " + "   {h-schema}anc_register ar_sub "
-		+ "  GROUP BY " + "   ar_sub.mother_base_entity_id) ar_max_event_id ON "
-		+ "  ar.event_id = ar_max_event_id.latest_event_id " + " INNER JOIN ( " + "  SELECT "
-		+ "   mother_base_entity_id, " + "   MAX(anc_date) AS latest_anc_date " + "  FROM " + "   {h-schema}anc_visit "
-		+ "  GROUP BY " + "   1) av ON " + "  me_id_only.mother_base_entity_id = av.mother_base_entity_id " + " WHERE "
+		+ "  {h-schema}mother_edit me_id_only " + " INNER JOIN {h-schema}mother_profile mp_ar ON "
+		+ "  me_id_only.mother_base_entity_id = mp_ar.mother_base_entity_id AND mp_ar.anc_register_event_id IS NOT NULL " + " INNER JOIN {h-schema}latest_anc_visit av ON " + "  me_id_only.mother_base_entity_id = av.mother_base_entity_id " + " WHERE "
 		+ "  me_id_only.mobile_phone_number IS NOT NULL " + "  AND me_id_only.provider_id NOT ILIKE '%demo%' "
 		+ "  AND me_id_only.mother_base_entity_id IN ( " + "  SELECT " + "   mi.mother_base_entity_id " + "  FROM "
 		+ "   {h-schema}mother_identity mi " + "  WHERE " + "   mi.mobile_phone_number IS NULL) "
 		+ "  AND av.latest_anc_date = current_date - INTERVAL '1 day' * ?1 + INTERVAL '1 day' * ?2 "
-		+ "  AND (ar.is_consented_whatsapp IS NULL " + "   OR ar.is_consented_whatsapp != 'Tidak') " + "  AND "
+		+ "  AND (mp_ar.is_consented_whatsapp IS NULL " + "   OR mp_ar.is_consented_whatsapp != 'Tidak') " + "  AND "
 		+ "  (CASE " + "   WHEN (EXISTS ( " + "   SELECT " + "    1 " + "   FROM " + "    {h-schema}anc_close ac "
-		+ "   WHERE " + "    ac.mother_base_entity_id = ar.mother_base_entity_id)) THEN ( " + "   NOT (( "
+		+ "   WHERE " + "    ac.mother_base_entity_id = mp_ar.mother_base_entity_id)) THEN ( " + "   NOT (( "
 		+ "   SELECT " + "    ac.date_created " + "   FROM " + "    {h-schema}anc_close ac " + "   WHERE "
-		+ "    ac.mother_base_entity_id = ar.mother_base_entity_id " + "   ORDER BY " + "    ac.event_id DESC, "
+		+ "    ac.mother_base_entity_id = mp_ar.mother_base_entity_id " + "   ORDER BY " + "    ac.event_id DESC, "
 		+ "    ac.server_version_epoch DESC "
-		+ "   LIMIT 1) BETWEEN ar.last_menstrual_period_date AND ar.expected_delivery_date)) " + "   ELSE TRUE "
+		+ "   LIMIT 1) BETWEEN mp_ar.last_menstrual_period_date AND mp_ar.expected_delivery_date)) " + "   ELSE TRUE "
 		+ "  END)) " + "ORDER BY " + " me.event_id";
 
 	// unused
@@ -193,21 +163,11 @@ public final class QueryConstants {
 		+ " AND av.latest_anc_date = current_date - INTERVAL '1 day' * ?1) ORDER BY me.event_id";
 
 	public static final String MOTHER_IDENTITY_NATIVE_QUERY_FIND_ALL_WITH_LATEST_ANC_VISIT_PREGNANCY_GAP = ""
-		+ "SELECT " + " mi.event_id AS eventId, " + " mi.mobile_phone_number AS mobilePhoneNumber, " + " ( " + SELECT
-		+ "  cm.full_name " + FROM + "  {h-schema}client_mother cm " + WHERE
-		+ "  cm.base_entity_id = mi.mother_base_entity_id " + " ORDER BY " + "  cm.server_version_epoch DESC "
-		+ " LIMIT 1) AS fullName, " + " ( " + SELECT + PREGNANCY_GAP_COMMA_SEPARATED_VALUES + FROM
-		+ "  {h-schema}anc_visit av_sub1 " + " INNER JOIN ( " + SELECT + "   MAX(av_sub2.event_id) AS latest_event_id "
-		+ FROM + "   {h-schema}anc_visit av_sub2 " + "  INNER JOIN ( " + "   SELECT " + "    mother_base_entity_id, "
-		+ "    MAX(anc_date) AS latest_anc_date " + "   FROM " + "    {h-schema}anc_visit av_sub3 " + "   GROUP BY "
-		+ "    mother_base_entity_id) av_max_anc_date ON "
-		+ "   (av_sub2.mother_base_entity_id = av_max_anc_date.mother_base_entity_id "
-		+ "    AND av_sub2.anc_date = av_max_anc_date.latest_anc_date) " + "  GROUP BY "
-		+ "   av_sub2.mother_base_entity_id, " + "   av_sub2.anc_date) av_max_event_id ON "
-		+ "  av_sub1.event_id = av_max_event_id.latest_event_id " + WHERE
-		+ "  av_sub1.mother_base_entity_id = mi.mother_base_entity_id "
+		+ "SELECT " + " mi.event_id AS eventId, " + " mi.mobile_phone_number AS mobilePhoneNumber, " + " mp.full_name AS fullName, " + " ( " + SELECT + PREGNANCY_GAP_COMMA_SEPARATED_VALUES + FROM
+		+ "  {h-schema}anc_visit av_sub1 " + INNER_JOIN_LATEST_ANC_VISIT_ON_AV_SUB1 + WHERE
+		+ "  lav.mother_base_entity_id = mi.mother_base_entity_id "
 		+ "  AND av_sub1.event_id > ?1) AS pregnancyGapCommaSeparatedValues " + "FROM "
-		+ " {h-schema}mother_identity mi " + "WHERE " + " mi.event_id IN ( " + SELECT + "  MAX(mi_id_only.event_id) "
+		+ " {h-schema}mother_identity mi " + LEFT_JOIN_MOTHER_PROFILE_ON_MI + "WHERE " + " mi.event_id IN ( " + SELECT + "  MAX(mi_id_only.event_id) "
 		+ FROM + "  {h-schema}mother_identity mi_id_only " + " INNER JOIN {h-schema}anc_visit av ON "
 		+ "  mi_id_only.mother_base_entity_id = av.mother_base_entity_id " + WHERE
 		+ "  mi_id_only.mobile_phone_number IS NOT NULL " + "  AND mi_id_only.provider_id NOT ILIKE '%demo%' "
@@ -217,20 +177,10 @@ public final class QueryConstants {
 		+ "  mi_id_only.mobile_phone_number) " + "ORDER BY " + " mi.event_id";
 
 	public static final String MOTHER_EDIT_NATIVE_QUERY_FIND_ALL_WITH_LATEST_ANC_VISIT_PREGNANCY_GAP = "" + "SELECT "
-		+ " me.event_id AS eventId, " + " me.mobile_phone_number AS mobilePhoneNumber, " + " ( " + SELECT
-		+ "  cm.full_name " + FROM + "  {h-schema}client_mother cm " + WHERE
-		+ "  cm.base_entity_id = me.mother_base_entity_id " + " ORDER BY " + "  cm.server_version_epoch DESC "
-		+ " LIMIT 1) AS fullName, " + " ( " + SELECT + PREGNANCY_GAP_COMMA_SEPARATED_VALUES + FROM
-		+ "  {h-schema}anc_visit av_sub1 " + " INNER JOIN ( " + SELECT + "   MAX(av_sub2.event_id) AS latest_event_id "
-		+ FROM + "   {h-schema}anc_visit av_sub2 " + "  INNER JOIN ( " + "   SELECT " + "    mother_base_entity_id, "
-		+ "    MAX(anc_date) AS latest_anc_date " + "   FROM " + "    {h-schema}anc_visit av_sub3 " + "   GROUP BY "
-		+ "    mother_base_entity_id) av_max_anc_date ON "
-		+ "   (av_sub2.mother_base_entity_id = av_max_anc_date.mother_base_entity_id "
-		+ "    AND av_sub2.anc_date = av_max_anc_date.latest_anc_date) " + "  GROUP BY "
-		+ "   av_sub2.mother_base_entity_id, " + "   av_sub2.anc_date) av_max_event_id ON "
-		+ "  av_sub1.event_id = av_max_event_id.latest_event_id " + WHERE
-		+ "  av_sub1.mother_base_entity_id = me.mother_base_entity_id "
-		+ "  AND av_sub1.event_id > ?1) AS pregnancyGapCommaSeparatedValues " + "FROM " + " {h-schema}mother_edit me "
+		+ " me.event_id AS eventId, " + " me.mobile_phone_number AS mobilePhoneNumber, " + " mp.full_name AS fullName, " + " ( " + SELECT + PREGNANCY_GAP_COMMA_SEPARATED_VALUES + FROM
+		+ "  {h-schema}anc_visit av_sub1 " + INNER_JOIN_LATEST_ANC_VISIT_ON_AV_SUB1 + WHERE
+		+ "  lav.mother_base_entity_id = me.mother_base_entity_id "
+		+ "  AND av_sub1.event_id > ?1) AS pregnancyGapCommaSeparatedValues " + "FROM " + " {h-schema}mother_edit me " + LEFT_JOIN_MOTHER_PROFILE_ON_ME
 		+ "WHERE " + " me.event_id IN ( " + SELECT + "  MAX(me_id_only.event_id) " + FROM
 		+ "  {h-schema}mother_edit me_id_only " + " INNER JOIN {h-schema}anc_visit av ON "
 		+ "  me_id_only.mother_base_entity_id = av.mother_base_entity_id " + WHERE
@@ -243,76 +193,49 @@ public final class QueryConstants {
 		+ "  me_id_only.mobile_phone_number) " + "ORDER BY " + " me.event_id";
 
 	public static final String MOTHER_IDENTITY_NATIVE_QUERY_FIND_ALL_WITH_LAST_MENSTRUAL_PERIOD_DATE_NO_EARLIER_THAN_41_WEEKS_AGO_OR_EXPECTED_DELIVERY_DATE_IS_STILL_IN_THE_FUTURE = ""
-		+ "SELECT " + " mi.event_id AS eventId, " + " mi.mobile_phone_number AS mobilePhoneNumber, " + " ( "
-		+ " SELECT " + "  cm.full_name " + " FROM " + "  {h-schema}client_mother cm " + " WHERE "
-		+ "  cm.base_entity_id = mi.mother_base_entity_id " + " ORDER BY " + "  cm.server_version_epoch DESC "
-		+ " LIMIT 1) AS fullName, " + " ( " + " SELECT " + "  CASE "
+		+ "SELECT " + " mi.event_id AS eventId, " + " mi.mobile_phone_number AS mobilePhoneNumber, " + " mp.full_name AS fullName, " + " ( " + " SELECT " + "  CASE "
 		+ "   WHEN calculated.gestational_age >= 29 THEN '3' " + "   ELSE " + "   (CASE "
 		+ "    WHEN (calculated.gestational_age >= 13 " + "     AND calculated.gestational_age <= 28) THEN '2' "
 		+ "    ELSE " + "    (CASE " + "     WHEN (calculated.gestational_age >= 0 "
 		+ "      AND calculated.gestational_age <= 12) THEN '1' " + "     ELSE '-' " + "    END) " + "   END) "
-		+ "  END " + " FROM " + "  ( " + "  SELECT "
-		+ "   ((CURRENT_DATE - ar_sub.last_menstrual_period_date) / 7) AS gestational_age " + "  FROM "
-		+ "   {h-schema}anc_register ar_sub " + "  WHERE "
-		+ "   mi.mother_base_entity_id = ar_sub.mother_base_entity_id " + "  ORDER BY " + "   ar_sub.event_id DESC, "
-		+ "   ar_sub.last_menstrual_period_date DESC " + "  LIMIT 1) calculated) AS pregnancyTrimester, " + " ( "
-		+ " SELECT " + "  ((CURRENT_DATE - ar_sub1.last_menstrual_period_date) / 7) " + " FROM "
-		+ "  {h-schema}anc_register ar_sub1 " + " WHERE "
-		+ "  mi.mother_base_entity_id = ar_sub1.mother_base_entity_id " + " ORDER BY " + "  ar_sub1.event_id DESC, "
-		+ "  ar_sub1.last_menstrual_period_date DESC " + " LIMIT 1) AS calculatedGestationalAge " + "FROM "
-		+ " {h-schema}mother_identity mi " + "WHERE " + " mi.event_id IN ( " + " SELECT "
+		+ "  END " + " FROM " + "  (SELECT ((CURRENT_DATE - mp.last_menstrual_period_date) / 7) AS gestational_age) calculated) AS pregnancyTrimester, " + " ((CURRENT_DATE - mp.last_menstrual_period_date) / 7) AS calculatedGestationalAge " + "FROM "
+		+ " {h-schema}mother_identity mi " + LEFT_JOIN_MOTHER_PROFILE_ON_MI + "WHERE " + " mi.event_id IN ( " + " SELECT "
 		+ "  MAX(mi_id_only.event_id) " + " FROM " + "  {h-schema}mother_identity mi_id_only "
-		+ " INNER JOIN {h-schema}anc_register ar ON " + "  mi_id_only.mother_base_entity_id = ar.mother_base_entity_id "
-		+ " INNER JOIN ( " + "  SELECT " + "   MAX(ar_sub.event_id) AS latest_event_id " + "  FROM "
-		+ "   {h-schema}anc_register ar_sub " + "  GROUP BY " + "   ar_sub.mother_base_entity_id) ar_max_event_id ON "
-		+ "  ar.event_id = ar_max_event_id.latest_event_id " + " WHERE "
+		+ " INNER JOIN {h-schema}mother_profile mp_ar ON "
+		+ "  mi_id_only.mother_base_entity_id = mp_ar.mother_base_entity_id AND mp_ar.anc_register_event_id IS NOT NULL " + " WHERE "
 		+ "  mi_id_only.mobile_phone_number IS NOT NULL " + "  AND mi_id_only.provider_id NOT ILIKE '%demo%' " + "  AND "
 		+ "  (CASE " + "   WHEN (EXISTS ( " + "   SELECT " + "    1 " + "   FROM " + "    {h-schema}anc_close ac "
-		+ "   WHERE " + "    ac.mother_base_entity_id = ar.mother_base_entity_id)) THEN ( " + "    NOT (( "
+		+ "   WHERE " + "    ac.mother_base_entity_id = mp_ar.mother_base_entity_id)) THEN ( " + "    NOT (( "
 		+ "   SELECT " + "    ac.date_created " + "   FROM " + "    {h-schema}anc_close ac " + "   WHERE "
-		+ "    ac.mother_base_entity_id = ar.mother_base_entity_id " + "   ORDER BY " + "    ac.event_id DESC, "
+		+ "    ac.mother_base_entity_id = mp_ar.mother_base_entity_id " + "   ORDER BY " + "    ac.event_id DESC, "
 		+ "    ac.server_version_epoch DESC "
-		+ "   LIMIT 1) BETWEEN ar.last_menstrual_period_date AND ar.expected_delivery_date)) " + "   ELSE TRUE "
-		+ "  END) " + "  AND ((ar.last_menstrual_period_date >= (CURRENT_DATE - INTERVAL '41 weeks')) "
-		+ "   OR (ar.expected_delivery_date > CURRENT_DATE)) " + "  AND (ar.is_consented_whatsapp IS NULL "
-		+ "   OR ar.is_consented_whatsapp != 'Tidak') " + "  GROUP BY " + "  mi_id_only.mobile_phone_number) "
+		+ "   LIMIT 1) BETWEEN mp_ar.last_menstrual_period_date AND mp_ar.expected_delivery_date)) " + "   ELSE TRUE "
+		+ "  END) " + "  AND ((mp_ar.last_menstrual_period_date >= (CURRENT_DATE - INTERVAL '41 weeks')) "
+		+ "   OR (mp_ar.expected_delivery_date > CURRENT_DATE)) " + "  AND (mp_ar.is_consented_whatsapp IS NULL "
+		+ "   OR mp_ar.is_consented_whatsapp != 'Tidak') " + "  GROUP BY " + "  mi_id_only.mobile_phone_number) "
 		+ "ORDER BY " + " mi.event_id";
 
 	public static final String MOTHER_EDIT_NATIVE_QUERY_FIND_ALL_WITH_LAST_MENSTRUAL_PERIOD_DATE_NO_EARLIER_THAN_41_WEEKS_AGO_OR_EXPECTED_DELIVERY_DATE_IS_STILL_IN_THE_FUTURE = ""
-		+ "SELECT " + " me.event_id AS eventId, " + " me.mobile_phone_number AS mobilePhoneNumber, " + " ( "
-		+ " SELECT " + "  cm.full_name " + " FROM " + "  {h-schema}client_mother cm " + " WHERE "
-		+ "  cm.base_entity_id = me.mother_base_entity_id " + " ORDER BY " + "  cm.server_version_epoch DESC "
-		+ " LIMIT 1) AS fullName, " + " ( " + " SELECT " + "  CASE "
+		+ "SELECT " + " me.event_id AS eventId, " + " me.mobile_phone_number AS mobilePhoneNumber, " + " mp.full_name AS fullName, " + " ( " + " SELECT " + "  CASE "
 		+ "   WHEN calculated.gestational_age >= 29 THEN '3' " + "   ELSE " + "   (CASE "
 		+ "    WHEN (calculated.gestational_age >= 13 " + "     AND calculated.gestational_age <= 28) THEN '2' "
 		+ "    ELSE " + "    (CASE " + "     WHEN (calculated.gestational_age >= 0 "
 		+ "      AND calculated.gestational_age <= 12) THEN '1' " + "     ELSE '-' " + "    END) " + "   END) "
-		+ "  END " + " FROM " + "  ( " + "  SELECT "
-		+ "   ((CURRENT_DATE - ar_sub.last_menstrual_period_date) / 7) AS gestational_age " + "  FROM "
-		+ "   {h-schema}anc_register ar_sub " + "  WHERE "
-		+ "   me.mother_base_entity_id = ar_sub.mother_base_entity_id " + "  ORDER BY " + "   ar_sub.event_id DESC, "
-		+ "   ar_sub.last_menstrual_period_date DESC " + "  LIMIT 1) calculated) AS pregnancyTrimester, " + " ( "
-		+ " SELECT " + "  ((CURRENT_DATE - ar_sub1.last_menstrual_period_date) / 7) " + " FROM "
-		+ "  {h-schema}anc_register ar_sub1 " + " WHERE "
-		+ "  me.mother_base_entity_id = ar_sub1.mother_base_entity_id " + " ORDER BY " + "  ar_sub1.event_id DESC, "
-		+ "  ar_sub1.last_menstrual_period_date DESC " + " LIMIT 1) AS calculatedGestationalAge " + "FROM "
-		+ " {h-schema}mother_edit me " + "WHERE " + " me.event_id IN ( " + " SELECT " + "  MAX(me_id_only.event_id) "
-		+ " FROM " + "  {h-schema}mother_edit me_id_only " + " INNER JOIN {h-schema}anc_register ar ON "
-		+ "  me_id_only.mother_base_entity_id = ar.mother_base_entity_id " + " INNER JOIN ( " + "  SELECT "
-		+ "   MAX(ar_sub.event_id) AS latest_event_id " + "  FROM " + "   {h-schema}anc_register ar_sub "
-		+ "  GROUP BY " + "   ar_sub.mother_base_entity_id) ar_max_event_id ON "
-		+ "  ar.event_id = ar_max_event_id.latest_event_id " + " WHERE "
+		+ "  END " + " FROM " + "  (SELECT ((CURRENT_DATE - mp.last_menstrual_period_date) / 7) AS gestational_age) calculated) AS pregnancyTrimester, " + " ((CURRENT_DATE - mp.last_menstrual_period_date) / 7) AS calculatedGestationalAge " + "FROM "
+		+ " {h-schema}mother_edit me " + LEFT_JOIN_MOTHER_PROFILE_ON_ME + "WHERE " + " me.event_id IN ( " + " SELECT " + "  MAX(me_id_only.event_id) "
+		+ " FROM " + "  {h-schema}mother_edit me_id_only " + " INNER JOIN {h-schema}mother_profile mp_ar ON "
+		+ "  me_id_only.mother_base_entity_id = mp_ar.mother_base_entity_id AND mp_ar.anc_register_event_id IS NOT NULL " + " WHERE "
 		+ "  me_id_only.mobile_phone_number IS NOT NULL " + "  AND me_id_only.provider_id NOT ILIKE '%demo%' "
 		+ "  AND me_id_only.mother_base_entity_id IN ( " + "  SELECT " + "   mi.mother_base_entity_id " + "  FROM "
 		+ "   {h-schema}mother_identity mi " + "  WHERE " + "   mi.mobile_phone_number IS NULL) " + "  AND "
 		+ "  (CASE " + "   WHEN (EXISTS ( " + "   SELECT " + "    1 " + "   FROM " + "    {h-schema}anc_close ac "
-		+ "   WHERE " + "    ac.mother_base_entity_id = ar.mother_base_entity_id)) THEN ( " + "    NOT (( "
+		+ "   WHERE " + "    ac.mother_base_entity_id = mp_ar.mother_base_entity_id)) THEN ( " + "    NOT (( "
 		+ "   SELECT " + "    ac.date_created " + "   FROM " + "    {h-schema}anc_close ac " + "   WHERE "
-		+ "    ac.mother_base_entity_id = ar.mother_base_entity_id " + "   ORDER BY " + "    ac.event_id DESC, "
+		+ "    ac.mother_base_entity_id = mp_ar.mother_base_entity_id " + "   ORDER BY " + "    ac.event_id DESC, "
 		+ "    ac.server_version_epoch DESC "
-		+ "   LIMIT 1) BETWEEN ar.last_menstrual_period_date AND ar.expected_delivery_date)) " + "   ELSE TRUE "
-		+ "  END) " + "  AND ((ar.last_menstrual_period_date >= (CURRENT_DATE - INTERVAL '41 weeks')) "
-		+ "   OR (ar.expected_delivery_date > CURRENT_DATE)) " + "  AND (ar.is_consented_whatsapp IS NULL "
-		+ "   OR ar.is_consented_whatsapp != 'Tidak') " + "  GROUP BY " + "  me_id_only.mobile_phone_number) "
+		+ "   LIMIT 1) BETWEEN mp_ar.last_menstrual_period_date AND mp_ar.expected_delivery_date)) " + "   ELSE TRUE "
+		+ "  END) " + "  AND ((mp_ar.last_menstrual_period_date >= (CURRENT_DATE - INTERVAL '41 weeks')) "
+		+ "   OR (mp_ar.expected_delivery_date > CURRENT_DATE)) " + "  AND (mp_ar.is_consented_whatsapp IS NULL "
+		+ "   OR mp_ar.is_consented_whatsapp != 'Tidak') " + "  GROUP BY " + "  me_id_only.mobile_phone_number) "
 		+ "ORDER BY " + " me.event_id";
 }
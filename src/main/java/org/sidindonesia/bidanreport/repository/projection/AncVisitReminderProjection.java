@@ -1,6 +1,7 @@
 package org.sidindonesia.bidanreport.repository.projection;
 
 public interface AncVisitReminderProjection extends MotherIdentityWhatsAppProjection {
+	String getMotherBaseEntityId();
 	Integer getLatestAncVisitNumber();
 	String getPregnancyGapCommaSeparatedValues();
 }
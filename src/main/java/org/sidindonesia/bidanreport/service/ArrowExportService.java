@@ -0,0 +1,130 @@
+package org.sidindonesia.bidanreport.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Calendar;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.sql.DataSource;
+
+import org.apache.arrow.adapter.jdbc.ArrowVectorIterator;
+import org.apache.arrow.adapter.jdbc.JdbcFieldInfo;
+import org.apache.arrow.adapter.jdbc.JdbcToArrow;
+import org.apache.arrow.adapter.jdbc.JdbcToArrowConfig;
+import org.apache.arrow.adapter.jdbc.JdbcToArrowConfigBuilder;
+import org.apache.arrow.adapter.jdbc.JdbcToArrowUtils;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.sidindonesia.bidanreport.config.property.ExcelExportProperties;
+import org.sidindonesia.bidanreport.util.JpaEntityUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exports every table as an Arrow IPC stream ({@code .arrow}, readable by e.g.
+ * {@code pyarrow.ipc.open_stream}) in a ZIP archive. Rows are converted from
+ * JDBC in record batches of {@code excel-export.page-size} rows, so only one
+ * batch per table is held in memory.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+@Service
+public class ArrowExportService {
+	private final ApplicationContext context;
+	private final DataSource dataSource;
+	private final ExcelExportProperties excelExportProperties;
+
+	@Value(JpaEntityUtil.SCHEMA_NAME)
+	private String schemaName;
+
+	public void writeAllTablesAsZippedArrowStreams(OutputStream outputStream) throws IOException {
+		log.debug("Request to stream all tables as Arrow IPC streams");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.setFetchSize(excelExportProperties.getPageSize());
+
+		ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+		try (BufferAllocator allocator = new RootAllocator()) {
+			for (Class<?> entityClass : JpaEntityUtil.findAllEntityClasses(new Repositories(context))) {
+				String tableName = JpaEntityUtil.getTableName(entityClass);
+				zipOutputStream.putNextEntry(new ZipEntry(tableName + ".arrow"));
+				jdbcTemplate.query("SELECT * FROM " + schemaName + "." + tableName, resultSet -> {
+					writeArrowStream(resultSet, allocator, StreamUtils.nonClosing(zipOutputStream));
+					return null;
+				});
+				zipOutputStream.closeEntry();
+				log.debug("Written table `{}` as Arrow IPC stream", tableName);
+			}
+		}
+		zipOutputStream.finish();
+	}
+
+	private void writeArrowStream(ResultSet resultSet, BufferAllocator allocator, OutputStream outputStream)
+		throws SQLException {
+		Calendar calendar = JdbcToArrowUtils.getUtcCalendar();
+		JdbcToArrowConfig config = new JdbcToArrowConfigBuilder(allocator, calendar)
+			.setTargetBatchSize(excelExportProperties.getPageSize()).setReuseVectorSchemaRoot(true)
+			.setJdbcToArrowTypeConverter(fieldInfo -> toArrowType(fieldInfo, calendar)).build();
+
+		try (ArrowVectorIterator batches = JdbcToArrow.sqlToArrowVectorIterator(resultSet, config)) {
+			if (!batches.hasNext()) {
+				// an empty table still gets its schema written
+				try (VectorSchemaRoot emptyRoot = VectorSchemaRoot
+					.create(JdbcToArrowUtils.jdbcToArrowSchema(resultSet.getMetaData(), config), allocator);
+					ArrowStreamWriter writer = new ArrowStreamWriter(emptyRoot, null,
+						Channels.newChannel(outputStream))) {
+					writer.start();
+					writer.end();
+				}
+				return;
+			}
+			// the same root is refilled with every batch
+			try (VectorSchemaRoot root = batches.next();
+				ArrowStreamWriter writer = new ArrowStreamWriter(root, null, Channels.newChannel(outputStream))) {
+				writer.start();
+				writer.writeBatch();
+				while (batches.hasNext()) {
+					batches.next();
+					writer.writeBatch();
+				}
+				writer.end();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * PostgreSQL types without an Arrow counterpart, e.g. {@code uuid} or
+	 * {@code numeric} without precision, are exported as strings.
+	 */
+	private static ArrowType toArrowType(JdbcFieldInfo fieldInfo, Calendar calendar) {
+		switch (fieldInfo.getJdbcType()) {
+		case Types.OTHER:
+			return new ArrowType.Utf8();
+		case Types.NUMERIC:
+		case Types.DECIMAL:
+			return fieldInfo.getPrecision() == 0 ? new ArrowType.Utf8()
+				: JdbcToArrowUtils.getArrowTypeFromJdbcType(fieldInfo, calendar);
+		default:
+			return JdbcToArrowUtils.getArrowTypeFromJdbcType(fieldInfo, calendar);
+		}
+	}
+}
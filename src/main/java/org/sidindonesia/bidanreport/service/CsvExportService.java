@@ -0,0 +1,193 @@
+package org.sidindonesia.bidanreport.service;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.sidindonesia.bidanreport.config.property.ExcelExportProperties;
+import org.sidindonesia.bidanreport.util.JpaEntityUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Exports every table as one CSV file per table in a ZIP archive. Rows are
+ * streamed from JDBC straight to the response in batches of
+ * {@code excel-export.page-size}, without building any entity or workbook.
+ * The archive ends with the watermarks of a delta export, see
+ * {@link #writeTablesAsZippedCsvFilesSince}.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+@Service
+public class CsvExportService {
+	private static final String EVENT_ID = "event_id";
+	public static final String WATERMARKS_ENTRY_NAME = "watermarks.json";
+	private final ApplicationContext context;
+	private final DataSource dataSource;
+	private final ExcelExportProperties excelExportProperties;
+	private final ObjectMapper objectMapper;
+
+	@Value(JpaEntityUtil.SCHEMA_NAME)
+	private String schemaName;
+
+	/**
+	 * @param gzip whether every CSV entry is gzip-compressed ({@code .csv.gz}),
+	 *             which can be read directly by e.g. {@code pandas.read_csv}
+	 */
+	public void writeAllTablesAsZippedCsvFiles(OutputStream outputStream, boolean gzip) throws IOException {
+		log.debug("Request to stream all tables as CSV files, gzip: {}", gzip);
+		writeZippedCsvFiles(outputStream, Map.of(), gzip);
+	}
+
+	/**
+	 * Delta export: only the rows having an {@code event_id} greater than the
+	 * watermark given for their table, tables without a watermark are exported
+	 * in full, without any {@code event_id} predicate. Tables keyed by a composite ID ({@code client_mother},
+	 * {@code client_child}) have no {@code event_id} and are always exported in
+	 * full. The greatest exported {@code event_id} of every table is written as
+	 * the last entry {@value #WATERMARKS_ENTRY_NAME}, to be sent back by the next
+	 * delta export. An empty table without a watermark has none.
+	 *
+	 * @throws ResponseStatusException with {@link HttpStatus#BAD_REQUEST} for an
+	 *                                 unknown table
+	 */
+	public void writeTablesAsZippedCsvFilesSince(OutputStream outputStream, Map<String, Long> sinceEventIds,
+		boolean gzip) throws IOException {
+		log.debug("Request to stream all tables as CSV files since event IDs: {}, gzip: {}", sinceEventIds, gzip);
+		writeZippedCsvFiles(outputStream, sinceEventIds, gzip);
+	}
+
+	/**
+	 * @throws ResponseStatusException with {@link HttpStatus#BAD_REQUEST} for an
+	 *                                 unknown table
+	 */
+	public void checkTablesExist(Collection<String> tableNames) {
+		checkTablesExist(findAllEntityClasses(), tableNames);
+	}
+
+	private static void checkTablesExist(List<Class<?>> entityClasses, Collection<String> tableNames) {
+		Set<String> unknownTableNames = new TreeSet<>(tableNames);
+		entityClasses.forEach(entityClass -> unknownTableNames.remove(JpaEntityUtil.getTableName(entityClass)));
+		if (!unknownTableNames.isEmpty()) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown table(s): " + unknownTableNames);
+		}
+	}
+
+	private List<Class<?>> findAllEntityClasses() {
+		return JpaEntityUtil.findAllEntityClasses(new Repositories(context));
+	}
+
+	private void writeZippedCsvFiles(OutputStream outputStream, Map<String, Long> sinceEventIds, boolean gzip)
+		throws IOException {
+		List<Class<?>> entityClasses = findAllEntityClasses();
+		checkTablesExist(entityClasses, sinceEventIds.keySet());
+
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.setFetchSize(excelExportProperties.getPageSize());
+		ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+		if (gzip) {
+			// entries are already compressed
+			zipOutputStream.setLevel(Deflater.NO_COMPRESSION);
+		}
+		Map<String, Long> watermarks = new TreeMap<>();
+		for (Class<?> entityClass : entityClasses) {
+			String tableName = JpaEntityUtil.getTableName(entityClass);
+			boolean hasEventId = JpaEntityUtil.getIdFields(JpaEntityUtil.getColumnFields(entityClass)).stream()
+				.map(JpaEntityUtil::getColumnName).collect(toList()).equals(List.of(EVENT_ID));
+			Long sinceEventId = sinceEventIds.get(tableName);
+
+			zipOutputStream.putNextEntry(new ZipEntry(tableName + (gzip ? ".csv.gz" : ".csv")));
+			OutputStream entryOutputStream = StreamUtils.nonClosing(zipOutputStream);
+			if (gzip) {
+				entryOutputStream = new GZIPOutputStream(entryOutputStream);
+			}
+			try (Writer writer = new OutputStreamWriter(entryOutputStream, StandardCharsets.UTF_8)) {
+				if (hasEventId && sinceEventId != null) {
+					Long lastEventId = jdbcTemplate.query(
+						"SELECT * FROM " + schemaName + "." + tableName + " WHERE " + EVENT_ID + " > ?",
+						(ResultSetExtractor<Long>) resultSet -> writeRowsAsCsv(resultSet, writer, true), sinceEventId);
+					watermarks.put(tableName, lastEventId == null ? sinceEventId : lastEventId);
+				} else if (hasEventId) {
+					// no predicate at all, event IDs are not guaranteed to be positive
+					Long lastEventId = jdbcTemplate.query("SELECT * FROM " + schemaName + "." + tableName,
+						(ResultSetExtractor<Long>) resultSet -> writeRowsAsCsv(resultSet, writer, true));
+					if (lastEventId != null) {
+						watermarks.put(tableName, lastEventId);
+					}
+				} else {
+					jdbcTemplate.query("SELECT * FROM " + schemaName + "." + tableName,
+						(ResultSetExtractor<Long>) resultSet -> writeRowsAsCsv(resultSet, writer, false));
+				}
+			}
+			zipOutputStream.closeEntry();
+			log.debug("Written table `{}` as CSV", tableName);
+		}
+
+		zipOutputStream.putNextEntry(new ZipEntry(WATERMARKS_ENTRY_NAME));
+		objectMapper.writeValue(StreamUtils.nonClosing(zipOutputStream), watermarks);
+		zipOutputStream.closeEntry();
+		zipOutputStream.finish();
+	}
+
+	/**
+	 * @return the greatest {@code event_id} written, {@code null} when no row was
+	 *         written or it is not tracked
+	 */
+	private static Long writeRowsAsCsv(ResultSet resultSet, Writer writer, boolean trackEventId)
+		throws SQLException {
+		try {
+			CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT.builder().setHeader(resultSet).build());
+			int columnCount = resultSet.getMetaData().getColumnCount();
+			Long lastEventId = null;
+			while (resultSet.next()) {
+				for (int i = 1; i <= columnCount; i++) {
+					printer.print(resultSet.getObject(i));
+				}
+				printer.println();
+				if (trackEventId) {
+					long eventId = resultSet.getLong(EVENT_ID);
+					lastEventId = lastEventId == null ? eventId : Math.max(lastEventId, eventId);
+				}
+			}
+			printer.flush();
+			return lastEventId;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
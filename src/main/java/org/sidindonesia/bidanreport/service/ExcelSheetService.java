@@ -1,14 +1,49 @@
 package org.sidindonesia.bidanreport.service;
 
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.sidindonesia.bidanreport.config.property.ExcelExportProperties;
 import org.sidindonesia.bidanreport.controller.request.ValidationRequestParams;
-import org.sidindonesia.bidanreport.domain.AncClose;
-import org.sidindonesia.bidanreport.repository.AncCloseRepository;
-import org.sidindonesia.jpatoexcel.helper.ExcelHelper;
+import org.sidindonesia.bidanreport.repository.BaseRepository;
+import org.sidindonesia.bidanreport.util.ExcelSheetUtil;
+import org.sidindonesia.bidanreport.util.JpaEntityUtil;
+import org.sidindonesia.bidanreport.util.TableSheetWriter;
 import org.springframework.context.ApplicationContext;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,23 +53,272 @@ import lombok.extern.slf4j.Slf4j;
 @Transactional(readOnly = true)
 @Service
 public class ExcelSheetService {
-	private static final String JPA_ENTITY_PACKAGE_NAME = AncClose.class.getPackageName();
-	private static final String JPA_REPOSITORY_PACKAGE_NAME = AncCloseRepository.class.getPackageName();
+	/** Shared with the all-tables export jobs, see {@link ExportJobService}. */
+	private static final String ALL_TABLES_ARTIFACT_KIND = ExportJob.requestKeyOf(ExportJob.Type.ALL_TABLES, "");
 	private final ApplicationContext context;
+	private final ExcelExportProperties excelExportProperties;
+	private final PlatformTransactionManager transactionManager;
+	private final TableValidationService tableValidationService;
+	private final ExportArtifactStore exportArtifactStore;
+	private ThreadPoolTaskExecutor sheetWorkers;
+
+	@PostConstruct
+	void initSheetWorkers() {
+		sheetWorkers = new ThreadPoolTaskExecutor();
+		sheetWorkers.setCorePoolSize(excelExportProperties.getParallelism());
+		sheetWorkers.setMaxPoolSize(excelExportProperties.getParallelism());
+		sheetWorkers.setThreadNamePrefix("excel-sheet-");
+		sheetWorkers.initialize();
+	}
+
+	@PreDestroy
+	void shutdownSheetWorkers() {
+		sheetWorkers.shutdown();
+	}
 
-	public ByteArrayInputStream downloadAllTablesAsExcelSheets() {
+	/**
+	 * The workbook is rendered by {@link #writeAllTablesAsExcelSheets(OutputStream)}
+	 * and served from {@link ExportArtifactStore} as long as no table has changed
+	 * since it was rendered.
+	 */
+	public InputStream downloadAllTablesAsExcelSheets() {
 		log.debug("Request to retrieve all tables as Excel Sheets");
-		return ExcelHelper.allEntitiesToExcelSheets(context, JPA_ENTITY_PACKAGE_NAME, JPA_REPOSITORY_PACKAGE_NAME);
+		String dataFingerprint;
+		try {
+			dataFingerprint = computeDataFingerprint();
+		} catch (DataAccessException e) {
+			log.warn("Failed to compute data fingerprint, not using the cache: {}", e.getMessage());
+			try {
+				return Files.newInputStream(exportArtifactStore.renderUncached(this::writeAllTablesAsExcelSheets),
+					StandardOpenOption.DELETE_ON_CLOSE);
+			} catch (IOException ioException) {
+				throw new UncheckedIOException(ioException);
+			}
+		}
+		try {
+			return exportArtifactStore.openOrRender(ALL_TABLES_ARTIFACT_KIND, dataFingerprint,
+				this::writeAllTablesAsExcelSheets);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes every table as an Excel Sheet directly into the given output stream.
+	 * Only the last {@code excel-export.row-access-window-size} rows are kept in
+	 * memory, older rows are flushed to a temporary file by {@link SXSSFWorkbook}.
+	 * Rows are read in pages of {@code excel-export.page-size} ordered by ID, so
+	 * the persistence context never holds more than one page of entities.
+	 */
+	public void writeAllTablesAsExcelSheets(OutputStream outputStream) throws IOException {
+		writeAllTablesAsExcelSheets(outputStream, ExportProgress.NONE);
+	}
+
+	public void writeAllTablesAsExcelSheets(OutputStream outputStream, ExportProgress progress) throws IOException {
+		log.debug("Request to stream all tables as Excel Sheets");
+		SXSSFWorkbook workbook = new SXSSFWorkbook(excelExportProperties.getRowAccessWindowSize());
+		workbook.setCompressTempFiles(true);
+		try (workbook) {
+			Repositories repositories = new Repositories(context);
+			CellStyle dateTimeCellStyle = ExcelSheetUtil.createDateTimeCellStyle(workbook);
+			List<Class<?>> entityClasses = JpaEntityUtil.findAllEntityClasses(repositories);
+			progress.start(entityClasses.size());
+			for (Class<?> entityClass : entityClasses) {
+				writeEntityRowsToSheets(workbook, repositories, entityClass, dateTimeCellStyle);
+				progress.tableWritten();
+			}
+			workbook.write(outputStream);
+		} finally {
+			workbook.dispose();
+		}
+	}
+
+	/**
+	 * Same as {@link #writeAllTablesAsExcelSheets(OutputStream)}, but tables are
+	 * read at the same time by {@code excel-export.parallelism} workers, each in
+	 * its own read-only transaction. A workbook must only be written by one
+	 * thread, so the workers hand their pages of column values over a bounded
+	 * queue to the calling thread, which writes all the sheets. The download time
+	 * is then bound by the biggest table instead of the sum of all tables.
+	 */
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void writeAllTablesAsExcelSheetsInParallel(OutputStream outputStream) throws IOException {
+		writeAllTablesAsExcelSheetsInParallel(outputStream, ExportProgress.NONE);
+	}
+
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void writeAllTablesAsExcelSheetsInParallel(OutputStream outputStream, ExportProgress progress)
+		throws IOException {
+		log.debug("Request to stream all tables as Excel Sheets in parallel");
+		SXSSFWorkbook workbook = new SXSSFWorkbook(excelExportProperties.getRowAccessWindowSize());
+		workbook.setCompressTempFiles(true);
+		try (workbook) {
+			Repositories repositories = new Repositories(context);
+			CellStyle dateTimeCellStyle = ExcelSheetUtil.createDateTimeCellStyle(workbook);
+			TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+			readOnlyTransaction.setReadOnly(true);
+
+			List<Class<?>> entityClasses = JpaEntityUtil.findAllEntityClasses(repositories);
+			progress.start(entityClasses.size());
+			BlockingQueue<TablePage> pages = new ArrayBlockingQueue<>(excelExportProperties.getParallelism());
+			List<TableSheetWriter> sheetWriters = new ArrayList<>();
+			List<Future<?>> results = new ArrayList<>();
+			try {
+				for (int i = 0; i < entityClasses.size(); i++) {
+					Class<?> entityClass = entityClasses.get(i);
+					int tableIndex = i;
+					// first sheets are created up front to keep the tables order in the workbook
+					sheetWriters.add(createTableSheetWriter(workbook, entityClass, dateTimeCellStyle));
+					results.add(sheetWorkers.submit(() -> {
+						try {
+							readOnlyTransaction.executeWithoutResult(status -> readEntityRows(repositories,
+								entityClass, rows -> putInto(pages, new TablePage(tableIndex, rows, null))));
+							putInto(pages, new TablePage(tableIndex, null, null));
+						} catch (RuntimeException | Error e) {
+							putInto(pages, new TablePage(tableIndex, null, e));
+						}
+					}));
+				}
+				writeTablePages(pages, sheetWriters, progress);
+			} finally {
+				results.forEach(result -> result.cancel(true));
+			}
+			for (int i = 0; i < entityClasses.size(); i++) {
+				log.debug("Written {} row(s) of table `{}`", sheetWriters.get(i).getRowCount(),
+					JpaEntityUtil.getTableName(entityClasses.get(i)));
+			}
+
+			// continuation sheets of big tables are appended in completion order, move
+			// them next to their first sheet
+			int sheetPosition = 0;
+			for (TableSheetWriter sheetWriter : sheetWriters) {
+				for (String sheetName : sheetWriter.getSheetNames()) {
+					workbook.setSheetOrder(sheetName, sheetPosition++);
+				}
+			}
+			workbook.write(outputStream);
+		} finally {
+			workbook.dispose();
+		}
+	}
+
+	/**
+	 * Writes the pages of every table, in the order they are read, until the last
+	 * page of every table has been written.
+	 */
+	private static void writeTablePages(BlockingQueue<TablePage> pages, List<TableSheetWriter> sheetWriters,
+		ExportProgress progress) throws IOException {
+		int remainingTables = sheetWriters.size();
+		while (remainingTables > 0) {
+			TablePage page;
+			try {
+				page = pages.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while waiting for Excel Sheet rows to be read");
+			}
+			if (page.failure instanceof Error) {
+				throw (Error) page.failure;
+			}
+			if (page.failure != null) {
+				throw (RuntimeException) page.failure;
+			}
+			if (page.rows == null) {
+				remainingTables--;
+				progress.tableWritten();
+			} else {
+				page.rows.forEach(sheetWriters.get(page.tableIndex)::writeRow);
+			}
+		}
+	}
+
+	private static void putInto(BlockingQueue<TablePage> pages, TablePage page) {
+		try {
+			pages.put(page);
+		} catch (InterruptedException e) {
+			// the writer has given up, see writeAllTablesAsExcelSheetsInParallel
+			Thread.currentThread().interrupt();
+			throw new CancellationException("Interrupted while handing Excel Sheet rows over");
+		}
+	}
+
+	/**
+	 * Column values of a page of rows read from the table at {@code tableIndex},
+	 * or the end of that table when {@code rows} is {@code null}, or the reason
+	 * it could not be read.
+	 */
+	@RequiredArgsConstructor
+	private static final class TablePage {
+		private final int tableIndex;
+		private final List<List<Object>> rows;
+		private final Throwable failure;
+	}
+
+	private void writeEntityRowsToSheets(SXSSFWorkbook workbook, Repositories repositories, Class<?> entityClass,
+		CellStyle dateTimeCellStyle) {
+		writeEntityRows(repositories, entityClass, createTableSheetWriter(workbook, entityClass, dateTimeCellStyle));
+	}
+
+	private static TableSheetWriter createTableSheetWriter(SXSSFWorkbook workbook, Class<?> entityClass,
+		CellStyle dateTimeCellStyle) {
+		return new TableSheetWriter(workbook, JpaEntityUtil.getTableName(entityClass),
+			JpaEntityUtil.getColumnNames(JpaEntityUtil.getColumnFields(entityClass)), dateTimeCellStyle);
+	}
+
+	private <T> void writeEntityRows(Repositories repositories, Class<T> entityClass, TableSheetWriter sheetWriter) {
+		readEntityRows(repositories, entityClass, rows -> rows.forEach(sheetWriter::writeRow));
+		log.debug("Written {} row(s) of table `{}`", sheetWriter.getRowCount(),
+			JpaEntityUtil.getTableName(entityClass));
+	}
+
+	/**
+	 * Reads the column values of every row of the table, one page at a time.
+	 */
+	private <T> void readEntityRows(Repositories repositories, Class<T> entityClass,
+		Consumer<List<List<Object>>> rowsConsumer) {
+		List<Field> columnFields = JpaEntityUtil.getColumnFields(entityClass);
+		getRepositoryFor(repositories, entityClass).forEachPageOrderById(excelExportProperties.getPageSize(),
+			page -> rowsConsumer.accept(
+				page.stream().map(row -> JpaEntityUtil.getColumnValues(columnFields, row)).collect(toList())));
+	}
+
+	/**
+	 * Digest of the row count and greatest ID of every table, which changes
+	 * whenever rows are inserted into or deleted from any of them. Rows updated in
+	 * place do not change it, a workbook cached by this fingerprint then keeps
+	 * serving their values from before the update.
+	 */
+	public String computeDataFingerprint() {
+		Repositories repositories = new Repositories(context);
+		String highWaterMarks = JpaEntityUtil.findAllEntityClasses(repositories).stream()
+			.map(entityClass -> JpaEntityUtil.getTableName(entityClass) + "="
+				+ getRepositoryFor(repositories, entityClass).getHighWaterMark())
+			.collect(joining(","));
+		return DigestUtils.md5DigestAsHex(highWaterMarks.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> BaseRepository<T, ?> getRepositoryFor(Repositories repositories, Class<T> entityClass) {
+		return (BaseRepository<T, ?>) repositories.getRepositoryFor(entityClass)
+			.orElseThrow(() -> new IllegalStateException("No repository found for " + entityClass.getName()));
 	}
 
+	/**
+	 * Validates the requested tables and columns, or every column of every table
+	 * when none is requested, see {@link TableValidationService}.
+	 */
 	public ByteArrayInputStream validateThenRetrieveAsExcelSheets(ValidationRequestParams params) {
 		log.debug("Request to validate column(s) is/are not null or blank then retrieve as ExcelSheets");
 
-		if (params.getTables().isEmpty()) {
-			return ExcelHelper.validateAllTableColumnsAreNotEmpty(context, JPA_ENTITY_PACKAGE_NAME,
-				JPA_REPOSITORY_PACKAGE_NAME, params.getFromDate(), params.getUntilDate());
-		} else {
-			return new ByteArrayInputStream(null);
+		Set<ValidationRequestParams.Table> tables = params.getTables();
+		if (tables.isEmpty()) {
+			tables = JpaEntityUtil.findAllEntityClasses(new Repositories(context)).stream().map(entityClass -> {
+				ValidationRequestParams.Table table = new ValidationRequestParams.Table();
+				table.setName(JpaEntityUtil.getTableName(entityClass));
+				return table;
+			}).collect(toSet());
 		}
+		return tableValidationService.validateThenRetrieveAsExcelSheets(params.getFromDate(), params.getUntilDate(),
+			tables);
 	}
 }
@@ -0,0 +1,215 @@
+package org.sidindonesia.bidanreport.service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.sidindonesia.bidanreport.config.property.ExcelExportProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rendered export files spooled to {@code excel-export.spool-directory-path},
+ * keyed by the export kind and the data fingerprint they were rendered from.
+ * It is the only place exports are stored on disk: {@code $download} and the
+ * export jobs of {@link ExportJobService} render into it and reuse each other's
+ * files.
+ * <p>
+ * A file is evicted as soon as a file of the same kind whose rendering started
+ * later is stored, as it will not be reused anymore, or when it is the least
+ * recently used once the total size exceeds
+ * {@code excel-export.spool-max-size-in-bytes}. Stored files are only opened
+ * while holding the store lock, so an evicted file is never opened, and a file
+ * evicted while being read stays readable until it is closed.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Component
+public class ExportArtifactStore {
+	private final ExcelExportProperties excelExportProperties;
+	/** Guarded by {@code this}, in access order. */
+	private final LinkedHashMap<String, StoredArtifact> artifactsByKey = new LinkedHashMap<>(16, 0.75f, true);
+	private final ConcurrentMap<String, Object> renderLocksByKey = new ConcurrentHashMap<>();
+	private final AtomicLong renderSequence = new AtomicLong();
+	private long totalSizeInBytes;
+	private Path directory;
+
+	@FunctionalInterface
+	public interface ArtifactWriter {
+		void write(OutputStream outputStream) throws IOException;
+	}
+
+	@FunctionalInterface
+	private interface ArtifactReader<R> {
+		R read(Path file) throws IOException;
+	}
+
+	private static class StoredArtifact {
+		private final String kind;
+		private final Path file;
+		private final long sizeInBytes;
+		/** Order in which the renderings started, a later one has newer data. */
+		private final long sequence;
+
+		StoredArtifact(String kind, Path file, long sizeInBytes, long sequence) {
+			this.kind = kind;
+			this.file = file;
+			this.sizeInBytes = sizeInBytes;
+			this.sequence = sequence;
+		}
+	}
+
+	@PostConstruct
+	void init() throws IOException {
+		directory = Files.createDirectories(Path.of(excelExportProperties.getSpoolDirectoryPath()));
+		// the index is not persisted, files left by a previous run can not be reused
+		try (DirectoryStream<Path> staleFiles = Files.newDirectoryStream(directory)) {
+			for (Path staleFile : staleFiles) {
+				Files.deleteIfExists(staleFile);
+			}
+		}
+	}
+
+	/**
+	 * Opens the stored file of the given kind and data fingerprint, rendering it
+	 * with the writer first when it is not stored yet. Concurrent calls for the
+	 * same key render it only once.
+	 */
+	public InputStream openOrRender(String kind, String dataFingerprint, ArtifactWriter writer) throws IOException {
+		return getOrRender(kind, dataFingerprint, writer, Files::newInputStream);
+	}
+
+	/**
+	 * Same as {@link #openOrRender}, but returns the stored file, which may be
+	 * evicted at any time, to be opened later by {@link #open(Path)}.
+	 */
+	public Path getOrRender(String kind, String dataFingerprint, ArtifactWriter writer) throws IOException {
+		return getOrRender(kind, dataFingerprint, writer, file -> file);
+	}
+
+	private <R> R getOrRender(String kind, String dataFingerprint, ArtifactWriter writer, ArtifactReader<R> reader)
+		throws IOException {
+		String key = kind + ":" + dataFingerprint;
+		R stored = find(key, reader);
+		if (stored != null) {
+			log.debug("Export artifact store hit for {}", key);
+			return stored;
+		}
+		Object renderLock = renderLocksByKey.computeIfAbsent(key, k -> new Object());
+		try {
+			synchronized (renderLock) {
+				stored = find(key, reader);
+				if (stored != null) {
+					return stored;
+				}
+				log.debug("Export artifact store miss for {}, rendering", key);
+				return render(kind, key, writer, reader);
+			}
+		} finally {
+			renderLocksByKey.remove(key, renderLock);
+		}
+	}
+
+	/**
+	 * @return the opened file, or empty when it is not stored anymore
+	 */
+	public synchronized Optional<InputStream> open(Path file) throws IOException {
+		return contains(file) ? Optional.of(Files.newInputStream(file)) : Optional.empty();
+	}
+
+	/**
+	 * Renders a file that is not stored, to be deleted by the caller once read.
+	 */
+	public Path renderUncached(ArtifactWriter writer) throws IOException {
+		Path file = directory.resolve(UUID.randomUUID() + ".uncached");
+		try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file))) {
+			writer.write(outputStream);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(file);
+			throw e;
+		}
+		return file;
+	}
+
+	/**
+	 * @return whether the file is still stored, it is deleted once evicted
+	 */
+	public synchronized boolean contains(Path file) {
+		return artifactsByKey.values().stream().anyMatch(artifact -> artifact.file.equals(file));
+	}
+
+	private synchronized <R> R find(String key, ArtifactReader<R> reader) throws IOException {
+		StoredArtifact artifact = artifactsByKey.get(key);
+		return artifact != null ? reader.read(artifact.file) : null;
+	}
+
+	private <R> R render(String kind, String key, ArtifactWriter writer, ArtifactReader<R> reader)
+		throws IOException {
+		long sequence = renderSequence.incrementAndGet();
+		Path partFile = directory.resolve(UUID.randomUUID() + ".part");
+		Path file = directory.resolve(DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)));
+		try {
+			try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(partFile))) {
+				writer.write(outputStream);
+			}
+			Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(partFile);
+		}
+		return put(key, new StoredArtifact(kind, file, Files.size(file), sequence), reader);
+	}
+
+	private synchronized <R> R put(String key, StoredArtifact artifact, ArtifactReader<R> reader)
+		throws IOException {
+		// files of the same kind rendered earlier are superseded, a file rendered
+		// later from newer data is kept even when this slower rendering ends last
+		artifactsByKey.entrySet().removeIf(entry -> {
+			boolean superseded = entry.getValue().kind.equals(artifact.kind)
+				&& entry.getValue().sequence < artifact.sequence;
+			if (superseded) {
+				evict(entry);
+			}
+			return superseded;
+		});
+		artifactsByKey.put(key, artifact);
+		totalSizeInBytes += artifact.sizeInBytes;
+
+		long maxSizeInBytes = excelExportProperties.getSpoolMaxSizeInBytes();
+		Iterator<Map.Entry<String, StoredArtifact>> leastRecentlyUsed = artifactsByKey.entrySet().iterator();
+		// the artifact just rendered is kept even when it alone exceeds the limit
+		while (totalSizeInBytes > maxSizeInBytes && artifactsByKey.size() > 1) {
+			evict(leastRecentlyUsed.next());
+			leastRecentlyUsed.remove();
+		}
+		return reader.read(artifact.file);
+	}
+
+	private void evict(Map.Entry<String, StoredArtifact> entry) {
+		totalSizeInBytes -= entry.getValue().sizeInBytes;
+		log.debug("Evicting export artifact {}", entry.getKey());
+		try {
+			Files.deleteIfExists(entry.getValue().file);
+		} catch (IOException e) {
+			log.warn("Failed to delete evicted export artifact {}: {}", entry.getValue().file, e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package org.sidindonesia.bidanreport.service;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import lombok.Getter;
+
+/**
+ * An export running in the background, its result is stored in
+ * {@link ExportArtifactStore} as {@link #getFile()} once {@link Status#DONE}.
+ */
+@Getter
+public class ExportJob {
+	public enum Type {
+		ALL_TABLES, VALIDATION
+	}
+
+	public enum Status {
+		QUEUED, RUNNING, DONE, FAILED
+	}
+
+	private final String id;
+	private final Type type;
+	private final String requestKey;
+	private final String filename;
+	private final String dataFingerprint;
+	private final ExportProgress progress = new ExportProgress();
+	private final LocalDateTime createdAt = LocalDateTime.now();
+	private volatile Status status = Status.QUEUED;
+	private volatile Path file;
+	private volatile LocalDateTime finishedAt;
+	private volatile String errorMessage;
+
+	ExportJob(String id, Type type, String parameters, String filename, String dataFingerprint) {
+		this.id = id;
+		this.type = type;
+		this.requestKey = requestKeyOf(type, parameters);
+		this.filename = filename;
+		this.dataFingerprint = dataFingerprint;
+	}
+
+	/**
+	 * Identifies the result of an export regardless of the data it is rendered
+	 * from, also used as its kind in {@link ExportArtifactStore}.
+	 */
+	static String requestKeyOf(Type type, String parameters) {
+		return type + ":" + parameters;
+	}
+
+	void running() {
+		status = Status.RUNNING;
+	}
+
+	void done(Path file) {
+		this.file = file;
+		finishedAt = LocalDateTime.now();
+		status = Status.DONE;
+	}
+
+	void failed(String errorMessage) {
+		this.errorMessage = errorMessage;
+		finishedAt = LocalDateTime.now();
+		status = Status.FAILED;
+	}
+}
@@ -0,0 +1,144 @@
+package org.sidindonesia.bidanreport.service;
+
+import static java.util.stream.Collectors.joining;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.sidindonesia.bidanreport.config.property.ExcelExportProperties;
+import org.sidindonesia.bidanreport.controller.request.ValidationRequestParams;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs exports in the background into {@link ExportArtifactStore}. A stored
+ * result is reused by every request of the same export until the data
+ * fingerprint changes, so a heavy export is not run once per user. Failed jobs
+ * are forgotten {@code excel-export.failed-job-ttl-in-ms} after they failed,
+ * done jobs once their file is evicted from the store.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Service
+public class ExportJobService {
+	private final ExcelSheetService excelSheetService;
+	private final ExportArtifactStore exportArtifactStore;
+	private final ExcelExportProperties excelExportProperties;
+	private final Map<String, ExportJob> jobsById = new ConcurrentHashMap<>();
+	private final Map<String, ExportJob> latestJobsByRequestKey = new ConcurrentHashMap<>();
+	private ThreadPoolTaskExecutor jobWorkers;
+
+	@FunctionalInterface
+	private interface ExportWriter {
+		void write(OutputStream outputStream, ExportProgress progress) throws IOException;
+	}
+
+	@PostConstruct
+	void init() {
+		jobWorkers = new ThreadPoolTaskExecutor();
+		jobWorkers.setCorePoolSize(excelExportProperties.getMaxConcurrentJobs());
+		jobWorkers.setMaxPoolSize(excelExportProperties.getMaxConcurrentJobs());
+		jobWorkers.setThreadNamePrefix("export-job-");
+		jobWorkers.initialize();
+	}
+
+	@PreDestroy
+	void shutdown() {
+		jobWorkers.shutdown();
+	}
+
+	public ExportJob startAllTablesExport(String filename, boolean parallel) {
+		return start(ExportJob.Type.ALL_TABLES, "", filename,
+			(outputStream, progress) -> {
+				if (parallel) {
+					excelSheetService.writeAllTablesAsExcelSheetsInParallel(outputStream, progress);
+				} else {
+					excelSheetService.writeAllTablesAsExcelSheets(outputStream, progress);
+				}
+			});
+	}
+
+	public ExportJob startValidationExport(ValidationRequestParams params, String filename) {
+		String parameters = params.getFromDate() + "/" + params.getUntilDate() + "/" + params.getTables().stream()
+			.map(table -> table.getName() + new TreeSet<>(table.getColumns())).sorted().collect(joining(","));
+		return start(ExportJob.Type.VALIDATION, parameters, filename, (outputStream, progress) -> {
+			try (InputStream inputStream = excelSheetService.validateThenRetrieveAsExcelSheets(params)) {
+				inputStream.transferTo(outputStream);
+			}
+		});
+	}
+
+	public Optional<ExportJob> findJob(String id) {
+		removeStaleJobs();
+		return Optional.ofNullable(jobsById.get(id));
+	}
+
+	/**
+	 * @return the opened file of the done job, or empty when it has been evicted
+	 *         from {@link ExportArtifactStore} meanwhile
+	 */
+	public Optional<InputStream> openFile(ExportJob job) throws IOException {
+		return exportArtifactStore.open(job.getFile());
+	}
+
+	private void removeStaleJobs() {
+		LocalDateTime expiredBefore = LocalDateTime.now()
+			.minus(Duration.ofMillis(excelExportProperties.getFailedJobTtlInMs()));
+		jobsById.values().removeIf(job -> {
+			boolean stale = job.getStatus() == ExportJob.Status.FAILED && job.getFinishedAt().isBefore(expiredBefore)
+				|| job.getStatus() == ExportJob.Status.DONE && !exportArtifactStore.contains(job.getFile());
+			if (stale) {
+				latestJobsByRequestKey.remove(job.getRequestKey(), job);
+				log.debug("Forgetting {} export job {} finished at {}", job.getStatus(), job.getId(),
+					job.getFinishedAt());
+			}
+			return stale;
+		});
+	}
+
+	private ExportJob start(ExportJob.Type type, String parameters, String filename, ExportWriter writer) {
+		removeStaleJobs();
+		String dataFingerprint = excelSheetService.computeDataFingerprint();
+		return latestJobsByRequestKey.compute(ExportJob.requestKeyOf(type, parameters), (requestKey, latestJob) -> {
+			if (latestJob != null && latestJob.getStatus() != ExportJob.Status.FAILED
+				&& latestJob.getDataFingerprint().equals(dataFingerprint)) {
+				log.debug("Reusing export job {} for {}", latestJob.getId(), requestKey);
+				return latestJob;
+			}
+			String id = UUID.randomUUID().toString();
+			ExportJob job = new ExportJob(id, type, parameters, filename, dataFingerprint);
+			jobsById.put(id, job);
+			jobWorkers.execute(() -> run(job, writer));
+			log.debug("Queued export job {} for {}", id, requestKey);
+			return job;
+		});
+	}
+
+	private void run(ExportJob job, ExportWriter writer) {
+		job.running();
+		try {
+			Path file = exportArtifactStore.getOrRender(job.getRequestKey(), job.getDataFingerprint(),
+				outputStream -> writer.write(outputStream, job.getProgress()));
+			job.done(file);
+			log.debug("Export job {} done: {}", job.getId(), file);
+		} catch (IOException | RuntimeException e) {
+			log.error("Export job {} failed with error message: {}", job.getId(), e.getMessage(), e);
+			job.failed(e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package org.sidindonesia.bidanreport.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Number of tables written so far by an export, updated from the export
+ * worker(s) and read by the job-status API.
+ */
+public class ExportProgress {
+	/** Progress of an export nobody polls, shared as it records nothing. */
+	public static final ExportProgress NONE = new ExportProgress() {
+		@Override
+		void start(int totalTables) {
+			// not tracked
+		}
+
+		@Override
+		void tableWritten() {
+			// not tracked
+		}
+	};
+
+	private final AtomicInteger processedTables = new AtomicInteger();
+	private volatile int totalTables;
+
+	public int getProcessedTables() {
+		return processedTables.get();
+	}
+
+	public int getTotalTables() {
+		return totalTables;
+	}
+
+	void start(int totalTables) {
+		this.totalTables = totalTables;
+	}
+
+	void tableWritten() {
+		processedTables.incrementAndGet();
+	}
+}
@@ -1,25 +1,142 @@
 package org.sidindonesia.bidanreport.service;
 
+import static java.util.stream.Collectors.toMap;
+
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.sidindonesia.bidanreport.config.property.LastIdProperties;
+import org.sidindonesia.bidanreport.integration.qontak.domain.Watermark;
+import org.sidindonesia.bidanreport.integration.qontak.repository.WatermarkRepository;
 import org.sidindonesia.bidanreport.repository.AncVisitRepository;
+import org.sidindonesia.bidanreport.repository.MotherEditRepository;
+import org.sidindonesia.bidanreport.repository.MotherIdentityRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import lombok.RequiredArgsConstructor;
 
+/**
+ * Keeps {@link LastIdProperties} in sync with the {@code watermark} table, which
+ * is written in the same transaction as the messages queued up to those IDs.
+ */
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 @Service
 public class LastIdService {
+	private static final String MOTHER_IDENTITY_PREGNANT_MOTHER = "mother_identity.pregnant_mother";
+	private static final String MOTHER_IDENTITY_NON_PREGNANT_MOTHER = "mother_identity.non_pregnant_mother";
+	private static final String MOTHER_EDIT_PREGNANT_MOTHER = "mother_edit.pregnant_mother";
+	private static final String MOTHER_EDIT_NON_PREGNANT_MOTHER = "mother_edit.non_pregnant_mother";
+	/**
+	 * The single pregnancy gap last ID of both tables, the initial value of the
+	 * ones of each table.
+	 */
+	private static final String ANC_VISIT_PREGNANCY_GAP = "anc_visit.pregnancy_gap";
+	private static final String MOTHER_IDENTITY_ANC_VISIT_PREGNANCY_GAP = "mother_identity.anc_visit_pregnancy_gap";
+	private static final String MOTHER_EDIT_ANC_VISIT_PREGNANCY_GAP = "mother_edit.anc_visit_pregnancy_gap";
+
 	private final LastIdProperties lastIdProperties;
 	private final AncVisitRepository ancVisitRepository;
+	private final MotherIdentityRepository motherIdentityRepository;
+	private final MotherEditRepository motherEditRepository;
+	private final WatermarkRepository watermarkRepository;
 
-	public void syncANCVisitPregnancyGapLastId() {
-		Optional<Long> optAncVisitPregnancyGapLastId = ancVisitRepository.findLastEventId();
-		if (optAncVisitPregnancyGapLastId.isPresent()) {
-			lastIdProperties.setAncVisitPregnancyGapLastId(optAncVisitPregnancyGapLastId.get());
+	/**
+	 * Loads the persisted last IDs. A last ID never persisted before, e.g. on the
+	 * first start, is set to the latest event ID so that only the rows arriving
+	 * from then on are messaged.
+	 */
+	@Transactional
+	public void initLastIds() {
+		Map<String, Long> lastIds = findAllPersistedLastIds();
+		initLastId(lastIds, MOTHER_IDENTITY_PREGNANT_MOTHER,
+			motherIdentityRepository::findFirstPregnantWomanByOrderByEventIdDesc,
+			lastIdProperties.getMotherIdentity()::setPregnantMotherLastId);
+		initLastId(lastIds, MOTHER_IDENTITY_NON_PREGNANT_MOTHER,
+			motherIdentityRepository::findFirstNonPregnantWomanByOrderByEventIdDesc,
+			lastIdProperties.getMotherIdentity()::setNonPregnantMotherLastId);
+		initLastId(lastIds, MOTHER_EDIT_PREGNANT_MOTHER,
+			motherEditRepository::findFirstPregnantWomanByOrderByEventIdDesc,
+			lastIdProperties.getMotherEdit()::setPregnantMotherLastId);
+		initLastId(lastIds, MOTHER_EDIT_NON_PREGNANT_MOTHER,
+			motherEditRepository::findFirstNonPregnantWomanByOrderByEventIdDesc,
+			lastIdProperties.getMotherEdit()::setNonPregnantMotherLastId);
+		Supplier<Optional<Long>> pregnancyGapLastIdFinder = () -> Optional
+			.ofNullable(lastIds.get(ANC_VISIT_PREGNANCY_GAP)).or(ancVisitRepository::findLastEventId);
+		initLastId(lastIds, MOTHER_IDENTITY_ANC_VISIT_PREGNANCY_GAP, pregnancyGapLastIdFinder,
+			lastIdProperties.getMotherIdentity()::setAncVisitPregnancyGapLastId);
+		initLastId(lastIds, MOTHER_EDIT_ANC_VISIT_PREGNANCY_GAP, pregnancyGapLastIdFinder,
+			lastIdProperties.getMotherEdit()::setAncVisitPregnancyGapLastId);
+	}
+
+	private void initLastId(Map<String, Long> lastIds, String name, Supplier<Optional<Long>> latestEventIdFinder,
+		Consumer<Long> lastIdSetter) {
+		Long lastId = lastIds.get(name);
+		if (lastId == null) {
+			Optional<Long> optLatestEventId = latestEventIdFinder.get();
+			if (optLatestEventId.isEmpty()) {
+				return;
+			}
+			lastId = optLatestEventId.get();
+			watermarkRepository.upsert(name, lastId);
 		}
+		lastIdSetter.accept(lastId);
+	}
+
+	/**
+	 * Reloads the persisted last IDs, so a scheduled run resumes exactly where
+	 * the last committed one stopped, even when that one rolled back or ran on
+	 * another instance.
+	 */
+	public void loadLastIds() {
+		Map<String, Long> lastIds = findAllPersistedLastIds();
+		Optional.ofNullable(lastIds.get(MOTHER_IDENTITY_PREGNANT_MOTHER))
+			.ifPresent(lastIdProperties.getMotherIdentity()::setPregnantMotherLastId);
+		Optional.ofNullable(lastIds.get(MOTHER_IDENTITY_NON_PREGNANT_MOTHER))
+			.ifPresent(lastIdProperties.getMotherIdentity()::setNonPregnantMotherLastId);
+		Optional.ofNullable(lastIds.get(MOTHER_EDIT_PREGNANT_MOTHER))
+			.ifPresent(lastIdProperties.getMotherEdit()::setPregnantMotherLastId);
+		Optional.ofNullable(lastIds.get(MOTHER_EDIT_NON_PREGNANT_MOTHER))
+			.ifPresent(lastIdProperties.getMotherEdit()::setNonPregnantMotherLastId);
+		Optional.ofNullable(lastIds.get(MOTHER_IDENTITY_ANC_VISIT_PREGNANCY_GAP))
+			.ifPresent(lastIdProperties.getMotherIdentity()::setAncVisitPregnancyGapLastId);
+		Optional.ofNullable(lastIds.get(MOTHER_EDIT_ANC_VISIT_PREGNANCY_GAP))
+			.ifPresent(lastIdProperties.getMotherEdit()::setAncVisitPregnancyGapLastId);
+	}
+
+	private Map<String, Long> findAllPersistedLastIds() {
+		return watermarkRepository.findAll().stream().filter(watermark -> watermark.getLastId() != null)
+			.collect(toMap(Watermark::getName, Watermark::getLastId));
+	}
+
+	@Transactional
+	public void updateMotherIdentityPregnantMotherLastId(long lastId) {
+		watermarkRepository.upsert(MOTHER_IDENTITY_PREGNANT_MOTHER, lastId);
+		lastIdProperties.getMotherIdentity().setPregnantMotherLastId(lastId);
+	}
+
+	@Transactional
+	public void updateMotherEditPregnantMotherLastId(long lastId) {
+		watermarkRepository.upsert(MOTHER_EDIT_PREGNANT_MOTHER, lastId);
+		lastIdProperties.getMotherEdit().setPregnantMotherLastId(lastId);
+	}
+
+	public Optional<Long> findLatestANCVisitEventId() {
+		return ancVisitRepository.findLastEventId();
+	}
+
+	@Transactional
+	public void updateMotherIdentityANCVisitPregnancyGapLastId(long lastId) {
+		watermarkRepository.upsert(MOTHER_IDENTITY_ANC_VISIT_PREGNANCY_GAP, lastId);
+		lastIdProperties.getMotherIdentity().setAncVisitPregnancyGapLastId(lastId);
+	}
+
+	@Transactional
+	public void updateMotherEditANCVisitPregnancyGapLastId(long lastId) {
+		watermarkRepository.upsert(MOTHER_EDIT_ANC_VISIT_PREGNANCY_GAP, lastId);
+		lastIdProperties.getMotherEdit().setAncVisitPregnancyGapLastId(lastId);
 	}
 }
@@ -0,0 +1,44 @@
+package org.sidindonesia.bidanreport.service;
+
+import java.util.Optional;
+
+import org.sidindonesia.bidanreport.integration.qontak.domain.Watermark;
+import org.sidindonesia.bidanreport.integration.qontak.repository.WatermarkRepository;
+import org.sidindonesia.bidanreport.repository.AncVisitRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the {@code latest_anc_visit} table up to date, so the scheduled queries
+ * join the latest ANC visit of a mother by her base entity ID instead of
+ * finding it again among all her ANC visits for every selected row.
+ * <p>
+ * Only the ANC visits added since the last refresh are read, as db-converter
+ * only appends to {@code anc_visit}. Deleting the {@code latest_anc_visit} rows
+ * together with its watermark rebuilds the table on the next refresh.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+@Service
+public class LatestAncVisitService {
+	private static final String LATEST_ANC_VISIT = "latest_anc_visit";
+	private final AncVisitRepository ancVisitRepository;
+	private final WatermarkRepository watermarkRepository;
+
+	public void refreshLatestAncVisits() {
+		long lastId = watermarkRepository.findById(LATEST_ANC_VISIT).map(Watermark::getLastId).orElse(0L);
+		Optional<Long> optLatestANCVisitEventId = ancVisitRepository.findLastEventId();
+		if (optLatestANCVisitEventId.isEmpty() || optLatestANCVisitEventId.get() <= lastId) {
+			return;
+		}
+
+		int upsertedCount = ancVisitRepository.upsertLatestAncVisits(lastId, optLatestANCVisitEventId.get());
+		watermarkRepository.upsert(LATEST_ANC_VISIT, optLatestANCVisitEventId.get());
+		log.debug("Latest ANC visit of {} mother(s) refreshed up to event ID {}", upsertedCount,
+			optLatestANCVisitEventId.get());
+	}
+}
@@ -0,0 +1,81 @@
+package org.sidindonesia.bidanreport.service;
+
+import java.util.Comparator;
+import java.util.Optional;
+
+import org.sidindonesia.bidanreport.integration.qontak.domain.Watermark;
+import org.sidindonesia.bidanreport.integration.qontak.repository.WatermarkRepository;
+import org.sidindonesia.bidanreport.repository.AncRegisterRepository;
+import org.sidindonesia.bidanreport.repository.ClientMotherRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the {@code mother_profile} table up to date, so the scheduled queries
+ * join the latest full name, LMP, EDD, WhatsApp consent and height of a mother
+ * by her base entity ID instead of looking them up in {@code client_mother} and
+ * {@code anc_register} again for every selected row.
+ * <p>
+ * Only the clients with a server version, and the ANC registers with an event
+ * ID, greater than at the last refresh are read. Deleting the
+ * {@code mother_profile} rows together with their watermarks rebuilds the table
+ * on the next refresh.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+@Service
+public class MotherProfileService {
+	private static final String MOTHER_PROFILE_CLIENT_MOTHER = "mother_profile.client_mother";
+	private static final String MOTHER_PROFILE_ANC_REGISTER = "mother_profile.anc_register";
+	/**
+	 * Server versions are epoch milliseconds kept as varchar, without leading
+	 * zeros, so a longer one is greater and ones of the same length compare as
+	 * text.
+	 */
+	static final Comparator<String> SERVER_VERSION_ORDER = Comparator.comparingInt(String::length)
+		.thenComparing(Comparator.naturalOrder());
+	private final ClientMotherRepository clientMotherRepository;
+	private final AncRegisterRepository ancRegisterRepository;
+	private final WatermarkRepository watermarkRepository;
+
+	public void refreshMotherProfiles() {
+		refreshFullNames();
+		refreshAncRegisters();
+	}
+
+	private void refreshFullNames() {
+		// kept as text, compared in SERVER_VERSION_ORDER here and in the queries
+		String lastServerVersionEpoch = watermarkRepository.findById(MOTHER_PROFILE_CLIENT_MOTHER)
+			.map(Watermark::getLastValue).orElse("");
+		Optional<String> optLatestServerVersionEpoch = clientMotherRepository.findLastServerVersionEpoch();
+		if (optLatestServerVersionEpoch.isEmpty()
+			|| SERVER_VERSION_ORDER.compare(optLatestServerVersionEpoch.get(), lastServerVersionEpoch) <= 0) {
+			return;
+		}
+
+		int upsertedCount = clientMotherRepository.upsertMotherProfileFullNames(lastServerVersionEpoch,
+			optLatestServerVersionEpoch.get());
+		watermarkRepository.upsertLastValue(MOTHER_PROFILE_CLIENT_MOTHER, optLatestServerVersionEpoch.get());
+		log.debug("Full name of {} mother(s) refreshed up to server version {}", upsertedCount,
+			optLatestServerVersionEpoch.get());
+	}
+
+	private void refreshAncRegisters() {
+		long lastId = watermarkRepository.findById(MOTHER_PROFILE_ANC_REGISTER).map(Watermark::getLastId).orElse(0L);
+		Optional<Long> optLatestANCRegisterEventId = ancRegisterRepository.findLastEventId();
+		if (optLatestANCRegisterEventId.isEmpty() || optLatestANCRegisterEventId.get() <= lastId) {
+			return;
+		}
+
+		int upsertedCount = ancRegisterRepository.upsertMotherProfileAncRegisters(lastId,
+			optLatestANCRegisterEventId.get());
+		ancRegisterRepository.upsertMotherProfileHeights(lastId, optLatestANCRegisterEventId.get());
+		watermarkRepository.upsert(MOTHER_PROFILE_ANC_REGISTER, optLatestANCRegisterEventId.get());
+		log.debug("ANC register of {} mother(s) refreshed up to event ID {}", upsertedCount,
+			optLatestANCRegisterEventId.get());
+	}
+}
@@ -0,0 +1,120 @@
+package org.sidindonesia.bidanreport.service;
+
+import static java.util.stream.Collectors.toList;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.persistence.EntityManager;
+
+import org.sidindonesia.bidanreport.repository.MotherEditRepository;
+import org.sidindonesia.bidanreport.repository.MotherIdentityRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Explains the native queries of the schedulers, the ones declared in
+ * {@link MotherIdentityRepository} and {@link MotherEditRepository}, to find
+ * the tables they still read with a sequential scan. When
+ * {@code query-plan-check.enabled} this is done once on startup and every
+ * sequential scan is logged as a warning, so a missing index, or one not
+ * created yet by Liquibase, shows up before the scheduled jobs run.
+ * <p>
+ * The plans are the ones of the data currently in the database: on small
+ * tables a sequential scan is cheaper than any index and expected.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+@Service
+public class QueryPlanService {
+	private static final List<Class<?>> SCHEDULER_REPOSITORIES = List.of(MotherIdentityRepository.class,
+		MotherEditRepository.class);
+	private static final Pattern SEQ_SCAN_ON = Pattern.compile("Seq Scan on (\\w+)");
+	private final EntityManager entityManager;
+
+	@Value("${query-plan-check.enabled}")
+	private boolean isQueryPlanCheckEnabled;
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void checkQueryPlansOnStartup() {
+		if (!isQueryPlanCheckEnabled) {
+			return;
+		}
+		findSequentialScans().forEach((queryName, tableNames) -> {
+			if (tableNames.isEmpty()) {
+				log.info("Query {} does not scan any table sequentially", queryName);
+			} else {
+				log.warn("Query {} scans table(s) {} sequentially", queryName, tableNames);
+			}
+		});
+	}
+
+	/**
+	 * @return the tables scanned sequentially by every scheduler query, keyed by
+	 *         its repository and method name
+	 */
+	public Map<String, List<String>> findSequentialScans() {
+		Map<String, List<String>> sequentialScans = new LinkedHashMap<>();
+		for (Class<?> repositoryInterface : SCHEDULER_REPOSITORIES) {
+			for (Method method : repositoryInterface.getDeclaredMethods()) {
+				Query query = method.getAnnotation(Query.class);
+				if (query == null || !query.nativeQuery() || method.isAnnotationPresent(Modifying.class)) {
+					continue;
+				}
+				Object[] parameters = Arrays.stream(method.getParameterTypes())
+					.map(QueryPlanService::sampleValueOf).toArray();
+				sequentialScans.put(repositoryInterface.getSimpleName() + "." + method.getName(),
+					findSequentialScans(explain(query.value(), parameters)));
+			}
+		}
+		return sequentialScans;
+	}
+
+	/**
+	 * Runs {@code EXPLAIN} on a native query without executing it.
+	 *
+	 * @return the lines of the query plan
+	 */
+	public List<String> explain(String nativeQuery, Object... parameters) {
+		javax.persistence.Query explainQuery = entityManager.createNativeQuery("EXPLAIN " + nativeQuery);
+		for (int i = 0; i < parameters.length; i++) {
+			explainQuery.setParameter(i + 1, parameters[i]);
+		}
+		@SuppressWarnings("unchecked")
+		List<Object> planLines = explainQuery.getResultList();
+		return planLines.stream().map(String::valueOf).collect(toList());
+	}
+
+	private static List<String> findSequentialScans(List<String> planLines) {
+		return planLines.stream().map(SEQ_SCAN_ON::matcher).filter(Matcher::find).map(matcher -> matcher.group(1))
+			.distinct().collect(toList());
+	}
+
+	/**
+	 * The plan of a query barely depends on its parameters, any value of the
+	 * right type will do.
+	 */
+	private static Object sampleValueOf(Class<?> parameterType) {
+		if (Integer.class.equals(parameterType) || int.class.equals(parameterType)) {
+			return 0;
+		}
+		if (Long.class.equals(parameterType) || long.class.equals(parameterType)) {
+			return 0L;
+		}
+		throw new IllegalArgumentException("No sample value for a query parameter of type " + parameterType);
+	}
+}
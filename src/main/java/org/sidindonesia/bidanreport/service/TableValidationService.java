@@ -0,0 +1,156 @@
+package org.sidindonesia.bidanreport.service;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.hibernate.jpa.QueryHints;
+import org.sidindonesia.bidanreport.config.property.ExcelExportProperties;
+import org.sidindonesia.bidanreport.controller.request.ValidationRequestParams;
+import org.sidindonesia.bidanreport.util.ExcelSheetUtil;
+import org.sidindonesia.bidanreport.util.JpaEntityUtil;
+import org.sidindonesia.bidanreport.util.TableSheetWriter;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Validates that the requested columns are not null or blank. The checks are
+ * pushed down to the database as SQL predicates, so only the invalid rows in
+ * the date range of the requested tables are read.
+ */
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+@Service
+public class TableValidationService {
+	private static final String DATE_CREATED_FIELD_NAME = "dateCreated";
+	private static final String EMPTY_COLUMNS = "empty_columns";
+	private final ApplicationContext context;
+	private final EntityManager entityManager;
+	private final ExcelExportProperties excelExportProperties;
+
+	/**
+	 * One sheet per requested table listing the ID column(s), {@code date_created}
+	 * and the requested columns of every row having at least one of them empty.
+	 * A table requested without columns has all of its columns validated.
+	 *
+	 * @throws ResponseStatusException with {@link HttpStatus#BAD_REQUEST} for an
+	 *                                 unknown table or column
+	 */
+	public ByteArrayInputStream validateThenRetrieveAsExcelSheets(LocalDateTime fromDate, LocalDateTime untilDate,
+		Set<ValidationRequestParams.Table> tables) {
+		Map<String, Class<?>> entityClassesByTableName = JpaEntityUtil
+			.findAllEntityClasses(new Repositories(context)).stream()
+			.collect(toMap(JpaEntityUtil::getTableName, Function.identity()));
+
+		List<ValidationRequestParams.Table> sortedTables = tables.stream()
+			.sorted(Comparator.comparing(ValidationRequestParams.Table::getName)).collect(toList());
+		SXSSFWorkbook workbook = new SXSSFWorkbook(excelExportProperties.getRowAccessWindowSize());
+		try (workbook; ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+			CellStyle dateTimeCellStyle = ExcelSheetUtil.createDateTimeCellStyle(workbook);
+			for (ValidationRequestParams.Table table : sortedTables) {
+				Class<?> entityClass = entityClassesByTableName.get(table.getName());
+				if (entityClass == null) {
+					throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown table: " + table.getName());
+				}
+				writeInvalidRows(workbook, entityClass, table.getColumns(), fromDate, untilDate, dateTimeCellStyle);
+			}
+			workbook.write(outputStream);
+			return new ByteArrayInputStream(outputStream.toByteArray());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			workbook.dispose();
+		}
+	}
+
+	private void writeInvalidRows(SXSSFWorkbook workbook, Class<?> entityClass, Set<String> requestedColumns,
+		LocalDateTime fromDate, LocalDateTime untilDate, CellStyle dateTimeCellStyle) {
+		String tableName = JpaEntityUtil.getTableName(entityClass);
+		List<Field> columnFields = JpaEntityUtil.getColumnFields(entityClass);
+		List<Field> idFields = JpaEntityUtil.getIdFields(columnFields);
+		Field dateCreatedField = columnFields.stream()
+			.filter(field -> DATE_CREATED_FIELD_NAME.equals(field.getName())).findFirst().orElseThrow();
+		List<Field> checkedFields = resolveCheckedFields(tableName, columnFields, idFields, requestedColumns);
+
+		Set<String> selectedColumns = new LinkedHashSet<>(JpaEntityUtil.getColumnNames(idFields));
+		selectedColumns.add(JpaEntityUtil.getColumnName(dateCreatedField));
+		List<String> headerColumns = new ArrayList<>(selectedColumns);
+		headerColumns.add(EMPTY_COLUMNS);
+		headerColumns.addAll(JpaEntityUtil.getColumnNames(checkedFields));
+
+		String sql = "SELECT " + String.join(", ", selectedColumns) + ", CONCAT_WS(', ', "
+			+ checkedFields.stream().map(field -> "CASE WHEN " + isEmpty(field) + " THEN '"
+				+ JpaEntityUtil.getColumnName(field) + "' END").collect(joining(", "))
+			+ ") AS " + EMPTY_COLUMNS + ", " + String.join(", ", JpaEntityUtil.getColumnNames(checkedFields))
+			+ " FROM {h-schema}" + tableName + " WHERE " + JpaEntityUtil.getColumnName(dateCreatedField)
+			+ " BETWEEN :fromDate AND :untilDate AND ("
+			+ checkedFields.stream().map(TableValidationService::isEmpty).collect(joining(" OR ")) + ")"
+			+ " ORDER BY " + String.join(", ", JpaEntityUtil.getColumnNames(idFields));
+
+		TableSheetWriter sheetWriter = new TableSheetWriter(workbook, tableName, headerColumns, dateTimeCellStyle);
+		@SuppressWarnings("unchecked")
+		Stream<Object[]> invalidRows = entityManager.createNativeQuery(sql).setParameter("fromDate", fromDate)
+			.setParameter("untilDate", untilDate)
+			.setHint(QueryHints.HINT_FETCH_SIZE, excelExportProperties.getPageSize()).getResultStream();
+		try (invalidRows) {
+			invalidRows.forEach(row -> sheetWriter.writeRow(Arrays.asList(row)));
+		}
+		log.debug("Found {} row(s) with empty column(s) in table `{}`", sheetWriter.getRowCount(), tableName);
+	}
+
+	/**
+	 * Requested columns may be given by column or field name, and are checked
+	 * against the entity so that only known column names end up in the SQL.
+	 */
+	private static List<Field> resolveCheckedFields(String tableName, List<Field> columnFields, List<Field> idFields,
+		Set<String> requestedColumns) {
+		if (requestedColumns.isEmpty()) {
+			return columnFields.stream().filter(field -> !idFields.contains(field)).collect(toList());
+		}
+		List<Field> checkedFields = new ArrayList<>();
+		for (String requestedColumn : new TreeSet<>(requestedColumns)) {
+			Field checkedField = columnFields.stream()
+				.filter(field -> requestedColumn.equals(JpaEntityUtil.getColumnName(field))
+					|| requestedColumn.equals(field.getName()))
+				.findFirst().orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"Unknown column `" + requestedColumn + "` of table: " + tableName));
+			checkedFields.add(checkedField);
+		}
+		return checkedFields;
+	}
+
+	private static String isEmpty(Field field) {
+		String columnName = JpaEntityUtil.getColumnName(field);
+		return String.class.equals(field.getType()) ? "(" + columnName + " IS NULL OR TRIM(" + columnName + ") = '')"
+			: columnName + " IS NULL";
+	}
+}
@@ -2,9 +2,14 @@ package org.sidindonesia.bidanreport.util;
 
 import static java.util.stream.Collectors.toList;
 
-import java.io.FileWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
 import org.apache.commons.csv.CSVFormat;
@@ -13,13 +18,17 @@ import org.sidindonesia.bidanreport.repository.projection.AncVisitReminderProjec
 import org.sidindonesia.bidanreport.repository.projection.HealthEducationProjection;
 import org.sidindonesia.bidanreport.repository.projection.MotherIdentityWhatsAppProjection;
 import org.sidindonesia.bidanreport.repository.projection.PregnancyGapProjection;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Builds the CSV contact lists uploaded to Qontak for bulk broadcasts, one
+ * column per parameter of the message template.
+ */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
-@Slf4j
 public class CSVUtil {
 	private static final String CUSTOMER_NAME = "customer_name";
 	private static final String PHONE_NUMBER = "phone_number";
@@ -65,87 +74,67 @@ public class CSVUtil {
 	private static final String[] HEADERS_FOR_ANC_VISIT_REMINDER = { PHONE_NUMBER, FULL_NAME, CUSTOMER_NAME,
 			COMPANY_KEY, VISIT_NUMBER };
 
-	private static final String ERROR_WRITING_CSV_FILE_WITH_ERROR_MESSAGE_ERROR_OBJECT = "Error writing CSV file: {} with error message: {}, error object: {}";
-
-	public static void createContactListCSVFileForHealthEducation(
-		List<HealthEducationProjection> healthEducationProjections, String csvFileName) throws IOException {
-		FileWriter out = new FileWriter(csvFileName);
-		try (CSVPrinter printer = new CSVPrinter(out,
-			CSVFormat.DEFAULT.builder().setHeader(HEADERS_FOR_HEALTH_EDUCATION).build())) {
-			healthEducationProjections.forEach(projection -> {
-				try {
-					String fullName = projection.getFullName() == null ? "-" : projection.getFullName();
-					printer.printRecord(IndonesiaPhoneNumberUtil.sanitize(projection.getMobilePhoneNumber()), fullName,
-						fullName, COMPANY_VALUE, projection.getPregnancyTrimester(),
-						projection.getCalculatedGestationalAge());
-				} catch (IOException e) {
-					log.error(ERROR_WRITING_CSV_FILE_WITH_ERROR_MESSAGE_ERROR_OBJECT, csvFileName, e.getMessage(), e);
-				}
-			});
-		}
+	public static Resource createContactListCSVForHealthEducation(
+		List<HealthEducationProjection> healthEducationProjections, String csvFileName) {
+		return createCSV(csvFileName, HEADERS_FOR_HEALTH_EDUCATION, healthEducationProjections, projection -> {
+			String fullName = projection.getFullName() == null ? "-" : projection.getFullName();
+			return Arrays.asList(IndonesiaPhoneNumberUtil.sanitize(projection.getMobilePhoneNumber()), fullName,
+				fullName, COMPANY_VALUE, projection.getPregnancyTrimester(), projection.getCalculatedGestationalAge());
+		});
 	}
 
-	public static void createContactListCSVFileForIntroMessage(
+	public static Resource createContactListCSVForIntroMessage(
 		List<MotherIdentityWhatsAppProjection> motherIdentityProjections, String csvFileName,
-		String districtHealthOffice) throws IOException {
-		FileWriter out = new FileWriter(csvFileName);
-		try (CSVPrinter printer = new CSVPrinter(out,
-			CSVFormat.DEFAULT.builder().setHeader(HEADERS_FOR_INTRO).build())) {
-			motherIdentityProjections.forEach(projection -> {
-				try {
-					String fullName = projection.getFullName() == null ? "-" : projection.getFullName();
-					printer.printRecord(IndonesiaPhoneNumberUtil.sanitize(projection.getMobilePhoneNumber()), fullName,
-						fullName, COMPANY_VALUE, districtHealthOffice);
-				} catch (IOException e) {
-					log.error(ERROR_WRITING_CSV_FILE_WITH_ERROR_MESSAGE_ERROR_OBJECT, csvFileName, e.getMessage(), e);
-				}
-			});
-		}
+		String districtHealthOffice) {
+		return createCSV(csvFileName, HEADERS_FOR_INTRO, motherIdentityProjections, projection -> {
+			String fullName = projection.getFullName() == null ? "-" : projection.getFullName();
+			return Arrays.asList(IndonesiaPhoneNumberUtil.sanitize(projection.getMobilePhoneNumber()), fullName,
+				fullName, COMPANY_VALUE, districtHealthOffice);
+		});
 	}
 
-	public static void createContactListCSVFileForPregnancyGapMessage(
-		List<PregnancyGapProjection> pregnancyGapProjections, String csvFileName) throws IOException {
-		FileWriter out = new FileWriter(csvFileName);
-		try (CSVPrinter printer = new CSVPrinter(out,
-			CSVFormat.DEFAULT.builder().setHeader(HEADERS_FOR_PREGNANCY_GAP).build())) {
-			pregnancyGapProjections.forEach(projection -> {
-				try {
-					String fullName = projection.getFullName() == null ? "-" : projection.getFullName();
-					List<String> values = Stream
-						.of(IndonesiaPhoneNumberUtil.sanitize(projection.getMobilePhoneNumber()), fullName, fullName,
-							COMPANY_VALUE)
-						.collect(toList());
-					String csv = projection.getPregnancyGapCommaSeparatedValues();
-					List<String> pregnancyGapValues = Stream.of(csv.split(",")).map(String::trim).collect(toList());
-					values.addAll(pregnancyGapValues);
+	public static Resource createContactListCSVForPregnancyGapMessage(
+		List<PregnancyGapProjection> pregnancyGapProjections, String csvFileName) {
+		return createCSV(csvFileName, HEADERS_FOR_PREGNANCY_GAP, pregnancyGapProjections, projection -> {
+			String fullName = projection.getFullName() == null ? "-" : projection.getFullName();
+			List<String> values = Stream.of(IndonesiaPhoneNumberUtil.sanitize(projection.getMobilePhoneNumber()),
+				fullName, fullName, COMPANY_VALUE).collect(toList());
+			String csv = projection.getPregnancyGapCommaSeparatedValues();
+			List<String> pregnancyGapValues = Stream.of(csv.split(",")).map(String::trim).collect(toList());
+			values.addAll(pregnancyGapValues);
+			return values;
+		});
+	}
 
-					printer.printRecord(values);
-				} catch (IOException e) {
-					log.error(ERROR_WRITING_CSV_FILE_WITH_ERROR_MESSAGE_ERROR_OBJECT, csvFileName, e.getMessage(), e);
-				}
+	public static Resource createContactListCSVForANCVisitReminderMessage(
+		List<AncVisitReminderProjection> allPregnantWomenToBeRemindedForTheNextANCVisit, String csvFileName) {
+		return createCSV(csvFileName, HEADERS_FOR_ANC_VISIT_REMINDER, allPregnantWomenToBeRemindedForTheNextANCVisit,
+			projection -> {
+				String fullName = projection.getFullName() == null ? "-" : projection.getFullName();
+				return Arrays.asList(IndonesiaPhoneNumberUtil.sanitize(projection.getMobilePhoneNumber()), fullName,
+					fullName, COMPANY_VALUE, String.valueOf(projection.getLatestAncVisitNumber() + 1));
 			});
-		}
 	}
 
-	public static void createContactListCSVFileForANCVisitReminderMessage(
-		List<AncVisitReminderProjection> allPregnantWomenToBeRemindedForTheNextANCVisit, String csvFileName)
-		throws IOException {
-		FileWriter out = new FileWriter(csvFileName);
-		try (CSVPrinter printer = new CSVPrinter(out,
-			CSVFormat.DEFAULT.builder().setHeader(HEADERS_FOR_ANC_VISIT_REMINDER).build())) {
-			allPregnantWomenToBeRemindedForTheNextANCVisit.forEach(projection -> {
-				try {
-					String fullName = projection.getFullName() == null ? "-" : projection.getFullName();
-					List<String> values = Stream
-						.of(IndonesiaPhoneNumberUtil.sanitize(projection.getMobilePhoneNumber()), fullName, fullName,
-							COMPANY_VALUE, String.valueOf(projection.getLatestAncVisitNumber() + 1))
-						.collect(toList());
-
-					printer.printRecord(values);
-				} catch (IOException e) {
-					log.error(ERROR_WRITING_CSV_FILE_WITH_ERROR_MESSAGE_ERROR_OBJECT, csvFileName, e.getMessage(), e);
-				}
-			});
+	/**
+	 * @param csvFileName only used as the file name of the multipart upload
+	 */
+	private static <T> Resource createCSV(String csvFileName, String[] headers, List<T> projections,
+		Function<T, List<?>> toRecord) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (CSVPrinter printer = new CSVPrinter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+			CSVFormat.DEFAULT.builder().setHeader(headers).build())) {
+			for (T projection : projections) {
+				printer.printRecord(toRecord.apply(projection));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error writing CSV " + csvFileName, e);
 		}
+		return new ByteArrayResource(out.toByteArray()) {
+			@Override
+			public String getFilename() {
+				return csvFileName;
+			}
+		};
 	}
 }
@@ -0,0 +1,73 @@
+package org.sidindonesia.bidanreport.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.util.WorkbookUtil;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ExcelSheetUtil {
+	public static final String EXCEL_MEDIA_TYPE = "application/vnd.ms-excel";
+	public static final int MAX_ROW_INDEX = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+
+	public static CellStyle createDateTimeCellStyle(Workbook workbook) {
+		CellStyle dateTimeCellStyle = workbook.createCellStyle();
+		dateTimeCellStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+		return dateTimeCellStyle;
+	}
+
+	/**
+	 * Creates a sheet named after the table, suffixed with the part number when a
+	 * table does not fit into one sheet.
+	 */
+	public static Sheet createSheetWithHeaderRow(Workbook workbook, String tableName, int part,
+		List<String> columnNames) {
+		Sheet sheet = workbook
+			.createSheet(WorkbookUtil.createSafeSheetName(part > 1 ? tableName + " (" + part + ")" : tableName));
+		Row headerRow = sheet.createRow(0);
+		for (int i = 0; i < columnNames.size(); i++) {
+			headerRow.createCell(i).setCellValue(columnNames.get(i));
+		}
+		return sheet;
+	}
+
+	public static void writeRow(Sheet sheet, int rowIndex, List<Object> values, CellStyle dateTimeCellStyle) {
+		Row row = sheet.createRow(rowIndex);
+		for (int i = 0; i < values.size(); i++) {
+			Object value = values.get(i);
+			if (value != null) {
+				setCellValue(row.createCell(i), value, dateTimeCellStyle);
+			}
+		}
+	}
+
+	private static void setCellValue(Cell cell, Object value, CellStyle dateTimeCellStyle) {
+		if (value instanceof Number) {
+			cell.setCellValue(((Number) value).doubleValue());
+		} else if (value instanceof Boolean) {
+			cell.setCellValue((Boolean) value);
+		} else if (value instanceof LocalDateTime) {
+			cell.setCellValue((LocalDateTime) value);
+			cell.setCellStyle(dateTimeCellStyle);
+		} else if (value instanceof LocalDate) {
+			cell.setCellValue((LocalDate) value);
+			cell.setCellStyle(dateTimeCellStyle);
+		} else if (value instanceof Date) {
+			cell.setCellValue((Date) value);
+			cell.setCellStyle(dateTimeCellStyle);
+		} else {
+			cell.setCellValue(value.toString());
+		}
+	}
+}
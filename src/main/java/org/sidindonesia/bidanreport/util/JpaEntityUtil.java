@@ -0,0 +1,86 @@
+package org.sidindonesia.bidanreport.util;
+
+import static java.util.stream.Collectors.toList;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.sidindonesia.bidanreport.domain.AncClose;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.util.ReflectionUtils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class JpaEntityUtil {
+	/**
+	 * {@code @Value} placeholder of the schema holding the tables of the
+	 * entities.
+	 */
+	public static final String SCHEMA_NAME = "${spring.jpa.properties.hibernate.default_schema:sid}";
+	private static final String JPA_ENTITY_PACKAGE_NAME = AncClose.class.getPackageName();
+
+	/**
+	 * Entity classes of the exported tables having a repository, sorted by table
+	 * name.
+	 */
+	public static List<Class<?>> findAllEntityClasses(Repositories repositories) {
+		return StreamSupport.stream(repositories.spliterator(), false)
+			.filter(domainClass -> JPA_ENTITY_PACKAGE_NAME.equals(domainClass.getPackageName()))
+			.sorted(Comparator.comparing(JpaEntityUtil::getTableName)).collect(toList());
+	}
+
+	public static String getTableName(Class<?> entityClass) {
+		Table table = entityClass.getAnnotation(Table.class);
+		if (table != null && !table.name().isEmpty()) {
+			return table.name();
+		}
+		Entity entity = entityClass.getAnnotation(Entity.class);
+		if (entity != null && !entity.name().isEmpty()) {
+			return entity.name();
+		}
+		return entityClass.getSimpleName();
+	}
+
+	/**
+	 * Persistent fields of the entity class in declaration order, made
+	 * accessible so their values can be read by {@link #getColumnValues}.
+	 */
+	public static List<Field> getColumnFields(Class<?> entityClass) {
+		return Stream.of(entityClass.getDeclaredFields())
+			.filter(field -> !Modifier.isStatic(field.getModifiers()) && !Modifier.isTransient(field.getModifiers())
+				&& !field.isAnnotationPresent(Transient.class))
+			.map(field -> {
+				ReflectionUtils.makeAccessible(field);
+				return field;
+			}).collect(toList());
+	}
+
+	public static List<Field> getIdFields(List<Field> columnFields) {
+		return columnFields.stream().filter(field -> field.isAnnotationPresent(Id.class)).collect(toList());
+	}
+
+	public static String getColumnName(Field field) {
+		Column column = field.getAnnotation(Column.class);
+		return column != null && !column.name().isEmpty() ? column.name() : field.getName();
+	}
+
+	public static List<String> getColumnNames(List<Field> columnFields) {
+		return columnFields.stream().map(JpaEntityUtil::getColumnName).collect(toList());
+	}
+
+	public static List<Object> getColumnValues(List<Field> columnFields, Object entity) {
+		return columnFields.stream().map(field -> ReflectionUtils.getField(field, entity)).collect(toList());
+	}
+}
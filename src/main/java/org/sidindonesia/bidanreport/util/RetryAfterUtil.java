@@ -0,0 +1,40 @@
+package org.sidindonesia.bidanreport.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RetryAfterUtil {
+
+	/**
+	 * Parses a Retry-After header, which is either a number of seconds or an
+	 * HTTP date, into the duration to wait from now. Returns {@code null} when
+	 * the header is missing or cannot be parsed.
+	 */
+	public static Duration parse(String retryAfter) {
+		return parse(retryAfter, Clock.systemUTC());
+	}
+
+	static Duration parse(String retryAfter, Clock clock) {
+		if (retryAfter == null || retryAfter.isBlank()) {
+			return null;
+		}
+		try {
+			return Duration.ofSeconds(Math.max(0, Long.parseLong(retryAfter.trim())));
+		} catch (NumberFormatException e) {
+			try {
+				Duration untilRetry = Duration.between(ZonedDateTime.now(clock),
+					ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+				return untilRetry.isNegative() ? Duration.ZERO : untilRetry;
+			} catch (DateTimeParseException ex) {
+				return null;
+			}
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package org.sidindonesia.bidanreport.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Appends the rows of one table to a workbook, continuing on a new sheet
+ * "table (n)" whenever the current sheet is full. Like the workbook itself, it
+ * must only be used by one thread at a time, even when the writers of
+ * different tables share the same workbook.
+ */
+public class TableSheetWriter {
+	private final Workbook workbook;
+	private final String tableName;
+	private final List<String> columnNames;
+	private final CellStyle dateTimeCellStyle;
+	private final List<String> sheetNames = new ArrayList<>();
+	private Sheet sheet;
+	private int part = 1;
+	private int rowIndex = 0;
+
+	public TableSheetWriter(Workbook workbook, String tableName, List<String> columnNames,
+		CellStyle dateTimeCellStyle) {
+		this.workbook = workbook;
+		this.tableName = tableName;
+		this.columnNames = columnNames;
+		this.dateTimeCellStyle = dateTimeCellStyle;
+		this.sheet = createSheet();
+	}
+
+	public void writeRow(List<Object> values) {
+		if (rowIndex == ExcelSheetUtil.MAX_ROW_INDEX) {
+			part++;
+			sheet = createSheet();
+			rowIndex = 0;
+		}
+		ExcelSheetUtil.writeRow(sheet, ++rowIndex, values, dateTimeCellStyle);
+	}
+
+	private Sheet createSheet() {
+		Sheet newSheet = ExcelSheetUtil.createSheetWithHeaderRow(workbook, tableName, part, columnNames);
+		sheetNames.add(newSheet.getSheetName());
+		return newSheet;
+	}
+
+	/**
+	 * Names of the sheets written so far, in part order.
+	 */
+	public List<String> getSheetNames() {
+		return sheetNames;
+	}
+
+	public long getRowCount() {
+		return (part - 1L) * ExcelSheetUtil.MAX_ROW_INDEX + rowIndex;
+	}
+}
@@ -5,9 +5,9 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.sidindonesia.bidanreport.IntegrationTest;
-import org.sidindonesia.jpatoexcel.exception.ExcelWriteException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,8 +30,8 @@ class ExcelSheetControllerFailingTests {
 	}
 
 	@Test
-	void testDownloadAllTablesAsExcelSheets_withOneDatabaseTableDropped_thenExcelWriteExceptionWillBeThrown() {
-		assertThrows(ExcelWriteException.class, () -> {
+	void testDownloadAllTablesAsExcelSheets_withOneDatabaseTableDropped_thenDataAccessExceptionWillBeThrown() {
+		assertThrows(DataAccessException.class, () -> {
 			excelSheetController.downloadAllTablesAsExcelSheets();
 		});
 	}
@@ -1,18 +1,59 @@
 package org.sidindonesia.bidanreport.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.validation.Validator;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.sidindonesia.bidanreport.IntegrationTest;
+import org.sidindonesia.bidanreport.controller.request.DeltaExportRequest;
+import org.sidindonesia.bidanreport.controller.request.ValidationRequestParams;
 import org.sidindonesia.bidanreport.domain.MotherIdentity;
 import org.sidindonesia.bidanreport.repository.MotherIdentityRepository;
+import org.sidindonesia.bidanreport.service.CsvExportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Integration tests for {@link ExcelSheetController}.
@@ -22,6 +63,7 @@ import org.springframework.transaction.annotation.Transactional;
 class ExcelSheetControllerTests {
 
 	private static final Long DEFAULT_ID = 1L;
+	private static final String ARROW_UUID = "123e4567-e89b-12d3-a456-426614174000";
 
 	@Autowired
 	private ExcelSheetController excelSheetController;
@@ -29,6 +71,12 @@ class ExcelSheetControllerTests {
 	@Autowired
 	private MotherIdentityRepository motherIdentityRepository;
 
+	@Autowired
+	private Validator validator;
+
+	@Autowired
+	private JdbcOperations jdbcOperations;
+
 	private MotherIdentity motherIdentity;
 
 	@BeforeEach
@@ -48,9 +96,268 @@ class ExcelSheetControllerTests {
 		assertThat(response.getBody()).isInstanceOf(InputStreamResource.class);
 	}
 
+	@Test
+	void testDownloadAllTablesAsExcelSheets_withUnchangedData_thenCachedWorkbookIsServed() throws Exception {
+		byte[] firstWorkbook = excelSheetController.downloadAllTablesAsExcelSheets().getBody().getInputStream()
+			.readAllBytes();
+		byte[] secondWorkbook = excelSheetController.downloadAllTablesAsExcelSheets().getBody().getInputStream()
+			.readAllBytes();
+		assertThat(secondWorkbook).isEqualTo(firstWorkbook);
+	}
+
+	@Test
+	void testStreamAllTablesAsExcelSheets_withHappyFlow() throws Exception {
+		ResponseEntity<StreamingResponseBody> response = excelSheetController.streamAllTablesAsExcelSheets(false);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		response.getBody().writeTo(outputStream);
+		assertThat(outputStream.size()).isPositive();
+	}
+
+	@Test
+	void testStreamAllTablesAsExcelSheets_inParallel() throws Exception {
+		ResponseEntity<StreamingResponseBody> response = excelSheetController.streamAllTablesAsExcelSheets(true);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		response.getBody().writeTo(outputStream);
+		assertThat(outputStream.size()).isPositive();
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void testStreamAllTablesAsExcelSheets_inParallel_thenSameSheetsAndRowsAsSequentially() throws Exception {
+		// not transactional, so the parallel workers read the same committed rows
+		Map<String, List<List<String>>> sequentialSheets = readSheets(streamAllTablesAsExcelSheets(false));
+		Map<String, List<List<String>>> parallelSheets = readSheets(streamAllTablesAsExcelSheets(true));
+
+		assertThat(sequentialSheets).containsKey("mother_identity");
+		assertThat(sequentialSheets.get("mother_identity")).hasSizeGreaterThan(1);
+		assertThat(parallelSheets).containsExactlyEntriesOf(sequentialSheets);
+	}
+
+	@Test
+	void testStreamAllTablesAsZippedCsvFiles_withGzip() throws Exception {
+		ResponseEntity<StreamingResponseBody> response = excelSheetController.streamAllTablesAsZippedCsvFiles(true);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		response.getBody().writeTo(outputStream);
+
+		try (ZipInputStream zipInputStream = new ZipInputStream(
+			new ByteArrayInputStream(outputStream.toByteArray()))) {
+			ZipEntry entry;
+			boolean hasMotherIdentity = false;
+			while ((entry = zipInputStream.getNextEntry()) != null) {
+				hasMotherIdentity |= entry.getName().equals("mother_identity.csv.gz");
+			}
+			assertThat(hasMotherIdentity).isTrue();
+		}
+	}
+
+	@Test
+	void testStreamAllTablesAsZippedCsvFiles_withNonPositiveEventId_thenRowIsExported() throws Exception {
+		MotherIdentity motherIdentityWithNegativeEventId = new MotherIdentity();
+		motherIdentityWithNegativeEventId.setEventId(-1L);
+		motherIdentityWithNegativeEventId.setDateCreated(LocalDateTime.now());
+		motherIdentityRepository.saveAndFlush(motherIdentityWithNegativeEventId);
+
+		ResponseEntity<StreamingResponseBody> response = excelSheetController.streamAllTablesAsZippedCsvFiles(false);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		response.getBody().writeTo(outputStream);
+
+		try (ZipInputStream zipInputStream = new ZipInputStream(
+			new ByteArrayInputStream(outputStream.toByteArray()))) {
+			ZipEntry entry;
+			while ((entry = zipInputStream.getNextEntry()) != null && !entry.getName().equals("mother_identity.csv")) {
+				// skip the other CSV entries
+			}
+			assertThat(entry).isNotNull();
+			CSVParser parser = CSVFormat.DEFAULT.builder().setHeader().build()
+				.parse(new InputStreamReader(zipInputStream, StandardCharsets.UTF_8));
+			assertThat(parser.getRecords()).extracting(csvRecord -> csvRecord.get("event_id")).contains("-1", "1");
+		}
+	}
+
+	@Test
+	void testStreamNewRowsAsZippedCsvFiles_withWatermarkAboveAllRows_thenWatermarkIsKept() throws Exception {
+		DeltaExportRequest request = new DeltaExportRequest();
+		request.getSinceEventIds().put("mother_identity", Long.MAX_VALUE);
+		ResponseEntity<StreamingResponseBody> response = excelSheetController.streamNewRowsAsZippedCsvFiles(request);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		response.getBody().writeTo(outputStream);
+
+		try (ZipInputStream zipInputStream = new ZipInputStream(
+			new ByteArrayInputStream(outputStream.toByteArray()))) {
+			ZipEntry entry;
+			while ((entry = zipInputStream.getNextEntry()) != null
+				&& !entry.getName().equals(CsvExportService.WATERMARKS_ENTRY_NAME)) {
+				// skip the CSV entries
+			}
+			assertThat(entry).isNotNull();
+			Map<String, Long> watermarks = new ObjectMapper().readValue(zipInputStream,
+				new TypeReference<Map<String, Long>>() {
+				});
+			assertThat(watermarks).containsEntry("mother_identity", Long.MAX_VALUE);
+		}
+	}
+
+	@Test
+	void testStreamNewRowsAsZippedCsvFiles_withWatermarksOfAFullExport_thenTheyAreAcceptedAndKept() throws Exception {
+		// a table with only non-positive event IDs has a non-positive watermark
+		motherIdentityRepository.deleteAllInBatch();
+		MotherIdentity motherIdentityWithNegativeEventId = new MotherIdentity();
+		motherIdentityWithNegativeEventId.setEventId(-1L);
+		motherIdentityWithNegativeEventId.setDateCreated(LocalDateTime.now());
+		motherIdentityRepository.saveAndFlush(motherIdentityWithNegativeEventId);
+		ByteArrayOutputStream fullExport = new ByteArrayOutputStream();
+		excelSheetController.streamAllTablesAsZippedCsvFiles(false).getBody().writeTo(fullExport);
+		Map<String, Long> fullExportWatermarks = readWatermarks(fullExport.toByteArray());
+		assertThat(fullExportWatermarks).containsEntry("mother_identity", -1L);
+
+		DeltaExportRequest request = new DeltaExportRequest();
+		request.getSinceEventIds().putAll(fullExportWatermarks);
+		assertThat(validator.validate(request)).isEmpty();
+		ByteArrayOutputStream deltaExport = new ByteArrayOutputStream();
+		excelSheetController.streamNewRowsAsZippedCsvFiles(request).getBody().writeTo(deltaExport);
+
+		assertThat(readWatermarks(deltaExport.toByteArray())).containsAllEntriesOf(fullExportWatermarks);
+	}
+
+	@Test
+	void testStreamNewRowsAsZippedCsvFiles_withUnknownTable_thenBadRequest() {
+		DeltaExportRequest request = new DeltaExportRequest();
+		request.getSinceEventIds().put("unknown_table", 0L);
+
+		assertThatThrownBy(() -> excelSheetController.streamNewRowsAsZippedCsvFiles(request))
+			.isInstanceOfSatisfying(ResponseStatusException.class,
+				e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+	}
+
+	@Test
+	void testStreamAllTablesAsZippedArrowStreams_thenEveryTableIsReadBackWithItsSchemaAndRows() throws Exception {
+		// PostgreSQL types without an Arrow counterpart, rolled back with the test
+		motherIdentityRepository.flush();
+		jdbcOperations
+			.execute("ALTER TABLE mother_identity ADD COLUMN arrow_uuid uuid, ADD COLUMN arrow_numeric numeric");
+		jdbcOperations.update("UPDATE mother_identity SET arrow_uuid = ?::uuid, arrow_numeric = 1.25 WHERE event_id = ?",
+			ARROW_UUID, DEFAULT_ID);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		excelSheetController.streamAllTablesAsZippedArrowStreams().getBody().writeTo(outputStream);
+
+		Map<String, byte[]> arrowStreams = new LinkedHashMap<>();
+		try (ZipInputStream zipInputStream = new ZipInputStream(
+			new ByteArrayInputStream(outputStream.toByteArray()))) {
+			ZipEntry entry;
+			while ((entry = zipInputStream.getNextEntry()) != null) {
+				arrowStreams.put(entry.getName(), zipInputStream.readAllBytes());
+			}
+		}
+		assertThat(arrowStreams).containsKey("mother_identity.arrow");
+
+		try (BufferAllocator allocator = new RootAllocator()) {
+			for (Map.Entry<String, byte[]> arrowStream : arrowStreams.entrySet()) {
+				String tableName = arrowStream.getKey().replace(".arrow", "");
+				try (ArrowStreamReader reader = new ArrowStreamReader(
+					new ByteArrayInputStream(arrowStream.getValue()), allocator)) {
+					Schema schema = reader.getVectorSchemaRoot().getSchema();
+					long rowCount = 0;
+					List<String> uuidsOfDefaultId = new ArrayList<>();
+					while (reader.loadNextBatch()) {
+						VectorSchemaRoot root = reader.getVectorSchemaRoot();
+						rowCount += root.getRowCount();
+						if (tableName.equals("mother_identity")) {
+							for (int i = 0; i < root.getRowCount(); i++) {
+								if (root.getVector("event_id").getObject(i).equals(DEFAULT_ID)) {
+									uuidsOfDefaultId.add(root.getVector("arrow_uuid").getObject(i).toString());
+									assertThat(root.getVector("arrow_numeric").getObject(i)).hasToString("1.25");
+								}
+							}
+						}
+					}
+					assertThat(rowCount).as(tableName).isEqualTo(
+						jdbcOperations.queryForObject("SELECT COUNT(*) FROM " + tableName, Long.class));
+					if (tableName.equals("mother_identity")) {
+						assertThat(schema.findField("event_id").getType()).isEqualTo(new ArrowType.Int(64, true));
+						assertThat(schema.findField("arrow_uuid").getType()).isEqualTo(ArrowType.Utf8.INSTANCE);
+						assertThat(schema.findField("arrow_numeric").getType()).isEqualTo(ArrowType.Utf8.INSTANCE);
+						assertThat(uuidsOfDefaultId).containsExactly(ARROW_UUID);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void testValidateTableColumns_withScopedTablesAndColumns() throws Exception {
+		ValidationRequestParams params = createValidationRequestParams();
+		params.setTableColumnsString("mother_identity.mobile_phone_number, anc_visit");
+
+		ResponseEntity<Resource> response = excelSheetController
+			.validateTableColumnsThenDownloadAsExcelSheets(params);
+		assertThat(response.getBody().contentLength()).isPositive();
+	}
+
+	@Test
+	void testValidateTableColumns_withUnknownColumn_thenBadRequest() {
+		ValidationRequestParams params = createValidationRequestParams();
+		params.setTableColumnsString("mother_identity.unknown_column");
+
+		assertThatThrownBy(() -> excelSheetController.validateTableColumnsThenDownloadAsExcelSheets(params))
+			.isInstanceOfSatisfying(ResponseStatusException.class,
+				e -> assertThat(e.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST));
+	}
+
+	private static Map<String, Long> readWatermarks(byte[] zipBytes) throws IOException {
+		try (ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(zipBytes))) {
+			ZipEntry entry;
+			while ((entry = zipInputStream.getNextEntry()) != null
+				&& !entry.getName().equals(CsvExportService.WATERMARKS_ENTRY_NAME)) {
+				// skip the CSV entries
+			}
+			assertThat(entry).isNotNull();
+			return new ObjectMapper().readValue(zipInputStream, new TypeReference<Map<String, Long>>() {
+			});
+		}
+	}
+
+	private byte[] streamAllTablesAsExcelSheets(boolean parallel) throws IOException {
+		ResponseEntity<StreamingResponseBody> response = excelSheetController.streamAllTablesAsExcelSheets(parallel);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		response.getBody().writeTo(outputStream);
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * @return the formatted cells of every row, keyed by sheet name in workbook
+	 *         order
+	 */
+	private static Map<String, List<List<String>>> readSheets(byte[] workbookBytes) throws IOException {
+		Map<String, List<List<String>>> sheets = new LinkedHashMap<>();
+		DataFormatter dataFormatter = new DataFormatter();
+		try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(workbookBytes))) {
+			for (Sheet sheet : workbook) {
+				List<List<String>> rows = new ArrayList<>();
+				for (Row row : sheet) {
+					List<String> cells = new ArrayList<>();
+					cells.add(String.valueOf(row.getRowNum()));
+					for (Cell cell : row) {
+						cells.add(cell.getColumnIndex() + "=" + dataFormatter.formatCellValue(cell));
+					}
+					rows.add(cells);
+				}
+				sheets.put(sheet.getSheetName(), rows);
+			}
+		}
+		return sheets;
+	}
+
+	private ValidationRequestParams createValidationRequestParams() {
+		ValidationRequestParams params = new ValidationRequestParams();
+		params.setFromDateString(LocalDateTime.now().minusDays(1).toString());
+		params.setUntilDateString(LocalDateTime.now().plusDays(1).toString());
+		return params;
+	}
+
 	private MotherIdentity createMotherIdentity() {
 		motherIdentity = new MotherIdentity();
 		motherIdentity.setEventId(DEFAULT_ID);
+		motherIdentity.setDateCreated(LocalDateTime.now());
 		return motherIdentity;
 
 	}
@@ -0,0 +1,63 @@
+package org.sidindonesia.bidanreport.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.sidindonesia.bidanreport.IntegrationTest;
+import org.sidindonesia.bidanreport.controller.response.ExportJobResponse;
+import org.sidindonesia.bidanreport.service.ExportJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Integration tests for {@link ExportJobController}.
+ */
+@IntegrationTest
+class ExportJobControllerTests {
+
+	private static final Duration MAX_EXPORT_DURATION = Duration.ofMinutes(1);
+	private static final Duration POLL_INTERVAL = Duration.ofMillis(500);
+
+	@Autowired
+	private ExportJobController exportJobController;
+
+	@Autowired
+	private ExcelSheetController excelSheetController;
+
+	@Test
+	void testDownloadAllTablesJob_withHappyFlow() throws Exception {
+		ResponseEntity<ExportJobResponse> response = exportJobController.startDownloadAllTablesJob(false);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+
+		String id = response.getBody().getId();
+		assertThat(exportJobController.startDownloadAllTablesJob(false).getBody().getId())
+			.as("same export with unchanged data is reused").isEqualTo(id);
+
+		ExportJob.Status status = await().atMost(MAX_EXPORT_DURATION).pollInterval(POLL_INTERVAL).until(
+			() -> exportJobController.getJob(id).getBody().getStatus(),
+			polledStatus -> polledStatus == ExportJob.Status.DONE || polledStatus == ExportJob.Status.FAILED);
+		assertThat(status).isEqualTo(ExportJob.Status.DONE);
+
+		Resource file = exportJobController.downloadJobFile(id).getBody();
+		assertThat(file.contentLength()).isPositive();
+	}
+
+	@Test
+	void testDownloadAllTablesJob_thenDownloadServesTheSameStoredWorkbook() throws Exception {
+		String id = exportJobController.startDownloadAllTablesJob(false).getBody().getId();
+		ExportJob.Status status = await().atMost(MAX_EXPORT_DURATION).pollInterval(POLL_INTERVAL).until(
+			() -> exportJobController.getJob(id).getBody().getStatus(),
+			polledStatus -> polledStatus == ExportJob.Status.DONE || polledStatus == ExportJob.Status.FAILED);
+		assertThat(status).isEqualTo(ExportJob.Status.DONE);
+
+		byte[] jobWorkbook = exportJobController.downloadJobFile(id).getBody().getInputStream().readAllBytes();
+		byte[] downloadedWorkbook = excelSheetController.downloadAllTablesAsExcelSheets().getBody()
+			.getInputStream().readAllBytes();
+		assertThat(downloadedWorkbook).isEqualTo(jobWorkbook);
+	}
+}
@@ -0,0 +1,70 @@
+package org.sidindonesia.bidanreport.integration.qontak.web.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+class TokenBucketTest {
+
+	private final AtomicLong nanoTime = new AtomicLong();
+
+	private final TokenBucket tokenBucket = new TokenBucket(10, 2, nanoTime::get);
+
+	@Test
+	void testReserve_withBurst_thenOnlyPermitsAfterTheBurstWait() {
+		assertThat(tokenBucket.reserve()).isZero();
+		assertThat(tokenBucket.reserve()).isZero();
+		assertThat(tokenBucket.reserve()).isEqualTo(Duration.ofMillis(100));
+		assertThat(tokenBucket.reserve()).isEqualTo(Duration.ofMillis(200));
+	}
+
+	@Test
+	void testReserve_afterIdlePeriod_thenBurstIsRefilled() {
+		for (int i = 0; i < 4; i++) {
+			tokenBucket.reserve();
+		}
+
+		nanoTime.addAndGet(Duration.ofSeconds(10).toNanos());
+
+		assertThat(tokenBucket.reserve()).isZero();
+		assertThat(tokenBucket.reserve()).isZero();
+		assertThat(tokenBucket.reserve()).isEqualTo(Duration.ofMillis(100));
+	}
+
+	@Test
+	void testOnTooManyRequests_thenRateIsHalvedDownToASixteenth() {
+		tokenBucket.onTooManyRequests(null);
+		assertThat(tokenBucket.getPermitsPerSecond()).isCloseTo(5, within(1e-9));
+
+		for (int i = 0; i < 10; i++) {
+			tokenBucket.onTooManyRequests(null);
+		}
+		assertThat(tokenBucket.getPermitsPerSecond()).isCloseTo(10.0 / 16, within(1e-9));
+	}
+
+	@Test
+	void testOnAccepted_thenRateRecoversByATenthUpToTheConfiguredRate() {
+		tokenBucket.onTooManyRequests(null);
+
+		tokenBucket.onAccepted();
+		assertThat(tokenBucket.getPermitsPerSecond()).isCloseTo(6, within(1e-9));
+
+		for (int i = 0; i < 10; i++) {
+			tokenBucket.onAccepted();
+		}
+		assertThat(tokenBucket.getPermitsPerSecond()).isCloseTo(10, within(1e-9));
+	}
+
+	@Test
+	void testOnTooManyRequests_withRetryAfter_thenNoPermitBeforeIt() {
+		tokenBucket.onTooManyRequests(Duration.ofSeconds(2));
+
+		assertThat(tokenBucket.reserve()).isEqualTo(Duration.ofSeconds(2));
+		// spaced at the halved rate afterwards, without any burst
+		assertThat(tokenBucket.reserve()).isEqualTo(Duration.ofMillis(2200));
+	}
+}
@@ -0,0 +1,47 @@
+package org.sidindonesia.bidanreport.integration.qontak.web.retry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+class QontakRetryPolicyTest {
+
+	@Test
+	void testIsRetryable_withIdempotentCall_thenTransientFailuresAreRetried() {
+		assertThat(QontakRetryPolicy.isRetryable(responseException(429), true)).isTrue();
+		assertThat(QontakRetryPolicy.isRetryable(responseException(504), true)).isTrue();
+		assertThat(QontakRetryPolicy.isRetryable(requestException(new TimeoutException()), true)).isTrue();
+		assertThat(QontakRetryPolicy.isRetryable(new TimeoutException(), true)).isTrue();
+		assertThat(QontakRetryPolicy.isRetryable(responseException(422), true)).isFalse();
+	}
+
+	@Test
+	void testIsRetryable_withNonIdempotentCall_thenOnlyFailuresNotProcessedByQontakAreRetried() {
+		assertThat(QontakRetryPolicy.isRetryable(responseException(429), false)).isTrue();
+		assertThat(QontakRetryPolicy.isRetryable(responseException(503), false)).isTrue();
+		assertThat(QontakRetryPolicy.isRetryable(requestException(new ConnectException("refused")), false))
+			.isTrue();
+
+		assertThat(QontakRetryPolicy.isRetryable(responseException(502), false)).isFalse();
+		assertThat(QontakRetryPolicy.isRetryable(responseException(504), false)).isFalse();
+		assertThat(QontakRetryPolicy.isRetryable(requestException(new TimeoutException()), false)).isFalse();
+		assertThat(QontakRetryPolicy.isRetryable(new TimeoutException(), false)).isFalse();
+	}
+
+	private static WebClientResponseException responseException(int statusCode) {
+		return WebClientResponseException.create(statusCode, "", HttpHeaders.EMPTY, new byte[0], null);
+	}
+
+	private static WebClientRequestException requestException(Throwable cause) {
+		return new WebClientRequestException(cause, HttpMethod.POST, URI.create("https://qontak.test/api"),
+			HttpHeaders.EMPTY);
+	}
+}
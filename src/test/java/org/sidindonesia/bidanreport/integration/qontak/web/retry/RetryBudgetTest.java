@@ -0,0 +1,34 @@
+package org.sidindonesia.bidanreport.integration.qontak.web.retry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class RetryBudgetTest {
+
+	@Test
+	void testTryWithdraw_withInitialTokensSpent_thenOneRetryPerFiveCalls() {
+		RetryBudget retryBudget = new RetryBudget(0.2, 2);
+		assertThat(retryBudget.tryWithdraw()).isTrue();
+		assertThat(retryBudget.tryWithdraw()).isTrue();
+		assertThat(retryBudget.tryWithdraw()).isFalse();
+
+		for (int i = 0; i < 4; i++) {
+			retryBudget.deposit();
+		}
+		assertThat(retryBudget.tryWithdraw()).isFalse();
+		retryBudget.deposit();
+		assertThat(retryBudget.tryWithdraw()).isTrue();
+	}
+
+	@Test
+	void testDeposit_thenTokensAreCappedAtMaxTokens() {
+		RetryBudget retryBudget = new RetryBudget(1, 2);
+		for (int i = 0; i < 10; i++) {
+			retryBudget.deposit();
+		}
+		assertThat(retryBudget.tryWithdraw()).isTrue();
+		assertThat(retryBudget.tryWithdraw()).isTrue();
+		assertThat(retryBudget.tryWithdraw()).isFalse();
+	}
+}
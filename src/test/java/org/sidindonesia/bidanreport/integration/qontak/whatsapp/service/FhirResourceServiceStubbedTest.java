@@ -0,0 +1,296 @@
+package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hl7.fhir.r4.model.Bundle;
+import org.hl7.fhir.r4.model.Patient;
+import org.hl7.fhir.r4.model.Resource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sidindonesia.bidanreport.config.property.QRCodeProperties;
+import org.sidindonesia.bidanreport.integration.qontak.constant.Constants;
+import org.sidindonesia.bidanreport.integration.qontak.web.response.FileUploadResponse;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.ParametersWithHeader;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.QRCodeService;
+import org.sidindonesia.bidanreport.repository.projection.AncVisitReminderProjection;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import ca.uhn.fhir.context.FhirContext;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+/**
+ * Tests of {@link FhirResourceService} against a stubbed FHIR server, which
+ * answers a transaction bundle with the location {@code Patient/<full name>}
+ * for every patient, and a mocked upload to Qontak.
+ */
+class FhirResourceServiceStubbedTest {
+
+	private static final FhirContext FHIR_CONTEXT = FhirContext.forR4();
+	private static final String VALUES = LocalDate.now()
+		+ ",28,154,48,23.5,100,60,20 cm,kepala,140,tt_ke_3,Ya,Ya,negatif,10.9,<_140_mg_dl,negatif,negatif,negatif,negatif";
+
+	private final List<List<String>> postedPatientNames = new CopyOnWriteArrayList<>();
+	private final AtomicInteger observationCount = new AtomicInteger();
+	private DisposableServer fhirServer;
+	private String fhirBaseUrl;
+	private QRCodeService qrCodeService;
+	private FhirResourceService fhirResourceService;
+
+	@BeforeEach
+	void setUp() {
+		fhirServer = HttpServer.create().host("localhost").port(0)
+			.route(routes -> routes.post("/fhir", this::respondToTransaction)).bindNow();
+		fhirBaseUrl = "http://localhost:" + fhirServer.port() + "/fhir";
+
+		qrCodeService = mock(QRCodeService.class);
+		when(qrCodeService.createQRCodeImageThenUploadToQontak(anyString()))
+			.thenAnswer(invocation -> uploaded(invocation.getArgument(0)));
+
+		fhirResourceService = new FhirResourceService(qrCodeService, FHIR_CONTEXT, new QRCodeProperties());
+		ReflectionTestUtils.setField(fhirResourceService, "webClientHapiFhirServer", WebClient.create(fhirBaseUrl));
+		ReflectionTestUtils.setField(fhirResourceService, "hapiFhirBaseUrl", fhirBaseUrl);
+		ReflectionTestUtils.setField(fhirResourceService, "transactionBatchSize", 50);
+		fhirResourceService.initQRCodeHeaderImageCache();
+	}
+
+	@AfterEach
+	void disposeFhirServer() {
+		fhirServer.disposeNow();
+	}
+
+	@Test
+	void testFillHeaderWithQRCodeImage_withCachedMother_thenNeitherFHIRPostNorUploadIsRepeated() {
+		AncVisitReminderProjection mother = mother("1", "Ani", VALUES);
+
+		ParametersWithHeader firstParameters = fillHeaderWithQRCodeImage(mother);
+		ParametersWithHeader secondParameters = fillHeaderWithQRCodeImage(mother);
+
+		assertThat(postedPatientNames).containsExactly(List.of("Ani"));
+		verify(qrCodeService, times(1)).createQRCodeImageThenUploadToQontak(anyString());
+		assertThat(secondParameters.getHeader().getParams()).isEqualTo(firstParameters.getHeader().getParams())
+			.anyMatch(param -> "url".equals(param.getKey())
+				&& uploadedFileUrlOf(everythingUrlOf("Ani")).equals(param.getValue()));
+	}
+
+	@Test
+	void testFillHeaderWithQRCodeImage_withConcurrentReminders_thenTheOthersWaitForTheFirstUpload()
+		throws Exception {
+		CountDownLatch uploadStarted = new CountDownLatch(1);
+		CountDownLatch uploadReleased = new CountDownLatch(1);
+		when(qrCodeService.createQRCodeImageThenUploadToQontak(anyString())).thenAnswer(invocation -> {
+			if (everythingUrlOf("Ani").equals(invocation.getArgument(0))) {
+				uploadStarted.countDown();
+				uploadReleased.await(10, TimeUnit.SECONDS);
+			}
+			return uploaded(invocation.getArgument(0));
+		});
+		AncVisitReminderProjection mother = mother("1", "Ani", VALUES);
+
+		CompletableFuture<ParametersWithHeader> firstParameters = CompletableFuture
+			.supplyAsync(() -> fillHeaderWithQRCodeImage(mother));
+		assertThat(uploadStarted.await(10, TimeUnit.SECONDS)).isTrue();
+		List<CompletableFuture<ParametersWithHeader>> otherParameters = List.of(
+			CompletableFuture.supplyAsync(() -> fillHeaderWithQRCodeImage(mother)),
+			CompletableFuture.supplyAsync(() -> fillHeaderWithQRCodeImage(mother)));
+		// another mother is not held up by the upload in progress
+		assertThat(fillHeaderWithQRCodeImage(mother("2", "Budi", VALUES)).getHeader().getParams()).isNotEmpty();
+		uploadReleased.countDown();
+
+		assertThat(firstParameters.get(10, TimeUnit.SECONDS).getHeader().getParams()).isNotEmpty();
+		for (CompletableFuture<ParametersWithHeader> parameters : otherParameters) {
+			assertThat(parameters.get(10, TimeUnit.SECONDS).getHeader().getParams())
+				.isEqualTo(firstParameters.get().getHeader().getParams());
+		}
+		verify(qrCodeService, times(1)).createQRCodeImageThenUploadToQontak(everythingUrlOf("Ani"));
+	}
+
+	@Test
+	void testFillHeaderWithQRCodeImage_withChangedValues_thenFHIRResourcesArePostedAgain() {
+		fillHeaderWithQRCodeImage(mother("1", "Ani", VALUES));
+		fillHeaderWithQRCodeImage(mother("1", "Ani", VALUES.replace(",28,", ",29,")));
+
+		assertThat(postedPatientNames).hasSize(2);
+		verify(qrCodeService, times(2)).createQRCodeImageThenUploadToQontak(anyString());
+	}
+
+	@Test
+	void testFillHeaderWithQRCodeImage_withFailedUpload_thenOnlyTheUploadIsRetried() {
+		when(qrCodeService.createQRCodeImageThenUploadToQontak(anyString())).thenReturn(null)
+			.thenAnswer(invocation -> uploaded(invocation.getArgument(0)));
+		AncVisitReminderProjection mother = mother("1", "Ani", VALUES);
+
+		ParametersWithHeader firstParameters = fillHeaderWithQRCodeImage(mother);
+		ParametersWithHeader secondParameters = fillHeaderWithQRCodeImage(mother);
+
+		assertThat(firstParameters.getHeader().getParams()).isEmpty();
+		assertThat(secondParameters.getHeader().getParams()).isNotEmpty();
+		assertThat(postedPatientNames).containsExactly(List.of("Ani"));
+		verify(qrCodeService, times(2)).createQRCodeImageThenUploadToQontak(everythingUrlOf("Ani"));
+	}
+
+	@Test
+	void testPostTransactionBundlesToFHIRServerInBatches_thenEachMotherIsMappedToHerOwnPatient() {
+		// fewer observations for Budi, so the patient of Citra is not at a multiple of
+		// the entries of one mother
+		List<AncVisitReminderProjection> mothers = List.of(mother("1", "Ani", VALUES),
+			mother("2", "Budi", VALUES.replace(",negatif,negatif,negatif,negatif", ",-,-,-,-")),
+			mother("3", "Citra", VALUES));
+
+		fhirResourceService.postTransactionBundlesToFHIRServerInBatches(mothers);
+		mothers.forEach(this::fillHeaderWithQRCodeImage);
+
+		assertThat(postedPatientNames).containsExactly(List.of("Ani", "Budi", "Citra"));
+		verify(qrCodeService).createQRCodeImageThenUploadToQontak(everythingUrlOf("Ani"));
+		verify(qrCodeService).createQRCodeImageThenUploadToQontak(everythingUrlOf("Budi"));
+		verify(qrCodeService).createQRCodeImageThenUploadToQontak(everythingUrlOf("Citra"));
+	}
+
+	@Test
+	void testPostTransactionBundlesToFHIRServerInBatches_withSameMotherTwice_thenSheIsPostedOnce() {
+		List<AncVisitReminderProjection> mothers = List.of(mother("1", "Ani", VALUES), mother("1", "Ani", VALUES),
+			mother("3", "Citra", VALUES));
+
+		fhirResourceService.postTransactionBundlesToFHIRServerInBatches(mothers);
+		mothers.forEach(this::fillHeaderWithQRCodeImage);
+
+		assertThat(postedPatientNames).containsExactly(List.of("Ani", "Citra"));
+		verify(qrCodeService).createQRCodeImageThenUploadToQontak(everythingUrlOf("Citra"));
+	}
+
+	@Test
+	void testPostTransactionBundlesToFHIRServerInBatches_withMalformedValues_thenOnlyThatMotherIsLeftOut() {
+		AncVisitReminderProjection malformedMother = mother("2", "Budi", "not-a-date" + VALUES.substring(10));
+		List<AncVisitReminderProjection> mothers = List.of(mother("1", "Ani", VALUES), malformedMother,
+			mother("3", "Citra", VALUES));
+
+		fhirResourceService.postTransactionBundlesToFHIRServerInBatches(mothers);
+		fillHeaderWithQRCodeImage(mothers.get(0));
+		fillHeaderWithQRCodeImage(mothers.get(2));
+
+		assertThat(postedPatientNames).containsExactly(List.of("Ani", "Citra"));
+		verify(qrCodeService).createQRCodeImageThenUploadToQontak(everythingUrlOf("Ani"));
+		verify(qrCodeService).createQRCodeImageThenUploadToQontak(everythingUrlOf("Citra"));
+	}
+
+	@Test
+	void testPostTransactionBundlesToFHIRServerInBatches_withMoreMothersThanBatchSize_thenSeveralBundlesArePosted() {
+		ReflectionTestUtils.setField(fhirResourceService, "transactionBatchSize", 2);
+		fhirResourceService.postTransactionBundlesToFHIRServerInBatches(List.of(mother("1", "Ani", VALUES),
+			mother("2", "Budi", VALUES), mother("3", "Citra", VALUES)));
+
+		assertThat(postedPatientNames).containsExactly(List.of("Ani", "Budi"), List.of("Citra"));
+	}
+
+	@Test
+	void testPostTransactionBundlesToFHIRServerInBatches_withCachedMother_thenSheIsNotPostedAgain() {
+		AncVisitReminderProjection cachedMother = mother("1", "Ani", VALUES);
+		fillHeaderWithQRCodeImage(cachedMother);
+
+		fhirResourceService.postTransactionBundlesToFHIRServerInBatches(List.of(cachedMother,
+			mother("2", "Budi", VALUES)));
+
+		assertThat(postedPatientNames).containsExactly(List.of("Ani"), List.of("Budi"));
+	}
+
+	private ParametersWithHeader fillHeaderWithQRCodeImage(AncVisitReminderProjection mother) {
+		ParametersWithHeader parameters = new ParametersWithHeader();
+		fhirResourceService.fillHeaderWithQRCodeImage(mother, FhirResourceService.splitPregnancyGapValues(mother),
+			parameters);
+		return parameters;
+	}
+
+	private String everythingUrlOf(String patientName) {
+		return fhirBaseUrl + "/Patient/" + patientName + "/$everything";
+	}
+
+	private static String uploadedFileUrlOf(String contents) {
+		return "https://qontak.test/files/" + Integer.toHexString(contents.hashCode()) + ".png";
+	}
+
+	private static FileUploadResponse uploaded(String contents) {
+		FileUploadResponse responseBody = new FileUploadResponse();
+		responseBody.setStatus(Constants.SUCCESS);
+		FileUploadResponse.DataObj data = new FileUploadResponse.DataObj();
+		data.setUrl(uploadedFileUrlOf(contents));
+		responseBody.setData(data);
+		return responseBody;
+	}
+
+	private Mono<Void> respondToTransaction(HttpServerRequest request, HttpServerResponse response) {
+		return response.header("Content-Type", "application/fhir+json")
+			.sendString(request.receive().aggregate().asString().map(this::transactionResponseOf)).then();
+	}
+
+	private String transactionResponseOf(String transactionBundleJson) {
+		Bundle bundle = FHIR_CONTEXT.newJsonParser().parseResource(Bundle.class, transactionBundleJson);
+		postedPatientNames.add(bundle.getEntry().stream().map(Bundle.BundleEntryComponent::getResource)
+			.filter(Patient.class::isInstance).map(patient -> ((Patient) patient).getNameFirstRep().getText())
+			.collect(toList()));
+		return bundle.getEntry().stream().map(entry -> locationOf(entry.getResource()))
+			.map(location -> "{\"response\":{\"location\":\"" + location + "\"}}")
+			.collect(joining(",", "{\"resourceType\":\"Bundle\",\"entry\":[", "]}"));
+	}
+
+	private String locationOf(Resource resource) {
+		String id = resource instanceof Patient ? ((Patient) resource).getNameFirstRep().getText()
+			: String.valueOf(observationCount.incrementAndGet());
+		return resource.fhirType() + "/" + id + "/_history/1";
+	}
+
+	private static AncVisitReminderProjection mother(String baseEntityId, String fullName,
+		String pregnancyGapCommaSeparatedValues) {
+		return new AncVisitReminderProjection() {
+
+			@Override
+			public String getMobilePhoneNumber() {
+				return "081234567890";
+			}
+
+			@Override
+			public String getFullName() {
+				return fullName;
+			}
+
+			@Override
+			public long getEventId() {
+				return 0;
+			}
+
+			@Override
+			public String getMotherBaseEntityId() {
+				return baseEntityId;
+			}
+
+			@Override
+			public String getPregnancyGapCommaSeparatedValues() {
+				return pregnancyGapCommaSeparatedValues;
+			}
+
+			@Override
+			public Integer getLatestAncVisitNumber() {
+				return 1;
+			}
+		};
+	}
+}
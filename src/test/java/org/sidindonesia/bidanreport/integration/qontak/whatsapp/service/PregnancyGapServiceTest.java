@@ -4,8 +4,13 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.stream.IntStream;
 
+import javax.persistence.EntityManager;
+
 import org.junit.jupiter.api.Test;
 import org.sidindonesia.bidanreport.IntegrationTest;
+import org.sidindonesia.bidanreport.integration.qontak.domain.Watermark;
+import org.sidindonesia.bidanreport.integration.qontak.repository.WatermarkRepository;
+import org.sidindonesia.bidanreport.repository.AncVisitRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +25,12 @@ class PregnancyGapServiceTest {
 	private PregnancyGapService pregnancyGapService;
 	@Autowired
 	private DummyDataService dummyDataService;
+	@Autowired
+	private WatermarkRepository watermarkRepository;
+	@Autowired
+	private AncVisitRepository ancVisitRepository;
+	@Autowired
+	private EntityManager entityManager;
 
 	private void insertDummyDataForPregnancyGap() {
 		dummyDataService.insertDummyData();
@@ -43,4 +54,19 @@ class PregnancyGapServiceTest {
 		// then
 		assertThat(pregnancyGapService).isNotNull();
 	}
+
+	@Test
+	void testSendPregnancyGapMessageToEnrolledPregnantWomen_thenLastIdOfEachTableIsMovedPastTheAncVisits() {
+		// given
+		insertDummyDataForPregnancyGap();
+		// when
+		pregnancyGapService.sendPregnancyGapMessageToEnrolledMothers();
+		// then, the last IDs are upserted natively, behind the persistence context
+		entityManager.clear();
+		Long latestAncVisitEventId = ancVisitRepository.findLastEventId().orElseThrow();
+		assertThat(watermarkRepository.findById("mother_identity.anc_visit_pregnancy_gap"))
+			.map(Watermark::getLastId).hasValue(latestAncVisitEventId);
+		assertThat(watermarkRepository.findById("mother_edit.anc_visit_pregnancy_gap")).map(Watermark::getLastId)
+			.hasValue(latestAncVisitEventId);
+	}
 }
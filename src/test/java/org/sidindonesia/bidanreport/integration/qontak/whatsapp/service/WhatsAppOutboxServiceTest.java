@@ -0,0 +1,99 @@
+package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sidindonesia.bidanreport.IntegrationTest;
+import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
+import org.sidindonesia.bidanreport.integration.qontak.domain.WhatsAppOutboxMessage;
+import org.sidindonesia.bidanreport.integration.qontak.repository.WhatsAppOutboxRepository;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.request.BroadcastDirectRequest;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.DeliveryOutcome;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link WhatsAppOutboxService}.
+ */
+@IntegrationTest
+@Transactional
+class WhatsAppOutboxServiceTest {
+
+	@Autowired
+	private WhatsAppOutboxService whatsAppOutboxService;
+	@Autowired
+	private WhatsAppOutboxRepository whatsAppOutboxRepository;
+	@Autowired
+	private QontakProperties qontakProperties;
+
+	@BeforeEach
+	void enqueueMessage() {
+		whatsAppOutboxRepository.deleteAll();
+		BroadcastDirectRequest requestBody = new BroadcastDirectRequest();
+		requestBody.setTo_name("Ibu Test");
+		requestBody.setTo_number("6281234567890");
+		requestBody.setMessage_template_id("00000000-0000-0000-0000-000000000000");
+		whatsAppOutboxService.enqueue(List.of(requestBody), "test");
+	}
+
+	@Test
+	void testClaimNextBatch_thenMessageIsNotClaimedAgainUntilTheClaimExpires() {
+		LocalDateTime now = LocalDateTime.now();
+		List<WhatsAppOutboxMessage> claimedMessages = whatsAppOutboxService.claimNextBatch(now);
+		assertThat(claimedMessages).singleElement().satisfies(message -> {
+			assertThat(message.getStatus()).isEqualTo(WhatsAppOutboxMessage.Status.SENDING);
+			assertThat(message.getAttempts()).isEqualTo(1);
+		});
+
+		assertThat(whatsAppOutboxService.claimNextBatch(now)).isEmpty();
+
+		LocalDateTime afterClaimExpiry = now.plus(qontakProperties.getOutbox().getClaimDurationInMs() + 1,
+			ChronoUnit.MILLIS);
+		assertThat(whatsAppOutboxService.claimNextBatch(afterClaimExpiry)).singleElement()
+			.extracting(WhatsAppOutboxMessage::getAttempts).isEqualTo(2);
+	}
+
+	@Test
+	void testRecordOutcome_withSent_thenMessageIsSent() {
+		LocalDateTime now = LocalDateTime.now();
+		WhatsAppOutboxMessage message = whatsAppOutboxService.claimNextBatch(now).get(0);
+
+		whatsAppOutboxService.recordOutcome(message, DeliveryOutcome.SENT, now);
+
+		WhatsAppOutboxMessage recordedMessage = whatsAppOutboxRepository.findById(message.getId()).orElseThrow();
+		assertThat(recordedMessage.getStatus()).isEqualTo(WhatsAppOutboxMessage.Status.SENT);
+		assertThat(recordedMessage.getSentAt()).isEqualTo(now);
+	}
+
+	@Test
+	void testRecordOutcome_withRetryableFailure_thenMessageIsPendingUntilTheRetryDelay() {
+		LocalDateTime now = LocalDateTime.now();
+		WhatsAppOutboxMessage message = whatsAppOutboxService.claimNextBatch(now).get(0);
+
+		whatsAppOutboxService.recordOutcome(message, DeliveryOutcome.RETRYABLE_FAILURE, now);
+
+		WhatsAppOutboxMessage recordedMessage = whatsAppOutboxRepository.findById(message.getId()).orElseThrow();
+		assertThat(recordedMessage.getStatus()).isEqualTo(WhatsAppOutboxMessage.Status.PENDING);
+		assertThat(recordedMessage.getNextAttemptAt())
+			.isEqualTo(now.plus(qontakProperties.getOutbox().getRetryDelayInMs(), ChronoUnit.MILLIS));
+		assertThat(whatsAppOutboxService.claimNextBatch(now)).isEmpty();
+	}
+
+	@Test
+	void testRecordOutcome_withPermanentFailure_thenMessageFailsAtItsFirstAttempt() {
+		LocalDateTime now = LocalDateTime.now();
+		WhatsAppOutboxMessage message = whatsAppOutboxService.claimNextBatch(now).get(0);
+
+		whatsAppOutboxService.recordOutcome(message, DeliveryOutcome.PERMANENT_FAILURE, now);
+
+		WhatsAppOutboxMessage recordedMessage = whatsAppOutboxRepository.findById(message.getId()).orElseThrow();
+		assertThat(recordedMessage.getStatus()).isEqualTo(WhatsAppOutboxMessage.Status.FAILED);
+		assertThat(recordedMessage.getAttempts()).isEqualTo(1);
+		assertThat(whatsAppOutboxService.claimNextBatch(now.plusDays(1))).isEmpty();
+	}
+}
@@ -0,0 +1,30 @@
+package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+class BroadcastMessageServiceTest {
+
+	@Test
+	void testIsPermanentFailure_withRefusedRequest_thenPermanent() {
+		assertThat(BroadcastMessageService.isPermanentFailure(responseException(400))).isTrue();
+		assertThat(BroadcastMessageService.isPermanentFailure(responseException(422))).isTrue();
+	}
+
+	@Test
+	void testIsPermanentFailure_withTransientFailure_thenNotPermanent() {
+		assertThat(BroadcastMessageService.isPermanentFailure(responseException(401))).isFalse();
+		assertThat(BroadcastMessageService.isPermanentFailure(responseException(429))).isFalse();
+		assertThat(BroadcastMessageService.isPermanentFailure(responseException(503))).isFalse();
+		assertThat(BroadcastMessageService.isPermanentFailure(new IOException("Connection reset"))).isFalse();
+	}
+
+	private static WebClientResponseException responseException(int statusCode) {
+		return WebClientResponseException.create(statusCode, "", HttpHeaders.EMPTY, new byte[0], null);
+	}
+}
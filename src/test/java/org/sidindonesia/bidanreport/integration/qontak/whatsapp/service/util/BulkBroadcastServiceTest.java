@@ -0,0 +1,121 @@
+package org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sidindonesia.bidanreport.IntegrationTest;
+import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
+import org.sidindonesia.bidanreport.integration.qontak.domain.BulkBroadcastChunk;
+import org.sidindonesia.bidanreport.integration.qontak.repository.BulkBroadcastChunkRepository;
+import org.sidindonesia.bidanreport.repository.projection.MotherIdentityWhatsAppProjection;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Integration tests for {@link BulkBroadcastService}, the chunks being committed
+ * in their own transaction.
+ */
+@IntegrationTest
+class BulkBroadcastServiceTest {
+
+	private static final String CAMPAIGN_KEY = "test/mother_identity/2022-10-19";
+
+	@Autowired
+	private BulkBroadcastService bulkBroadcastService;
+	@Autowired
+	private BulkBroadcastChunkRepository bulkBroadcastChunkRepository;
+	@Autowired
+	private QontakProperties qontakProperties;
+
+	private int chunkSize;
+
+	@BeforeEach
+	void setSmallChunkSize() {
+		chunkSize = qontakProperties.getBulkBroadcast().getChunkSize();
+		qontakProperties.getBulkBroadcast().setChunkSize(2);
+	}
+
+	@AfterEach
+	void deleteChunksAndRestoreChunkSize() {
+		bulkBroadcastChunkRepository
+			.deleteAll(bulkBroadcastChunkRepository.findAllByCampaignKeyOrderByChunkIndex(CAMPAIGN_KEY));
+		qontakProperties.getBulkBroadcast().setChunkSize(chunkSize);
+	}
+
+	@Test
+	void testFindOrCreateChunks_thenChunksArePersistedOnceForTheCampaign() {
+		List<MotherIdentityWhatsAppProjection> recipients = recipients("081000000001", "081000000002",
+			"081000000003", "081000000004", "081000000005");
+
+		List<BulkBroadcastChunk> chunks = bulkBroadcastService.findOrCreateChunks(CAMPAIGN_KEY, recipients);
+
+		assertThat(chunks)
+			.extracting(BulkBroadcastChunk::getFirstRecipientKey, BulkBroadcastChunk::getLastRecipientKey,
+				BulkBroadcastChunk::getNumberOfRecipients)
+			.containsExactly(tuple("6281000000001", "6281000000002", 2), tuple("6281000000003", "6281000000004", 2),
+				tuple("6281000000005", "6281000000005", 1));
+		assertThat(bulkBroadcastChunkRepository.findAllByCampaignKeyOrderByChunkIndex(CAMPAIGN_KEY))
+			.extracting(BulkBroadcastChunk::getId)
+			.containsExactlyElementsOf(chunks.stream().map(BulkBroadcastChunk::getId).collect(toList()));
+
+		assertThat(bulkBroadcastService.findOrCreateChunks(CAMPAIGN_KEY, recipients))
+			.extracting(BulkBroadcastChunk::getId)
+			.containsExactlyElementsOf(chunks.stream().map(BulkBroadcastChunk::getId).collect(toList()));
+	}
+
+	@Test
+	void testFindOrCreateChunks_withRecipientsArrivedOutOfEveryChunk_thenTheyAreResumedInANewChunk() {
+		bulkBroadcastService.findOrCreateChunks(CAMPAIGN_KEY,
+			recipients("081000000001", "081000000003", "081000000005", "081000000007"));
+		// arrived since the campaign was split: in the range of the first chunk,
+		// between both chunks and after the last one
+		List<MotherIdentityWhatsAppProjection> recipients = recipients("081000000001", "081000000002",
+			"081000000003", "081000000004", "081000000005", "081000000007", "081000000009");
+
+		List<BulkBroadcastChunk> chunks = bulkBroadcastService.findOrCreateChunks(CAMPAIGN_KEY, recipients);
+		Map<Integer, List<MotherIdentityWhatsAppProjection>> recipientsByChunkIndex = BulkBroadcastService
+			.groupByChunkIndex(chunks, recipients);
+
+		assertThat(chunks).hasSize(3);
+		assertThat(chunks.get(2).getChunkIndex()).isEqualTo(2);
+		assertThat(phoneNumbersOf(recipientsByChunkIndex.get(0))).containsExactly("081000000001", "081000000002",
+			"081000000003");
+		assertThat(phoneNumbersOf(recipientsByChunkIndex.get(1))).containsExactly("081000000005", "081000000007");
+		assertThat(phoneNumbersOf(recipientsByChunkIndex.get(2))).containsExactly("081000000004", "081000000009");
+		assertThat(bulkBroadcastChunkRepository.findAllByCampaignKeyOrderByChunkIndex(CAMPAIGN_KEY)).hasSize(3);
+	}
+
+	private static List<MotherIdentityWhatsAppProjection> recipients(String... mobilePhoneNumbers) {
+		return Stream.of(mobilePhoneNumbers).map(BulkBroadcastServiceTest::recipient).collect(toList());
+	}
+
+	private static List<String> phoneNumbersOf(List<MotherIdentityWhatsAppProjection> recipients) {
+		return recipients.stream().map(MotherIdentityWhatsAppProjection::getMobilePhoneNumber).collect(toList());
+	}
+
+	private static MotherIdentityWhatsAppProjection recipient(String mobilePhoneNumber) {
+		return new MotherIdentityWhatsAppProjection() {
+			@Override
+			public long getEventId() {
+				return Long.parseLong(mobilePhoneNumber);
+			}
+
+			@Override
+			public String getMobilePhoneNumber() {
+				return mobilePhoneNumber;
+			}
+
+			@Override
+			public String getFullName() {
+				return "Ibu " + mobilePhoneNumber;
+			}
+		};
+	}
+}
@@ -0,0 +1,123 @@
+package org.sidindonesia.bidanreport.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sidindonesia.bidanreport.config.property.ExcelExportProperties;
+import org.sidindonesia.bidanreport.service.ExportArtifactStore.ArtifactWriter;
+
+class ExportArtifactStoreTest {
+
+	private static final String KIND = "ALL_TABLES:";
+
+	@TempDir
+	Path spoolDirectory;
+
+	private ExportArtifactStore exportArtifactStore;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		ExcelExportProperties excelExportProperties = new ExcelExportProperties();
+		excelExportProperties.setSpoolDirectoryPath(spoolDirectory.toString());
+		exportArtifactStore = new ExportArtifactStore(excelExportProperties);
+		exportArtifactStore.init();
+	}
+
+	@Test
+	void testOpenOrRender_withFileSupersededWhileBeingRead_thenItStaysReadable() throws Exception {
+		try (InputStream oldFile = exportArtifactStore.openOrRender(KIND, "old", writing("old data"))) {
+			Path oldPath = exportArtifactStore.getOrRender(KIND, "old", failing());
+
+			readFully(exportArtifactStore.openOrRender(KIND, "new", writing("new data")));
+
+			assertThat(exportArtifactStore.contains(oldPath)).isFalse();
+			assertThat(exportArtifactStore.open(oldPath)).isEmpty();
+			assertThat(new String(oldFile.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("old data");
+		}
+	}
+
+	@Test
+	void testOpenOrRender_withOlderRenderingEndingLast_thenNewerFileIsKept() throws Exception {
+		CountDownLatch oldRenderingStarted = new CountDownLatch(1);
+		CountDownLatch newRenderingDone = new CountDownLatch(1);
+		CompletableFuture<String> oldFile = CompletableFuture.supplyAsync(() -> {
+			try {
+				return readFully(exportArtifactStore.openOrRender(KIND, "old", outputStream -> {
+					oldRenderingStarted.countDown();
+					awaitQuietly(newRenderingDone);
+					outputStream.write("old data".getBytes(StandardCharsets.UTF_8));
+				}));
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		assertThat(oldRenderingStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(readFully(exportArtifactStore.openOrRender(KIND, "new", writing("new data"))))
+			.isEqualTo("new data");
+		newRenderingDone.countDown();
+
+		assertThat(oldFile.get(10, TimeUnit.SECONDS)).isEqualTo("old data");
+		assertThat(readFully(exportArtifactStore.openOrRender(KIND, "new", failing()))).isEqualTo("new data");
+	}
+
+	@Test
+	void testOpenOrRender_withConcurrentCallsForTheSameKey_thenRenderedOnce() throws Exception {
+		AtomicInteger renderCount = new AtomicInteger();
+		ArtifactWriter writer = outputStream -> {
+			renderCount.incrementAndGet();
+			outputStream.write("data".getBytes(StandardCharsets.UTF_8));
+		};
+		List<CompletableFuture<String>> files = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			files.add(CompletableFuture.supplyAsync(() -> {
+				try {
+					return readFully(exportArtifactStore.openOrRender(KIND, "same", writer));
+				} catch (IOException e) {
+					throw new IllegalStateException(e);
+				}
+			}));
+		}
+
+		for (CompletableFuture<String> file : files) {
+			assertThat(file.get(10, TimeUnit.SECONDS)).isEqualTo("data");
+		}
+		assertThat(renderCount).hasValue(1);
+	}
+
+	private static ArtifactWriter writing(String data) {
+		return outputStream -> outputStream.write(data.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static ArtifactWriter failing() {
+		return outputStream -> fail("A stored artifact must not be rendered again");
+	}
+
+	private static String readFully(InputStream inputStream) throws IOException {
+		try (inputStream) {
+			return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -5,16 +5,17 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.sidindonesia.bidanreport.IntegrationTest;
 import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
+import org.sidindonesia.bidanreport.integration.qontak.domain.WhatsAppOutboxMessage;
+import org.sidindonesia.bidanreport.integration.qontak.repository.WhatsAppOutboxRepository;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.FhirResourceService;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.VisitReminderService;
-import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.BroadcastMessageService;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.WhatsAppOutboxService;
 import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.QRCodeService;
 import org.sidindonesia.bidanreport.repository.projection.AncVisitReminderProjection;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -33,7 +34,10 @@ class FhirResourceServiceTest {
 	private String hapiFhirBaseUrl;
 
 	@Autowired
-	private BroadcastMessageService broadcastMessageService;
+	private WhatsAppOutboxService whatsAppOutboxService;
+
+	@Autowired
+	private WhatsAppOutboxRepository whatsAppOutboxRepository;
 
 	@Autowired
 	private QontakProperties qontakProperties;
@@ -61,6 +65,11 @@ class FhirResourceServiceTest {
 				return 0;
 			}
 
+			@Override
+			public String getMotherBaseEntityId() {
+				return "00000000-0000-0000-0000-000000000000";
+			}
+
 			@Override
 			public String getPregnancyGapCommaSeparatedValues() {
 				return LocalDate.now()
@@ -109,6 +118,11 @@ class FhirResourceServiceTest {
 				return 0;
 			}
 
+			@Override
+			public String getMotherBaseEntityId() {
+				return "00000000-0000-0000-0000-000000000000";
+			}
+
 			@Override
 			public String getPregnancyGapCommaSeparatedValues() {
 				return LocalDate.now()
@@ -121,11 +135,14 @@ class FhirResourceServiceTest {
 			}
 		};
 
-		AtomicLong successCount = new AtomicLong();
-		broadcastMessageService.sendBroadcastDirectRequestToQontakAPI(successCount, ancVisitReminderProjection,
-			visitReminderService.createANCVisitReminderMessageRequestBody(ancVisitReminderProjection,
-				qontakProperties.getWhatsApp().getVisitReminderWithHeaderImageMessageTemplateId(), true));
+		whatsAppOutboxRepository.deleteAll();
+		whatsAppOutboxService.enqueue(
+			List.of(visitReminderService.createANCVisitReminderMessageRequestBody(ancVisitReminderProjection,
+				qontakProperties.getWhatsApp().getVisitReminderWithHeaderImageMessageTemplateId(), true)),
+			"anc_visit_reminder");
+		whatsAppOutboxService.dispatchPendingMessages();
 
-		assertThat(successCount.get()).isEqualTo(1);
+		assertThat(whatsAppOutboxRepository.findAll()).singleElement().extracting(WhatsAppOutboxMessage::getStatus)
+			.isEqualTo(WhatsAppOutboxMessage.Status.SENT);
 	}
 }
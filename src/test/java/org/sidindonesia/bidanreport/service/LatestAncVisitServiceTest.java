@@ -0,0 +1,100 @@
+package org.sidindonesia.bidanreport.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sidindonesia.bidanreport.IntegrationTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link LatestAncVisitService}.
+ */
+@IntegrationTest
+@Transactional
+class LatestAncVisitServiceTest {
+
+	private static final LocalDate ANC_DATE = LocalDate.of(2022, 10, 1);
+
+	@Autowired
+	private LatestAncVisitService latestAncVisitService;
+	@Autowired
+	private JdbcOperations jdbcOperations;
+
+	@BeforeEach
+	void deleteAncVisits() {
+		jdbcOperations.update("DELETE FROM latest_anc_visit");
+		jdbcOperations.update("DELETE FROM watermark WHERE name = 'latest_anc_visit'");
+		jdbcOperations.update("DELETE FROM anc_visit");
+	}
+
+	@Test
+	void testRefreshLatestAncVisits_withSameAncDate_thenGreatestEventIdIsTheLatest() {
+		insertIntoAncVisit(1, "mother-1", ANC_DATE);
+		insertIntoAncVisit(2, "mother-1", ANC_DATE);
+		insertIntoAncVisit(3, "mother-2", ANC_DATE.plusDays(4));
+
+		latestAncVisitService.refreshLatestAncVisits();
+
+		assertThat(findAllLatestAncVisits()).containsExactly(latestAncVisit("mother-1", 2, ANC_DATE),
+			latestAncVisit("mother-2", 3, ANC_DATE.plusDays(4)));
+		assertThat(findWatermark()).containsExactly(3L);
+	}
+
+	@Test
+	void testRefreshLatestAncVisits_acrossTwoRefreshes_thenOnlyLaterAncVisitsReplaceTheLatest() {
+		insertIntoAncVisit(1, "mother-1", ANC_DATE);
+		insertIntoAncVisit(2, "mother-2", ANC_DATE.plusDays(4));
+		latestAncVisitService.refreshLatestAncVisits();
+
+		// a later visit of mother-2 with an earlier ANC date, a later visit of
+		// mother-1 on the same ANC date and a first visit of mother-3
+		insertIntoAncVisit(3, "mother-2", ANC_DATE.plusDays(2));
+		insertIntoAncVisit(4, "mother-1", ANC_DATE);
+		insertIntoAncVisit(5, "mother-3", ANC_DATE.plusDays(1));
+		latestAncVisitService.refreshLatestAncVisits();
+
+		assertThat(findAllLatestAncVisits()).containsExactly(latestAncVisit("mother-1", 4, ANC_DATE),
+			latestAncVisit("mother-2", 2, ANC_DATE.plusDays(4)), latestAncVisit("mother-3", 5, ANC_DATE.plusDays(1)));
+		assertThat(findWatermark()).containsExactly(5L);
+	}
+
+	@Test
+	void testRefreshLatestAncVisits_withoutNewAncVisit_thenNothingChanges() {
+		insertIntoAncVisit(1, "mother-1", ANC_DATE);
+		latestAncVisitService.refreshLatestAncVisits();
+		jdbcOperations.update("UPDATE latest_anc_visit SET latest_anc_date = ?", ANC_DATE.minusDays(1));
+
+		latestAncVisitService.refreshLatestAncVisits();
+
+		assertThat(findAllLatestAncVisits()).containsExactly(latestAncVisit("mother-1", 1, ANC_DATE.minusDays(1)));
+		assertThat(findWatermark()).containsExactly(1L);
+	}
+
+	private void insertIntoAncVisit(long eventId, String motherBaseEntityId, LocalDate ancDate) {
+		jdbcOperations.update("INSERT INTO anc_visit (event_id, mother_base_entity_id, anc_date) VALUES (?, ?, ?)",
+			eventId, motherBaseEntityId, ancDate);
+	}
+
+	private List<Map<String, Object>> findAllLatestAncVisits() {
+		return jdbcOperations.queryForList("SELECT mother_base_entity_id, latest_event_id, latest_anc_date::text "
+			+ "AS latest_anc_date FROM latest_anc_visit ORDER BY mother_base_entity_id");
+	}
+
+	private List<Long> findWatermark() {
+		return jdbcOperations.queryForList("SELECT last_id FROM watermark WHERE name = 'latest_anc_visit'",
+			Long.class);
+	}
+
+	private static Map<String, Object> latestAncVisit(String motherBaseEntityId, long latestEventId,
+		LocalDate latestAncDate) {
+		return Map.of("mother_base_entity_id", motherBaseEntityId, "latest_event_id", latestEventId,
+			"latest_anc_date", latestAncDate.toString());
+	}
+}
@@ -0,0 +1,158 @@
+package org.sidindonesia.bidanreport.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sidindonesia.bidanreport.IntegrationTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link MotherProfileService}.
+ */
+@IntegrationTest
+@Transactional
+class MotherProfileServiceTest {
+
+	private static final LocalDate LMP = LocalDate.of(2022, 6, 1);
+
+	@Autowired
+	private MotherProfileService motherProfileService;
+	@Autowired
+	private JdbcOperations jdbcOperations;
+	@Autowired
+	private EntityManager entityManager;
+
+	private long sourceId;
+
+	@BeforeEach
+	void deleteMothers() {
+		jdbcOperations.update("DELETE FROM mother_profile");
+		jdbcOperations.update("DELETE FROM watermark WHERE name LIKE 'mother_profile.%'");
+		jdbcOperations.update("DELETE FROM client_mother");
+		jdbcOperations.update("DELETE FROM anc_register");
+	}
+
+	@Test
+	void testRefreshMotherProfiles_acrossTwoRefreshes_thenOnlyNewerRowsAreUpserted() {
+		insertIntoClientMother("mother-1", "1576636572251", "Ani");
+		insertIntoClientMother("mother-1", "1576636572252", "Ani Lestari");
+		insertIntoClientMother("mother-2", "1576636572253", "Budi");
+		insertIntoAncRegister(1, "mother-1", "1576636572251", LMP, "150");
+		insertIntoAncRegister(2, "mother-2", "1576636572252", LMP.plusDays(7), "160");
+		motherProfileService.refreshMotherProfiles();
+
+		assertThat(findAllFullNames()).containsExactly(fullName("mother-1", "Ani Lestari"), fullName("mother-2", "Budi"));
+		assertThat(findLastServerVersionEpoch()).containsExactly("1576636572253");
+
+		// the name of mother-1 is edited and she is registered again
+		insertIntoClientMother("mother-1", "1576636572254", "Ani L.");
+		insertIntoAncRegister(3, "mother-1", "1576636572255", LMP.plusDays(14), "151");
+		entityManager.clear();
+		motherProfileService.refreshMotherProfiles();
+
+		assertThat(findAllFullNames()).containsExactly(fullName("mother-1", "Ani L."), fullName("mother-2", "Budi"));
+		assertThat(jdbcOperations.queryForObject(
+			"SELECT last_menstrual_period_date::text FROM mother_profile WHERE mother_base_entity_id = 'mother-1'",
+			String.class)).isEqualTo(LMP.plusDays(14).toString());
+		assertThat(findLastServerVersionEpoch()).containsExactly("1576636572254");
+		assertThat(jdbcOperations.queryForList(
+			"SELECT last_id FROM watermark WHERE name = 'mother_profile.anc_register'", Long.class))
+			.containsExactly(3L);
+	}
+
+	@Test
+	void testRefreshMotherProfiles_withServerVersionsOfDifferentLengths_thenTheyAreComparedAsNumbers() {
+		insertIntoClientMother("mother-1", "8", "Ani");
+		insertIntoClientMother("mother-1", "10", "Ani Lestari");
+		insertIntoClientMother("mother-2", "9", "Budi");
+		motherProfileService.refreshMotherProfiles();
+
+		// "10" is less than "9" as text
+		assertThat(findAllFullNames()).containsExactly(fullName("mother-1", "Ani Lestari"), fullName("mother-2", "Budi"));
+		assertThat(findLastServerVersionEpoch()).containsExactly("10");
+
+		insertIntoClientMother("mother-2", "100", "Budi Utomo");
+		insertIntoClientMother("mother-1", "99", "Ani L.");
+		entityManager.clear();
+		motherProfileService.refreshMotherProfiles();
+
+		assertThat(findAllFullNames()).containsExactly(fullName("mother-1", "Ani L."),
+			fullName("mother-2", "Budi Utomo"));
+		assertThat(findLastServerVersionEpoch()).containsExactly("100");
+	}
+
+	@Test
+	void testRefreshMotherProfiles_thenProfilesAreTheSameAsThePerRowLookups() {
+		insertIntoClientMother("mother-1", "1576636572251", "Ani");
+		insertIntoClientMother("mother-1", "1576636572253", "Ani Lestari");
+		insertIntoClientMother("mother-2", "1576636572252", "Budi");
+		insertIntoClientMother("mother-3", "1576636572254", "Citra");
+		insertIntoAncRegister(1, "mother-1", "1576636572252", LMP, "150");
+		// a later ANC register with an earlier server version: LMP from the former,
+		// height from the latter
+		insertIntoAncRegister(2, "mother-1", "1576636572251", LMP.plusDays(7), "151");
+		insertIntoAncRegister(3, "mother-2", "1576636572253", LMP.plusDays(14), "160");
+
+		motherProfileService.refreshMotherProfiles();
+
+		// the correlated subqueries the scheduler queries ran before mother_profile
+		assertThat(jdbcOperations.queryForObject("SELECT COUNT(*) FROM (SELECT DISTINCT cm.base_entity_id "
+			+ "FROM client_mother cm) m LEFT JOIN mother_profile mp ON mp.mother_base_entity_id = m.base_entity_id "
+			+ "WHERE mp.full_name IS DISTINCT FROM (SELECT cm.full_name FROM client_mother cm "
+			+ " WHERE cm.base_entity_id = m.base_entity_id ORDER BY cm.server_version_epoch DESC LIMIT 1)",
+			Long.class)).isZero();
+		assertThat(jdbcOperations.queryForObject("SELECT COUNT(*) FROM (SELECT DISTINCT ar.mother_base_entity_id "
+			+ "FROM anc_register ar) m LEFT JOIN mother_profile mp ON mp.mother_base_entity_id = m.mother_base_entity_id "
+			+ "WHERE mp.last_menstrual_period_date IS DISTINCT FROM (SELECT ar.last_menstrual_period_date "
+			+ " FROM anc_register ar WHERE ar.mother_base_entity_id = m.mother_base_entity_id "
+			+ " ORDER BY ar.event_id DESC LIMIT 1) "
+			+ "OR mp.height_in_cm IS DISTINCT FROM (SELECT ar.height_in_cm FROM anc_register ar "
+			+ " WHERE ar.mother_base_entity_id = m.mother_base_entity_id "
+			+ " ORDER BY ar.server_version_epoch DESC LIMIT 1)", Long.class)).isZero();
+		assertThat(jdbcOperations.queryForMap(
+			"SELECT last_menstrual_period_date::text AS lmp, height_in_cm FROM mother_profile "
+				+ "WHERE mother_base_entity_id = 'mother-1'"))
+			.containsEntry("lmp", LMP.plusDays(7).toString()).containsEntry("height_in_cm", "150");
+	}
+
+	private void insertIntoClientMother(String baseEntityId, String serverVersionEpoch, String fullName) {
+		sourceId++;
+		jdbcOperations.update("INSERT INTO client_mother "
+			+ "(source_id, date_created, base_entity_id, birth_date, server_version_epoch, full_name) "
+			+ "VALUES (?, ?, ?, ?, ?, ?)", sourceId, LocalDateTime.now(), baseEntityId, LocalDateTime.now(),
+			serverVersionEpoch, fullName);
+	}
+
+	private void insertIntoAncRegister(long eventId, String motherBaseEntityId, String serverVersionEpoch,
+		LocalDate lastMenstrualPeriodDate, String heightInCm) {
+		jdbcOperations.update("INSERT INTO anc_register "
+			+ "(event_id, date_created, mother_base_entity_id, provider_id, server_version_epoch, "
+			+ "last_menstrual_period_date, expected_delivery_date, height_in_cm) "
+			+ "VALUES (?, CURRENT_TIMESTAMP, ?, 'test', ?, ?, ?, ?)", eventId, motherBaseEntityId,
+			serverVersionEpoch, lastMenstrualPeriodDate, lastMenstrualPeriodDate.plusDays(280), heightInCm);
+	}
+
+	private List<Map<String, Object>> findAllFullNames() {
+		return jdbcOperations.queryForList(
+			"SELECT mother_base_entity_id, full_name FROM mother_profile ORDER BY mother_base_entity_id");
+	}
+
+	private List<String> findLastServerVersionEpoch() {
+		return jdbcOperations.queryForList(
+			"SELECT last_value FROM watermark WHERE name = 'mother_profile.client_mother'", String.class);
+	}
+
+	private static Map<String, Object> fullName(String motherBaseEntityId, String fullName) {
+		return Map.of("mother_base_entity_id", motherBaseEntityId, "full_name", fullName);
+	}
+}
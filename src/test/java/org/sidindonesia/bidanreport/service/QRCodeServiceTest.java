@@ -2,22 +2,33 @@ package org.sidindonesia.bidanreport.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 
+import javax.imageio.ImageIO;
+
 import org.junit.jupiter.api.Test;
 import org.sidindonesia.bidanreport.IntegrationTest;
 import org.sidindonesia.bidanreport.config.property.QRCodeProperties;
 import org.sidindonesia.bidanreport.integration.qontak.config.property.QontakProperties;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.FhirResourceService;
+import org.sidindonesia.bidanreport.integration.qontak.whatsapp.service.util.QRCodeService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
 import com.google.zxing.qrcode.QRCodeWriter;
 
 import reactor.core.publisher.Mono;
@@ -37,6 +48,29 @@ class QRCodeServiceTest {
 	@Autowired
 	private QRCodeProperties qrCodeProperties;
 
+	@Autowired
+	private QRCodeService qrCodeService;
+
+	@Test
+	void testCreateQRCodeImage_thenPNGInMemoryEncodesTheContents() throws Exception {
+		String contents = "https://hapi-fhir.dev.sid-indonesia.org/fhir/Patient/1/$everything";
+
+		Resource qrCodeImage = qrCodeService.createQRCodeImage(contents);
+
+		assertThat(qrCodeImage.getFilename()).isEqualTo(FhirResourceService.QR_CODE_GAP_CARE_PNG);
+		BufferedImage image;
+		try (InputStream in = qrCodeImage.getInputStream()) {
+			image = ImageIO.read(in);
+		}
+		assertThat(image.getWidth()).isEqualTo(qrCodeProperties.getWidth());
+		assertThat(image.getHeight()).isEqualTo(qrCodeProperties.getHeight());
+		assertThat(new MultiFormatReader()
+			.decode(new BinaryBitmap(new HybridBinarizer(new BufferedImageLuminanceSource(image)))).getText())
+			.isEqualTo(contents);
+		// a new image every time, never a file shared by concurrent reminders
+		assertThat(qrCodeService.createQRCodeImage(contents)).isNotSameAs(qrCodeImage);
+	}
+
 	@Test
 	void testUploadQRCodeToMockServer() throws Exception {
 		String contents = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. Vestibulum at purus tempor, vehicula lorem sit amet, tristique magna. Aliquam ac neque nec odio commodo sagittis euismod eu metus. Vivamus maximus tellus vitae pharetra imperdiet. Sed molestie vel ligula et semper. Quisque massa felis, feugiat nec tortor sed, gravida ultrices eros. Nullam porta consequat scelerisque. Aenean vulputate hendrerit quam at vestibulum. Ut congue eros vel mauris semper, sit amet vulputate odio bibendum. Cras eget ligula sed justo tincidunt auctor. Pellentesque accumsan semper lacus sed ornare. Donec iaculis nisi sed dolor vehicula pretium. Nulla nec metus enim.\r\n"
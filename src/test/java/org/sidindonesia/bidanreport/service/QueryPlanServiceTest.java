@@ -0,0 +1,65 @@
+package org.sidindonesia.bidanreport.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.sidindonesia.bidanreport.IntegrationTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.transaction.annotation.Transactional;
+
+@IntegrationTest
+@Transactional
+class QueryPlanServiceTest {
+
+	@Autowired
+	private QueryPlanService queryPlanService;
+	@Autowired
+	private JdbcOperations jdbcOperations;
+
+	@Test
+	void testFindSequentialScansExplainsEverySchedulerQuery() {
+		Map<String, List<String>> sequentialScans = queryPlanService.findSequentialScans();
+
+		assertThat(sequentialScans).containsKeys(
+			"MotherIdentityRepository.findAllPregnantWomenToBeRemindedForTheNextANCVisit",
+			"MotherIdentityRepository.findAllPregnantWomenToBeInformedOfHerGapOnPregnancy",
+			"MotherIdentityRepository.findAllPregnantWomenToBeGivenEducationOfTheirHealth",
+			"MotherEditRepository.findAllPregnantWomenToBeRemindedForTheNextANCVisit",
+			"MotherEditRepository.findAllPregnantWomenToBeInformedOfHerGapOnPregnancy",
+			"MotherEditRepository.findAllPregnantWomenToBeGivenEducationOfTheirHealth");
+	}
+
+	@Test
+	void testFindSequentialScans_withAncVisitIndexedAndSeqScanDisabled_thenNoQueryScansAncVisitSequentially() {
+		assertThat(jdbcOperations.queryForList(
+			"SELECT indexname FROM pg_indexes WHERE tablename = 'anc_visit' AND indexname = ?", String.class,
+			"anc_visit_mother_base_entity_id_anc_date_ix")).hasSize(1);
+		jdbcOperations.update("DELETE FROM anc_visit");
+		for (long id = 1; id <= 100; id++) {
+			jdbcOperations.update(
+				"INSERT INTO anc_visit (event_id, mother_base_entity_id, anc_date, anc_visit_number) VALUES (?, ?, ?, ?)",
+				id, "query-plan-" + id % 10, LocalDate.now().minusDays(id), String.valueOf(id % 4));
+		}
+		// only for this transaction, a sequential scan is then chosen only when
+		// no index can serve the query
+		jdbcOperations.execute("SET LOCAL enable_seqscan = off");
+
+		Map<String, List<String>> sequentialScans = queryPlanService.findSequentialScans();
+
+		assertThat(sequentialScans).isNotEmpty()
+			.allSatisfy((queryName, tableNames) -> assertThat(tableNames).as(queryName).doesNotContain("anc_visit"));
+	}
+
+	@Test
+	void testExplainReturnsThePlanWithoutExecutingTheQuery() {
+		List<String> planLines = queryPlanService
+			.explain("SELECT mi.event_id FROM {h-schema}mother_identity mi WHERE mi.event_id > ?1", 0L);
+
+		assertThat(planLines).isNotEmpty().anyMatch(line -> line.contains("mother_identity"));
+	}
+}
@@ -0,0 +1,38 @@
+package org.sidindonesia.bidanreport.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+class RetryAfterUtilTest {
+
+	private final Clock clock = Clock.fixed(Instant.parse("2022-10-20T10:00:00Z"), ZoneOffset.UTC);
+
+	@Test
+	void testParse_withSeconds() {
+		assertThat(RetryAfterUtil.parse(" 120 ", clock)).isEqualTo(Duration.ofSeconds(120));
+	}
+
+	@Test
+	void testParse_withHttpDate_thenDurationFromNow() {
+		assertThat(RetryAfterUtil.parse("Thu, 20 Oct 2022 10:00:30 GMT", clock)).isEqualTo(Duration.ofSeconds(30));
+	}
+
+	@Test
+	void testParse_withPastHttpDateOrNegativeSeconds_thenZero() {
+		assertThat(RetryAfterUtil.parse("Thu, 20 Oct 2022 09:59:00 GMT", clock)).isZero();
+		assertThat(RetryAfterUtil.parse("-5", clock)).isZero();
+	}
+
+	@Test
+	void testParse_withMissingOrInvalidHeader_thenNull() {
+		assertThat(RetryAfterUtil.parse(null, clock)).isNull();
+		assertThat(RetryAfterUtil.parse(" ", clock)).isNull();
+		assertThat(RetryAfterUtil.parse("soon", clock)).isNull();
+	}
+}